@@ -0,0 +1,317 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.patternbox.commons.xml.XmlParserService;
+import com.patternbox.commons.xml.XmlWriter;
+import com.patternbox.eclipse.model.DirectoryCatalogSource;
+import com.patternbox.eclipse.model.ICatalogSource;
+import com.patternbox.eclipse.model.PatternXmlHandler;
+
+/**
+ * Scaled-up catalog fixture of the benchmarks. A catalog consists of synthetic design
+ * patterns with a chain of roles, where each role depends on its predecessor, and the
+ * code templates of these roles. The fields and methods of each role reference the
+ * preceding role and iterate over its members, so wildcard substitution and for-each
+ * expansion grow with the catalog.
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class SyntheticCatalog {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   /** Name of the catalog source */
+   public static final String SOURCE_NAME = "benchmark"; //$NON-NLS-1$
+
+   /** Plugin folder holding the shipped catalog, see <code>-Dpatternbox.home</code> */
+   public static final File PLUGIN_DIR = new File(System.getProperty("patternbox.home", ".")); //$NON-NLS-1$ //$NON-NLS-2$
+
+   private static final String MANIFEST_DTD = "manifest.dtd"; //$NON-NLS-1$
+
+   private static final String TEMPLATE_DTD = "templates.dtd"; //$NON-NLS-1$
+
+   private static final String ROLE = "Role"; //$NON-NLS-1$
+
+   private final File fBaseDir;
+
+   private final int fPatternCount;
+
+   private final int fRoleCount;
+
+   private final int fMemberCount;
+
+   // ------------------------------------------------------------------------- Constructors
+
+   /**
+    * Constructor, writes the catalog to a new temporary folder.
+    * @param patternCount Number of design patterns
+    * @param roleCount Number of roles of each design pattern
+    * @param memberCount Number of fields and methods of each role
+    * @throws IOException Catalog can't be written
+    */
+   public SyntheticCatalog(int patternCount, int roleCount, int memberCount) throws IOException {
+
+      fPatternCount = patternCount;
+      fRoleCount = roleCount;
+      fMemberCount = memberCount;
+
+      fBaseDir = File.createTempFile("patternbox", ".catalog"); //$NON-NLS-1$ //$NON-NLS-2$
+      fBaseDir.delete();
+
+      final File manifestDir = new File(fBaseDir, ICatalogSource.MANIFEST_DIR);
+      final File templateDir = new File(fBaseDir, ICatalogSource.TEMPLATE_DIR);
+      manifestDir.mkdirs();
+      templateDir.mkdirs();
+
+      // manifests and templates refer to their DTDs relatively
+      copy(getShippedFile(ICatalogSource.MANIFEST_DIR, MANIFEST_DTD), new File(manifestDir, MANIFEST_DTD));
+      copy(getShippedFile(ICatalogSource.TEMPLATE_DIR, TEMPLATE_DTD), new File(templateDir, TEMPLATE_DTD));
+      XmlParserService.getInstance().preloadDTD(new File(manifestDir, MANIFEST_DTD));
+      XmlParserService.getInstance().preloadDTD(new File(templateDir, TEMPLATE_DTD));
+
+      for (int i = 0; i < patternCount; i++) {
+         write(new File(manifestDir, getModelID(i) + ".xml"), createManifest(i)); //$NON-NLS-1$
+         write(new File(templateDir, getModelID(i) + ".xml"), createTemplate(i)); //$NON-NLS-1$
+      }  // for
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   private String createManifest(int pattern) {
+
+      final StringBuffer buf = new StringBuffer(256 * fRoleCount);
+      buf.append("<?xml version=\"1.0\" encoding=\"iso-8859-1\" ?>\n"); //$NON-NLS-1$
+      buf.append("<!DOCTYPE pattern SYSTEM \"manifest.dtd\">\n"); //$NON-NLS-1$
+      buf.append("<pattern id=\"").append(getModelID(pattern)); //$NON-NLS-1$
+      buf.append("\" name=\"Synthetic ").append(pattern); //$NON-NLS-1$
+      buf.append("\" topCategorie=\"Benchmark\" subCategorie=\"Synthetic Pattern\">\n"); //$NON-NLS-1$
+      buf.append("  <comment>Synthetic design pattern with ").append(fRoleCount); //$NON-NLS-1$
+      buf.append(" chained roles.</comment>\n"); //$NON-NLS-1$
+
+      for (int i = 0; i < fRoleCount; i++) {
+         buf.append("  <role name=\"").append(getRoleName(i)).append("\" min=\"1\" max=\"n\">\n"); //$NON-NLS-1$ //$NON-NLS-2$
+         buf.append("    <comment><li>participant ").append(i).append(" of the chain</li></comment>\n"); //$NON-NLS-1$ //$NON-NLS-2$
+         if (i > 0) {
+            buf.append("    <dependence roles=\"").append(getRoleName(i - 1)).append("\" />\n"); //$NON-NLS-1$ //$NON-NLS-2$
+         }
+         buf.append("  </role>\n"); //$NON-NLS-1$
+      }  // for
+
+      buf.append("</pattern>\n"); //$NON-NLS-1$
+      return buf.toString();
+   }
+
+   private String createTemplate(int pattern) {
+
+      final StringBuffer buf = new StringBuffer(1024 * fRoleCount * Math.max(1, fMemberCount));
+      buf.append("<?xml version=\"1.0\" encoding=\"iso-8859-1\" ?>\n"); //$NON-NLS-1$
+      buf.append("<!DOCTYPE templates SYSTEM \"templates.dtd\">\n"); //$NON-NLS-1$
+      buf.append("<templates id=\"").append(getModelID(pattern)).append("\" version=\"1.0\">\n"); //$NON-NLS-1$ //$NON-NLS-2$
+
+      for (int i = 0; i < fRoleCount; i++) {
+
+         buf.append("  <role name=\"").append(getRoleName(i)); //$NON-NLS-1$
+         buf.append("\" type=\"class\" modifiers=\"public\">\n"); //$NON-NLS-1$
+         buf.append("    <import type=\"java.util.List\"/>\n"); //$NON-NLS-1$
+         buf.append("    <import type=\"java.util.ArrayList\"/>\n"); //$NON-NLS-1$
+
+         // the first role has nothing to refer to
+         final String ref = (i > 0) ? '$' + getRoleName(i - 1) + '$' : "Object"; //$NON-NLS-1$
+
+         for (int j = 0; j < fMemberCount; j++) {
+            buf.append("    <field modifiers=\"private\" type=\"").append(ref); //$NON-NLS-1$
+            buf.append("\" name=\"fField").append(j).append("\" initial=\"null\">\n"); //$NON-NLS-1$ //$NON-NLS-2$
+            buf.append("      <comment>Reference ").append(j).append(" to ").append(ref); //$NON-NLS-1$ //$NON-NLS-2$
+            buf.append(".</comment>\n    </field>\n"); //$NON-NLS-1$
+         }  // for
+
+         for (int j = 0; j < fMemberCount; j++) {
+            buf.append("    <method modifiers=\"public\" return=\"void\" name=\"handle").append(j); //$NON-NLS-1$
+            if (i > 0) buf.append("\" foreach=\"").append(getRoleName(i - 1)); //$NON-NLS-1$
+            buf.append("\">\n      <comment>Handles the ").append(ref).append(" instances.</comment>\n"); //$NON-NLS-1$ //$NON-NLS-2$
+            buf.append("      <param type=\"").append(ref).append("\" name=\"source\"/>\n"); //$NON-NLS-1$ //$NON-NLS-2$
+            buf.append("      <code>\n        List list = new ArrayList();\n"); //$NON-NLS-1$
+            buf.append("        ").append(ref).append(" copy = (").append(ref).append(") source;\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            buf.append("        list.add(copy); // ").append(ref).append(" added\n      </code>\n"); //$NON-NLS-1$ //$NON-NLS-2$
+            buf.append("    </method>\n"); //$NON-NLS-1$
+         }  // for
+
+         buf.append("  </role>\n"); //$NON-NLS-1$
+      }  // for
+
+      buf.append("</templates>\n"); //$NON-NLS-1$
+      return buf.toString();
+   }
+
+   private static void write(File file, String content) throws IOException {
+      final OutputStream out = new FileOutputStream(file);
+      try {
+         out.write(content.getBytes("ISO-8859-1")); //$NON-NLS-1$
+      } finally {
+         out.close();
+      }  // try - finally
+   }
+
+   private static void copy(File source, File target) throws IOException {
+      final InputStream in = new FileInputStream(source);
+      try {
+         final OutputStream out = new FileOutputStream(target);
+         try {
+            final byte[] buffer = new byte[4096];
+            int count;
+            while ((count = in.read(buffer)) > 0) {
+               out.write(buffer, 0, count);
+            }  // while
+         } finally {
+            out.close();
+         }  // try - finally
+      } finally {
+         in.close();
+      }  // try - finally
+   }
+
+   private static void delete(File file) {
+      final File[] children = file.listFiles();
+      if (children != null) {
+         for (int i = 0; i < children.length; i++) {
+            delete(children[i]);
+         }  // for
+      }  // if
+      file.delete();
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   /**
+    * Returns a file of the shipped catalog.
+    * @param folder Catalog folder, {@link ICatalogSource#MANIFEST_DIR} or
+    *   {@link ICatalogSource#TEMPLATE_DIR}
+    * @param name File name
+    * @return Shipped file
+    * @throws IOException File doesn't exist, <code>patternbox.home</code> is wrong
+    */
+   public static File getShippedFile(String folder, String name) throws IOException {
+      final File file = new File(new File(PLUGIN_DIR, folder), name);
+      if (!file.isFile()) {
+         throw new IOException(file + " not found, set -Dpatternbox.home to the plugin folder"); //$NON-NLS-1$
+      }
+      return file;
+   }
+
+   /**
+    * @return Source of the shipped catalog
+    */
+   public static ICatalogSource getShippedSource() {
+      return new DirectoryCatalogSource(PLUGIN_DIR, "builtin", 0); //$NON-NLS-1$
+   }
+
+   /**
+    * @return Source of this catalog
+    */
+   public ICatalogSource getSource() {
+      return new DirectoryCatalogSource(fBaseDir, SOURCE_NAME, 1);
+   }
+
+   /**
+    * @param pattern Index of a synthetic design pattern
+    * @return Model identifier of the design pattern
+    */
+   public String getModelID(int pattern) {
+      return "synthetic" + pattern; //$NON-NLS-1$
+   }
+
+   /**
+    * @param role Index of a role
+    * @return Name of the role
+    */
+   public String getRoleName(int role) {
+      return ROLE + role;
+   }
+
+   public int getPatternCount() {
+      return fPatternCount;
+   }
+
+   public int getRoleCount() {
+      return fRoleCount;
+   }
+
+   public int getMemberCount() {
+      return fMemberCount;
+   }
+
+   /**
+    * Creates the instance file content of a synthetic design pattern. Members are
+    * written as well, if requested, but they can only be resolved in a running workspace.
+    * @param pattern Index of the design pattern
+    * @param membersPerRole Number of members of each role
+    * @return Instance file content, as written by the editor
+    * @throws IOException Encoding isn't supported
+    */
+   public byte[] createInstance(int pattern, int membersPerRole) throws IOException {
+
+      final XmlWriter xml = new XmlWriter();
+      final Map<String, String> atts = new TreeMap<String, String>();
+
+      atts.put(PatternXmlHandler.ATTR_ID, getModelID(pattern));
+      xml.openElement(PatternXmlHandler.ELEM_PATTERN, atts, null);
+
+      for (int i = 0; i < fRoleCount; i++) {
+         atts.clear();
+         atts.put(PatternXmlHandler.ATTR_NAME, getRoleName(i));
+         xml.openElement(PatternXmlHandler.ELEM_ROLE, atts, null);
+         for (int j = 0; j < membersPerRole; j++) {
+            atts.clear();
+            atts.put(PatternXmlHandler.ATTR_PACKAGE, "com.example.synthetic"); //$NON-NLS-1$
+            atts.put(PatternXmlHandler.ATTR_NAME, getRoleName(i) + 'M' + j);
+            xml.addEmptyElement(PatternXmlHandler.ELEM_MEMBER, atts);
+         }  // for
+         xml.closeElement();
+      }  // for
+
+      xml.closeElement();
+
+      return xml.toString().getBytes("ISO-8859-1"); //$NON-NLS-1$
+   }
+
+   /**
+    * Removes the catalog folder.
+    */
+   public void dispose() {
+      delete(fBaseDir);
+   }
+}
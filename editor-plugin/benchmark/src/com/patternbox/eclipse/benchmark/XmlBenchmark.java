@@ -0,0 +1,160 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.patternbox.commons.model.DocumentNode;
+import com.patternbox.commons.xml.XmlDocValidator;
+import com.patternbox.eclipse.codegen.CodeTemplate;
+import com.patternbox.eclipse.model.CatalogEntry;
+import com.patternbox.eclipse.model.DesignPatternModel;
+import com.patternbox.eclipse.model.DesignPatternPool;
+import com.patternbox.eclipse.model.DirectoryCatalogSource;
+import com.patternbox.eclipse.model.ICatalogSource;
+import com.patternbox.eclipse.model.PatternXmlHandler;
+
+/**
+ * Parsing benchmarks of the catalog and instance files: manifests, code templates and
+ * design pattern instances, plus plain DTD validation. The fixture is either a shipped
+ * design pattern or a synthetic one with the given number of roles, see
+ * {@link SyntheticCatalog}.
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XmlBenchmark {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final String SYNTHETIC = "synthetic-"; //$NON-NLS-1$
+
+   /** Shipped model identifier or <code>synthetic-&lt;roles&gt;</code> */
+   @Param({"observer", "abstractfactory", "synthetic-20", "synthetic-200"})
+   public String fixture;
+
+   private SyntheticCatalog fCatalog;
+
+   private CatalogEntry fManifest;
+
+   private CatalogEntry fTemplate;
+
+   private byte[] fInstance;
+
+   // ------------------------------------------------------------------------- Setup
+
+   @Setup(Level.Trial)
+   public void setUp() throws Exception {
+
+      final ICatalogSource source;
+      final String modelID;
+
+      if (fixture.startsWith(SYNTHETIC)) {
+         final int roles = Integer.parseInt(fixture.substring(SYNTHETIC.length()));
+         fCatalog = new SyntheticCatalog(1, roles, 5);
+         source = fCatalog.getSource();
+         modelID = fCatalog.getModelID(0);
+      } else {
+         source = SyntheticCatalog.getShippedSource();
+         modelID = fixture;
+      }  // if - else
+
+      fManifest = source.getManifest(modelID);
+      fTemplate = source.getCodeTemplate(modelID);
+      if (fManifest == null || fTemplate == null) {
+         throw new IllegalStateException("No manifest or template of " + modelID); //$NON-NLS-1$
+      }
+
+      // instances refer to the models of the pool, members need a workspace
+      DesignPatternPool.initialize(new ICatalogSource[] {source}, null, false);
+      fInstance = DesignPatternPool.getDesignPatternModel(modelID).getNewInstanceContent()
+         .getBytes("ISO-8859-1"); //$NON-NLS-1$
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      if (fCatalog != null) fCatalog.dispose();
+   }
+
+   // ------------------------------------------------------------------------- Benchmarks
+
+   /**
+    * {@link com.patternbox.eclipse.model.ManifestXmlHandler}, validating
+    */
+   @Benchmark
+   public DesignPatternModel parseManifest() throws Exception {
+      return DesignPatternModel.load(fManifest);
+   }
+
+   /**
+    * {@link com.patternbox.eclipse.codegen.CodeTemplateCompiler}, validating
+    */
+   @Benchmark
+   public CodeTemplate compileTemplate() throws Exception {
+      return CodeTemplate.compile(fTemplate);
+   }
+
+   @Benchmark
+   public DocumentNode parseInstance() throws Exception {
+      return new PatternXmlHandler().parsePatternStream(new ByteArrayInputStream(fInstance), ""); //$NON-NLS-1$
+   }
+
+   @Benchmark
+   public File validateManifest() throws Exception {
+      final File file = ((DirectoryCatalogSource.FileEntry) fManifest).getFile();
+      XmlDocValidator.getInstance().validate(file);
+      return file;
+   }
+
+   @Benchmark
+   public File validateTemplate() throws Exception {
+      final File file = ((DirectoryCatalogSource.FileEntry) fTemplate).getFile();
+      XmlDocValidator.getInstance().validate(file);
+      return file;
+   }
+}
@@ -0,0 +1,249 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.patternbox.eclipse.benchmark.SyntheticCatalog;
+import com.patternbox.eclipse.model.DesignPatternInstance;
+import com.patternbox.eclipse.model.DesignPatternPool;
+import com.patternbox.eclipse.model.ICatalogSource;
+import com.patternbox.eclipse.model.MemberNode;
+import com.patternbox.eclipse.model.RoleNode;
+
+/**
+ * Benchmarks of the code generation hot paths without a workspace: wildcard
+ * substitution of {@link CodeReplacer} for all role templates of a synthetic
+ * design pattern instance, and the {@link ImportsManager}. Members are attached
+ * to the instance as proxies of Java types, so no Java model is needed.
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodeGenerationBenchmark {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final String PACKAGE = "com.example.synthetic"; //$NON-NLS-1$
+
+   @Param({"5", "50"})
+   public int roles;
+
+   /** Members of each role, drives the for-each expansion */
+   @Param({"1", "10"})
+   public int members;
+
+   private SyntheticCatalog fCatalog;
+
+   private DesignPatternInstance fInstance;
+
+   private RoleTemplate[] fRoleTemplates;
+
+   private CodeReplacer[] fReplacers;
+
+   private MemberCodeGenerator[] fGenerators;
+
+   private String[] fTemplateStrings;
+
+   private String[] fImports;
+
+   // ------------------------------------------------------------------------- Setup
+
+   @Setup(Level.Trial)
+   public void setUp() throws Exception {
+
+      fCatalog = new SyntheticCatalog(1, roles, 5);
+      final ICatalogSource source = fCatalog.getSource();
+      final String modelID = fCatalog.getModelID(0);
+      DesignPatternPool.initialize(new ICatalogSource[] {source}, null, false);
+
+      // roles only, members would be looked up in the workspace
+      fInstance = new DesignPatternInstance((IFile) null);
+      fInstance.load(new ByteArrayInputStream(fCatalog.createInstance(0, 0)), true, ""); //$NON-NLS-1$
+
+      final CodeTemplate template = CodeTemplate.compile(source.getCodeTemplate(modelID));
+      final List<String> strings = new ArrayList<String>();
+      final List<String> imports = new ArrayList<String>();
+
+      fRoleTemplates = new RoleTemplate[roles];
+      fGenerators = new MemberCodeGenerator[roles];
+      fReplacers = new CodeReplacer[roles];
+
+      for (int i = 0; i < roles; i++) {
+
+         final String roleName = fCatalog.getRoleName(i);
+         final RoleNode roleNode = fInstance.getRole(roleName);
+         for (int j = 0; j < members; j++) {
+            new MemberNode(roleNode, createType(roleName + 'M' + j));
+            imports.add(PACKAGE + '.' + roleName + 'M' + j);
+         }  // for
+
+         fRoleTemplates[i] = template.getRoleTemplate(roleName);
+         fGenerators[i] = new MemberCodeGenerator(fInstance, roleNode, roleName + "Impl", null, null); //$NON-NLS-1$
+         fReplacers[i] = new CodeReplacer(fGenerators[i]);
+
+         final MemberTemplate[] memberTemplates = fRoleTemplates[i].getMembers();
+         for (int j = 0; j < memberTemplates.length; j++) {
+            strings.add(memberTemplates[j].getType());
+            if (memberTemplates[j].getCode() != null) strings.add(memberTemplates[j].getCode());
+         }  // for
+         for (int j = 0; j < fRoleTemplates[i].getImports().length; j++) {
+            imports.add(fRoleTemplates[i].getImports()[j]);
+         }  // for
+      }  // for
+
+      fTemplateStrings = strings.toArray(new String[strings.size()]);
+      // primitives and duplicates are part of every real import sequence
+      imports.add("void"); //$NON-NLS-1$
+      imports.add("int"); //$NON-NLS-1$
+      imports.add("java.lang.String"); //$NON-NLS-1$
+      imports.add(imports.get(0));
+      fImports = imports.toArray(new String[imports.size()]);
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      fCatalog.dispose();
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   /**
+    * Creates a type proxy providing the names {@link MemberNode} asks for.
+    */
+   private static IType createType(final String name) {
+
+      final IJavaProject project = (IJavaProject) Proxy.newProxyInstance(
+         IJavaProject.class.getClassLoader(), new Class[] {IJavaProject.class},
+         new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+               if ("getPath".equals(method.getName())) return new Path("/Synthetic"); //$NON-NLS-1$ //$NON-NLS-2$
+               throw new UnsupportedOperationException(method.getName());
+            }
+         });
+
+      return (IType) Proxy.newProxyInstance(IType.class.getClassLoader(),
+         new Class[] {IType.class}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+               final String methodName = method.getName();
+               if ("getElementName".equals(methodName)) return name; //$NON-NLS-1$
+               if ("getFullyQualifiedName".equals(methodName)) return PACKAGE + '.' + name; //$NON-NLS-1$
+               if ("getJavaProject".equals(methodName)) return project; //$NON-NLS-1$
+               throw new UnsupportedOperationException(methodName);
+            }
+         });
+   }
+
+   private int replaceAll(boolean planned) {
+
+      int length = 0;
+
+      for (int i = 0; i < fRoleTemplates.length; i++) {
+
+         final MemberCodeGenerator generator = fGenerators[i];
+         final CodeReplacer replacer = fReplacers[i];
+         final ImportsManager imports = new ImportsManager();
+         final MemberTemplate[] memberTemplates = fRoleTemplates[i].getMembers();
+
+         if (planned) generator.setExpansionPlan(new ExpansionPlan(fInstance, fRoleTemplates[i]));
+         try {
+            for (int j = 0; j < memberTemplates.length; j++) {
+               final MemberTemplate member = memberTemplates[j];
+               final String foreach = member.getForEach();
+               final int count = (foreach != null) ? members : 1;
+               for (int k = 0; k < count; k++) {
+                  length += replacer.replaceWildcards(member.getType(), k, foreach, imports).length();
+                  length += replacer.replaceWildcards(member.getCode(), k, foreach, imports).length();
+               }  // for
+            }  // for
+         } finally {
+            generator.setExpansionPlan(null);
+         }  // try - finally
+      }  // for
+
+      return length;
+   }
+
+   // ------------------------------------------------------------------------- Benchmarks
+
+   @Benchmark
+   public int replaceWildcards() {
+      return replaceAll(false);
+   }
+
+   @Benchmark
+   public int replaceWildcardsPlanned() {
+      return replaceAll(true);
+   }
+
+   @Benchmark
+   public int compileWildcards() {
+      int size = 0;
+      for (int i = 0; i < fTemplateStrings.length; i++) {
+         size += WildcardPattern.compile(fTemplateStrings[i]).size();
+      }  // for
+      return size;
+   }
+
+   @Benchmark
+   public ImportsManager addImport() {
+      final ImportsManager imports = new ImportsManager();
+      for (int i = 0; i < fImports.length; i++) {
+         imports.addImport(fImports[i]);
+      }  // for
+      return imports;
+   }
+}
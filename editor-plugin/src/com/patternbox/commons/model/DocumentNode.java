@@ -25,8 +25,9 @@ SUCH DAMAGE.
  ******************************************************************************/
 package com.patternbox.commons.model;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Abstract tree node class. The access must be done with the tree model.
@@ -36,7 +37,11 @@ import java.util.Collection;
 public class DocumentNode {
 
 	// ------------------------------------------------------------------------- Field Definitions
-	private final ArrayList<DocumentNode> fChildren = new ArrayList<DocumentNode>();
+	/**
+	 * Child nodes. Trees like the design pattern catalog are updated in the background while
+	 * the UI reads them, so readers always work on a consistent copy.
+	 */
+	private final List<DocumentNode> fChildren = new CopyOnWriteArrayList<DocumentNode>();
 
 	private DocumentNode fParent;
 
@@ -49,5 +49,13 @@ public class EInvalidXmlDocument extends Exception {
       super(MessageFormat.format(ERR_MSG, new Object[] {xmlFile, msg}));
    }
 
+   /**
+    * Class constructor
+    * @param documentName Name or location of a XML document which isn't a file
+    */
+   public EInvalidXmlDocument(String documentName, String msg) {
+      super(MessageFormat.format(ERR_MSG, new Object[] {documentName, msg}));
+   }
+
 }
 
@@ -0,0 +1,202 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.commons.xml;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.LocatorImpl;
+
+/**
+ * Records the content events of a SAX parse, so they can be passed to the real content
+ * handler once the whole document has been validated. Handlers with side effects, e.g.
+ * code generation, never see a document which turns out to be invalid further down.
+ * The document locator is replayed as well.
+ *
+ * @see XmlDocValidator#parse(java.io.InputStream, String, String, DefaultHandler)
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+class SaxEventBuffer extends DefaultHandler {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final int START_DOCUMENT = 0;
+   private static final int END_DOCUMENT = 1;
+   private static final int START_ELEMENT = 2;
+   private static final int END_ELEMENT = 3;
+   private static final int CHARACTERS = 4;
+   private static final int IGNORABLE_WHITESPACE = 5;
+   private static final int PROCESSING_INSTRUCTION = 6;
+   private static final int START_PREFIX_MAPPING = 7;
+   private static final int END_PREFIX_MAPPING = 8;
+
+   private final List<Event> fEvents = new ArrayList<Event>();
+
+   private Locator fLocator;
+
+   // ------------------------------------------------------------------------- Inner Classes
+
+   /**
+    * Single recorded content event
+    */
+   private static class Event {
+
+      private final int fType;
+      private final int fLine;
+      private final int fColumn;
+      private final String fArg1;
+      private final String fArg2;
+      private final String fArg3;
+      private final Attributes fAttributes;
+      private final char[] fText;
+
+      public Event(int type, Locator locator, String arg1, String arg2, String arg3,
+         Attributes attributes, char[] text) {
+         fType = type;
+         fLine = (locator != null) ? locator.getLineNumber() : -1;
+         fColumn = (locator != null) ? locator.getColumnNumber() : -1;
+         fArg1 = arg1;
+         fArg2 = arg2;
+         fArg3 = arg3;
+         fAttributes = attributes;
+         fText = text;
+      }
+
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   private void record(int type, String arg1, String arg2, String arg3, Attributes attributes,
+      char[] text) {
+      fEvents.add(new Event(type, fLocator, arg1, arg2, arg3, attributes, text));
+   }
+
+   private static char[] copy(char[] ch, int start, int length) {
+      final char[] result = new char[length];
+      System.arraycopy(ch, start, result, 0, length);
+      return result;
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   /**
+    * Passes all recorded events to the given handler.
+    * @param handler Content handler
+    * @param systemId System identifier of the document, reported by the replayed locator
+    * @throws SAXException Content handler failed
+    */
+   public void replay(ContentHandler handler, String systemId) throws SAXException {
+
+      final LocatorImpl locator = new LocatorImpl();
+      locator.setSystemId(systemId);
+      handler.setDocumentLocator(locator);
+
+      for (Event event : fEvents) {
+         locator.setLineNumber(event.fLine);
+         locator.setColumnNumber(event.fColumn);
+         switch (event.fType) {
+            case START_DOCUMENT:
+               handler.startDocument();
+               break;
+            case END_DOCUMENT:
+               handler.endDocument();
+               break;
+            case START_ELEMENT:
+               handler.startElement(event.fArg1, event.fArg2, event.fArg3, event.fAttributes);
+               break;
+            case END_ELEMENT:
+               handler.endElement(event.fArg1, event.fArg2, event.fArg3);
+               break;
+            case CHARACTERS:
+               handler.characters(event.fText, 0, event.fText.length);
+               break;
+            case IGNORABLE_WHITESPACE:
+               handler.ignorableWhitespace(event.fText, 0, event.fText.length);
+               break;
+            case PROCESSING_INSTRUCTION:
+               handler.processingInstruction(event.fArg1, event.fArg2);
+               break;
+            case START_PREFIX_MAPPING:
+               handler.startPrefixMapping(event.fArg1, event.fArg2);
+               break;
+            case END_PREFIX_MAPPING:
+               handler.endPrefixMapping(event.fArg1);
+               break;
+         }  // switch
+      }  // for
+
+   }
+
+   public void setDocumentLocator(Locator locator) {
+      fLocator = locator;
+   }
+
+   public void startDocument() {
+      record(START_DOCUMENT, null, null, null, null, null);
+   }
+
+   public void endDocument() {
+      record(END_DOCUMENT, null, null, null, null, null);
+   }
+
+   public void startElement(String uri, String localName, String qName, Attributes attributes) {
+      // the parser reuses its attributes object
+      record(START_ELEMENT, uri, localName, qName, new AttributesImpl(attributes), null);
+   }
+
+   public void endElement(String uri, String localName, String qName) {
+      record(END_ELEMENT, uri, localName, qName, null, null);
+   }
+
+   public void characters(char[] ch, int start, int length) {
+      record(CHARACTERS, null, null, null, null, copy(ch, start, length));
+   }
+
+   public void ignorableWhitespace(char[] ch, int start, int length) {
+      record(IGNORABLE_WHITESPACE, null, null, null, null, copy(ch, start, length));
+   }
+
+   public void processingInstruction(String target, String data) {
+      record(PROCESSING_INSTRUCTION, target, data, null, null, null);
+   }
+
+   public void startPrefixMapping(String prefix, String uri) {
+      record(START_PREFIX_MAPPING, prefix, uri, null, null, null);
+   }
+
+   public void endPrefixMapping(String prefix) {
+      record(END_PREFIX_MAPPING, prefix, null, null, null, null);
+   }
+
+}
@@ -28,8 +28,6 @@ package com.patternbox.commons.xml;
 
 import java.io.*;
 
-import javax.xml.parsers.*;
-
 import org.xml.sax.*;
 import org.xml.sax.ext.LexicalHandler;
 import org.xml.sax.helpers.DefaultHandler;
@@ -41,6 +39,8 @@ import org.xml.sax.helpers.DefaultHandler;
  */
 public class XmlDocValidator {
 
+   static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
    private static final XmlDocValidator fInstance = new XmlDocValidator();
 
    private XmlDocValidator() {
@@ -59,53 +59,148 @@ public class XmlDocValidator {
    public void validate(File xmlFile) throws EInvalidXmlDocument {
       try {
          StringBuffer errorBuff = new StringBuffer();
-         InputSource input = new InputSource(new FileInputStream(xmlFile));
-         // Set systemID so parser can find the dtd with a relative URL in the source document.
-         input.setSystemId(getSystemURI(xmlFile));
-         SAXParserFactory spfact = SAXParserFactory.newInstance();
+         InputStream inStream = new FileInputStream(xmlFile);
+         XMLReader reader = XmlParserService.getInstance().getValidatingReader();
+
+         try {
+            InputSource input = new InputSource(inStream);
+            // Set systemID so parser can find the dtd with a relative URL in the source document.
+            input.setSystemId(getSystemURI(xmlFile));
+
+            //Instantiate inner-class error and lexical handler.
+            Handler handler = new Handler(xmlFile.toString(), errorBuff);
+            reader.setProperty(LEXICAL_HANDLER, handler);
+            reader.setContentHandler(handler);
+            reader.setErrorHandler(handler);
+            reader.parse(input);
+
+            if (!handler.containsDTD || handler.errorOrWarning) {
+               throw new EInvalidXmlDocument(xmlFile, errorBuff.toString());
+            }
+         } finally {
+            XmlParserService.getInstance().release(reader);
+            inStream.close();
+         }
+
+      } catch (EInvalidXmlDocument e) {
+         throw e;
+      } catch (Exception e) {
+         throw new EInvalidXmlDocument(xmlFile, e.getMessage());
+      }
+   }
 
-         spfact.setValidating(true);
-         spfact.setNamespaceAware(true);
+   /**
+    * Validates and parses a XML document in a single pass. The content events are
+    * recorded while the document is validated against its DTD and passed to the given
+    * handler only after the whole document turned out to be valid. Parsing stops at the
+    * first validation error, the handler never receives any content of an invalid
+    * document.
+    * @param xmlFile XML document
+    * @param contentHandler Handler receiving the content events
+    * @throws EInvalidXmlDocument Document is not valid
+    * @throws IOException Document can't be read
+    * @throws SAXException Content handler failed
+    */
+   public void parse(File xmlFile, DefaultHandler contentHandler)
+      throws EInvalidXmlDocument, IOException, SAXException {
+      parse(new FileInputStream(xmlFile), getSystemURI(xmlFile), xmlFile.toString(), contentHandler);
+   }
 
-         SAXParser parser = spfact.newSAXParser();
-         XMLReader reader = parser.getXMLReader();
+   /**
+    * Validates and parses a XML document in a single pass, e.g. an entry of an archive.
+    * @param inStream Content of the XML document, the stream will be closed
+    * @param systemId System identifier used to resolve the DTD with a relative URL
+    * @param documentName Name or location of the document used in error messages
+    * @param contentHandler Handler receiving the content events
+    * @throws EInvalidXmlDocument Document is not valid
+    * @throws IOException Document can't be read
+    * @throws SAXException Content handler failed
+    * @see #parse(File, DefaultHandler)
+    */
+   public void parse(InputStream inStream, String systemId, String documentName,
+      DefaultHandler contentHandler) throws EInvalidXmlDocument, IOException, SAXException {
+
+      final StringBuffer errorBuff = new StringBuffer();
+      // handlers may have side effects, the content is passed once it's known to be valid
+      final SaxEventBuffer events = new SaxEventBuffer();
+      final XMLReader reader;
 
-         //Instantiate inner-class error and lexical handler.
-         Handler handler = new Handler(xmlFile.toString(), errorBuff);
-         reader.setProperty("http://xml.org/sax/properties/lexical-handler", handler);
-         parser.parse(input, handler);
+      try {
+         reader = XmlParserService.getInstance().getValidatingReader();
+      } catch (SAXException e) {
+         inStream.close();
+         throw new EInvalidXmlDocument(documentName, e.getMessage());
+      }
 
-         if (!handler.containsDTD || handler.errorOrWarning) {
-            throw new EInvalidXmlDocument(xmlFile, errorBuff.toString());
+      try {
+         InputSource input = new InputSource(inStream);
+         // Set systemID so parser can find the dtd with a relative URL in the source document.
+         input.setSystemId(systemId);
+
+         // validation errors stop parsing immediately
+         Handler handler = new Handler(documentName, errorBuff, true);
+         reader.setProperty(LEXICAL_HANDLER, handler);
+         reader.setErrorHandler(handler);
+         reader.setContentHandler(events);
+
+         try {
+            reader.parse(input);
+         } catch (SAXException e) {
+            // distinguish invalid documents from content handler failures
+            if (handler.errorOrWarning) {
+               throw new EInvalidXmlDocument(documentName, errorBuff.toString());
+            }
+            throw e;
          }
 
-      } catch (Exception e) {
-         throw new EInvalidXmlDocument(xmlFile, e.getMessage());
+         if (!handler.containsDTD) {
+            throw new EInvalidXmlDocument(documentName, errorBuff.toString());
+         }
+
+      } finally {
+         XmlParserService.getInstance().release(reader);
+         inStream.close();
       }
+
+      // the reader is released, so the handler may parse further documents
+      events.replay(contentHandler, systemId);
    }
 
 	// Catch any errors or warnings, and verify presence of doctype statement.
 	class Handler extends DefaultHandler implements LexicalHandler {
 		boolean errorOrWarning;
 		boolean containsDTD;
+		boolean failFast;
 		String sourceFile;
 		StringBuffer errorBuff;
 
 		Handler(String sourceFile, StringBuffer errorBuff) {
+			this(sourceFile, errorBuff, false);
+		}
+
+		Handler(String sourceFile, StringBuffer errorBuff, boolean failFast) {
 			super();
 			this.sourceFile = sourceFile;
 			this.errorBuff = errorBuff;
+			this.failFast = failFast;
 			errorOrWarning = false;
 			containsDTD = false;
 		}
 
-		public void error(SAXParseException exc) {
+		public void error(SAXParseException exc) throws SAXException {
 			errorBuff.append(sourceFile + " Error: " + exc.getMessage() + "\n");
 			errorOrWarning = true;
+			if (failFast) throw exc;
 		}
-		public void warning(SAXParseException exc) {
+		public void warning(SAXParseException exc) throws SAXException {
 			errorBuff.append(sourceFile + " Warning:" + exc.getMessage() + "\n");
 			errorOrWarning = true;
+			if (failFast) throw exc;
+		}
+		public void fatalError(SAXParseException exc) throws SAXException {
+			errorBuff.append(sourceFile + " Fatal error: " + exc.getMessage() + "\n");
+			errorOrWarning = true;
+			throw exc;
 		}
 
 		// LexicalHandler methods; all no-op except startDTD().
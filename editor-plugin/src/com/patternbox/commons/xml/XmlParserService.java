@@ -0,0 +1,305 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+
+package com.patternbox.commons.xml;
+
+import java.io.*;
+import java.net.*;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.parsers.*;
+
+import org.xml.sax.*;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Shared XML infrastructure. DTDs are read only once and served afterwards from an
+ * in-memory entity catalog, and every thread keeps its own pool of configured validating
+ * and non-validating readers which are reused for subsequent documents. A reader is
+ * handed out to one caller at a time, so a document may be parsed while another one is
+ * still being parsed by the same thread, e.g. a manifest read from a handler.
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class XmlParserService {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final String DTD_EXTENSION = ".dtd";
+
+   private static final XmlParserService fInstance = new XmlParserService();
+
+   private static final DefaultHandler NULL_HANDLER = new DefaultHandler();
+
+   private final ConcurrentHashMap<String, byte[]> fEntityCatalog = new ConcurrentHashMap<String, byte[]>();
+
+   private final EntityResolver fEntityResolver = new CatalogEntityResolver();
+
+   private final ThreadLocal<ReaderPool> fValidatingReaders = new ReaderThreadLocal(true);
+
+   private final ThreadLocal<ReaderPool> fReaders = new ReaderThreadLocal(false);
+
+   // ------------------------------------------------------------------------- Constructors
+
+   private XmlParserService() {
+      super();
+   }
+
+   public static XmlParserService getInstance() {
+      return fInstance;
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   /**
+    * Reads the given DTD into the entity catalog, unless it is already known.
+    * @param dtdFile DTD file
+    * @throws IOException DTD file can't be read
+    */
+   public void preloadDTD(File dtdFile) throws IOException {
+      final String key = getCatalogKey(XmlDocValidator.getSystemURI(dtdFile));
+      if (!fEntityCatalog.containsKey(key)) {
+         fEntityCatalog.putIfAbsent(key, readFully(new FileInputStream(dtdFile)));
+      }  // if
+   }
+
+   /**
+    * @return Resolver serving DTDs from the in-memory entity catalog
+    */
+   public EntityResolver getEntityResolver() {
+      return fEntityResolver;
+   }
+
+   /**
+    * Checks out an idle validating reader of the calling thread, a new one is created if
+    * all readers are in use. The reader must not be passed to other threads and has to
+    * be given back by {@link #release(XMLReader)} after parsing. Handlers have to be set
+    * before each use.
+    * @return Validating, namespace aware XML reader
+    * @throws SAXException Parser can't be configured
+    */
+   public XMLReader getValidatingReader() throws SAXException {
+      return fValidatingReaders.get().checkOut();
+   }
+
+   /**
+    * Checks out an idle non-validating reader of the calling thread.
+    * @return Non-validating XML reader
+    * @throws SAXException Parser can't be configured
+    * @see #getValidatingReader()
+    */
+   public XMLReader getReader() throws SAXException {
+      return fReaders.get().checkOut();
+   }
+
+   /**
+    * Detaches all handlers of the caller from the given reader, so they aren't kept
+    * reachable by the thread's reader after parsing, and makes the reader available
+    * again.
+    * @param reader Reader obtained from this service
+    */
+   public void release(XMLReader reader) {
+      reader.setContentHandler(NULL_HANDLER);
+      reader.setErrorHandler(NULL_HANDLER);
+      reader.setEntityResolver(fEntityResolver);
+      try {
+         reader.setProperty(XmlDocValidator.LEXICAL_HANDLER, null);
+      } catch (SAXException e) {
+         // reader doesn't support lexical handlers
+      }  // try - catch
+      // readers released by another thread are dropped
+      if (!fValidatingReaders.get().checkIn(reader)) {
+         fReaders.get().checkIn(reader);
+      }  // if
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   /**
+    * Normalizes a system identifier, so different spellings of the same file URI share
+    * one catalog entry.
+    */
+   private static String getCatalogKey(String systemId) {
+      try {
+         final URI uri = new URI(systemId);
+         if ("file".equalsIgnoreCase(uri.getScheme())) {
+            return new File(uri).getAbsolutePath();
+         }  // if
+      } catch (URISyntaxException e) {
+         // use system identifier as it is
+      } catch (IllegalArgumentException e) {
+         // use system identifier as it is
+      }  // try - catch
+      return systemId;
+   }
+
+   private static byte[] readFully(InputStream inStream) throws IOException {
+      try {
+         final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+         final byte[] buffer = new byte[4096];
+         int count;
+         while ((count = inStream.read(buffer)) > 0) {
+            outStream.write(buffer, 0, count);
+         }  // while
+         return outStream.toByteArray();
+      } finally {
+         inStream.close();
+      }  // try - finally
+   }
+
+   /**
+    * Opens a system identifier without the URL cache. A cached jar connection would keep
+    * its archive open, which locks the archive on some platforms.
+    */
+   private static InputStream openStream(String systemId) throws IOException {
+      final URLConnection connection = new URL(systemId).openConnection();
+      connection.setUseCaches(false);
+      return connection.getInputStream();
+   }
+
+   /**
+    * Looks for a cached DTD with the same file name as the given system identifier.
+    * @return DTD content or <code>null</code> if none is known
+    */
+   private byte[] findByName(String systemId) {
+      final String name = systemId.substring(systemId.lastIndexOf('/') + 1);
+      for (Map.Entry<String, byte[]> entry : fEntityCatalog.entrySet()) {
+         final String key = entry.getKey().replace(File.separatorChar, '/');
+         if (key.substring(key.lastIndexOf('/') + 1).equals(name)) {
+            return entry.getValue();
+         }  // if
+      }  // for
+      return null;
+   }
+
+   // ------------------------------------------------------------------------- Inner Classes
+
+   /**
+    * Resolves DTDs from the entity catalog. Unknown DTDs are read once from their
+    * system identifier and added to the catalog, other entities are left to the parser.
+    * If the system identifier can't be read, a cached DTD with the same name is used.
+    */
+   private class CatalogEntityResolver implements EntityResolver {
+
+      public InputSource resolveEntity(String publicId, String systemId) throws SAXException, IOException {
+
+         if (systemId == null || !systemId.toLowerCase().endsWith(DTD_EXTENSION)) {
+            return null;
+         }  // if
+
+         final String key = getCatalogKey(systemId);
+         byte[] content = fEntityCatalog.get(key);
+         if (content == null) {
+            try {
+               content = readFully(openStream(systemId));
+            } catch (IOException e) {
+               // catalogs from other sources usually don't ship their own copy of the DTD
+               content = findByName(systemId);
+               if (content == null) {
+                  throw e;
+               }  // if
+            }  // try - catch
+            final byte[] known = fEntityCatalog.putIfAbsent(key, content);
+            if (known != null) {
+               content = known;
+            }  // if
+         }  // if
+
+         final InputSource input = new InputSource(new ByteArrayInputStream(content));
+         input.setPublicId(publicId);
+         input.setSystemId(systemId);
+         return input;
+      }
+   }
+
+   /**
+    * Readers of a single thread. Readers in use are never handed out again, nested
+    * parsing gets another reader. The pool grows up to the deepest nesting.
+    */
+   private class ReaderPool {
+
+      private final boolean fValidating;
+
+      private SAXParserFactory fFactory;
+
+      private final LinkedList<XMLReader> fIdle = new LinkedList<XMLReader>();
+
+      private final Map<XMLReader, Boolean> fInUse = new IdentityHashMap<XMLReader, Boolean>();
+
+      ReaderPool(boolean validating) {
+         fValidating = validating;
+      }
+
+      XMLReader checkOut() throws SAXException {
+         final XMLReader reader = fIdle.isEmpty() ? create() : fIdle.removeFirst();
+         fInUse.put(reader, Boolean.TRUE);
+         return reader;
+      }
+
+      boolean checkIn(XMLReader reader) {
+         if (fInUse.remove(reader) == null) return false;
+         fIdle.addFirst(reader);
+         return true;
+      }
+
+      private XMLReader create() throws SAXException {
+         try {
+            if (fFactory == null) {
+               final SAXParserFactory factory = SAXParserFactory.newInstance();
+               factory.setValidating(fValidating);
+               factory.setNamespaceAware(fValidating);
+               fFactory = factory;
+            }  // if
+            final XMLReader reader = fFactory.newSAXParser().getXMLReader();
+            reader.setEntityResolver(fEntityResolver);
+            return reader;
+         } catch (ParserConfigurationException e) {
+            throw new SAXException("XML parser can't be configured", e);
+         }  // try - catch
+      }
+   }
+
+   /**
+    * Creates one reader pool per thread. Each pool has its own factory, because
+    * factories aren't guaranteed to be thread-safe.
+    */
+   private class ReaderThreadLocal extends ThreadLocal<ReaderPool> {
+
+      private final boolean fValidating;
+
+      ReaderThreadLocal(boolean validating) {
+         fValidating = validating;
+      }
+
+      protected ReaderPool initialValue() {
+         return new ReaderPool(fValidating);
+      }
+   }
+}
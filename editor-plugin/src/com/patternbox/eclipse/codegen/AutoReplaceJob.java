@@ -0,0 +1,216 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.MultiRule;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.ide.IDE;
+
+import com.patternbox.eclipse.editor.DesignPatternPlugin;
+import com.patternbox.eclipse.model.MemberNode;
+import com.patternbox.eclipse.model.RoleNode;
+
+/**
+ * Background job replacing the placeholders of dependent members after new members
+ * were created. The members to change are looked up by the job, all affected units are
+ * changed on working copies within one workspace operation, locked by a single
+ * scheduling rule. Editors are only opened on request.
+ *
+ * @see MemberCodeGenerator#getAutomaticReplaceList()
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class AutoReplaceJob extends WorkspaceJob {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   /**
+    * Roles registered for automatic replacement, keyed by the code generator of the
+    * member they depend on
+    */
+   private final Map<MemberCodeGenerator, List<RoleNode>> fReplaceNodes =
+      new LinkedHashMap<MemberCodeGenerator, List<RoleNode>>();
+
+   private final List<IFile> fChangedFiles = new ArrayList<IFile>();
+
+   private boolean fOpenEditors;
+
+   // ------------------------------------------------------------------------- Constructors
+
+   /**
+    * Constructor. The replace nodes of the code generator roles are taken and cleared,
+    * so the design pattern instance may change while the job is waiting. Nothing is
+    * looked up here, the job may be created in the UI thread.
+    * @param codeGenerators Code generators of the new members, in creation order
+    */
+   public AutoReplaceJob(List<MemberCodeGenerator> codeGenerators) {
+
+      super("Replacing design pattern placeholders"); //$NON-NLS-1$
+
+      for (MemberCodeGenerator codeGenerator: codeGenerators) {
+         final RoleNode roleNode = codeGenerator.getRoleNode();
+         fReplaceNodes.put(codeGenerator, new ArrayList<RoleNode>(roleNode.getReplaceNodeSet()));
+         roleNode.clearReplaceNodes();
+      }  // for
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   private static IResource getResource(MemberNode member) {
+      final IType type = member.getMemberType();
+      return (type != null) ? ((IMember) type.getPrimaryElement()).getCompilationUnit().getResource() : null;
+   }
+
+   private void openEditors(final List<IFile> files) {
+      PlatformUI.getWorkbench().getDisplay().asyncExec(new Runnable() {
+         public void run() {
+            final IWorkbenchPage page = DesignPatternPlugin.getActivePage();
+            if (page == null) return;
+            for (IFile file: files) {
+               try {
+                  IDE.openEditor(page, file, false);
+               } catch (PartInitException e) {
+                  DesignPatternPlugin.log(e);
+               }  // try - catch
+            }  // for
+         }
+      });
+   }
+
+   /**
+    * Replaces the placeholders of all members, must be run with the combined rule of
+    * their resources.
+    */
+   private void replace(Map<MemberCodeGenerator, List<MemberNode>> replaceLists, MultiStatus status,
+      IProgressMonitor monitor) {
+
+      monitor.beginTask(getName(), replaceLists.size());
+      try {
+         for (Map.Entry<MemberCodeGenerator, List<MemberNode>> entry: replaceLists.entrySet()) {
+            if (monitor.isCanceled()) throw new OperationCanceledException();
+            try {
+               final List<MemberNode> changed = entry.getKey().replacePlaceholders(entry.getValue(),
+                  new SubProgressMonitor(monitor, 1));
+               for (MemberNode member: changed) {
+                  final IResource resource = getResource(member);
+                  if (resource instanceof IFile && !fChangedFiles.contains(resource)) {
+                     fChangedFiles.add((IFile) resource);
+                  }
+               }  // for
+            } catch (CoreException e) {
+               status.add(e.getStatus());
+            }  // try - catch
+         }  // for
+      } finally {
+         monitor.done();
+      }  // try - finally
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   /**
+    * @return <code>true</code> if any new member may have dependent members, whether
+    *   they contain placeholders is looked up by the job
+    */
+   public boolean hasWork() {
+      return !fReplaceNodes.isEmpty();
+   }
+
+   /**
+    * Open the changed units in editors when the job is done, default is <code>false</code>.
+    * @param openEditors Open editors
+    */
+   public void setOpenEditors(boolean openEditors) {
+      fOpenEditors = openEditors;
+   }
+
+   /**
+    * @see org.eclipse.core.resources.WorkspaceJob#runInWorkspace(org.eclipse.core.runtime.IProgressMonitor)
+    */
+   public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
+
+      final Map<MemberCodeGenerator, List<MemberNode>> replaceLists =
+         new LinkedHashMap<MemberCodeGenerator, List<MemberNode>>();
+      ISchedulingRule rule = null;
+
+      // members with placeholders of earlier sessions are taken from the placeholder index
+      for (Map.Entry<MemberCodeGenerator, List<RoleNode>> entry: fReplaceNodes.entrySet()) {
+         final List<MemberNode> replaceList = entry.getKey().getAutomaticReplaceList(entry.getValue());
+         if (replaceList.isEmpty()) continue;
+         replaceLists.put(entry.getKey(), replaceList);
+         for (MemberNode member: replaceList) {
+            final IResource resource = getResource(member);
+            if (resource != null) rule = MultiRule.combine(rule, resource);
+         }  // for
+      }  // for
+
+      if (replaceLists.isEmpty()) return Status.OK_STATUS;
+
+      final MultiStatus status = new MultiStatus(DesignPatternPlugin.getPluginId(), IStatus.OK,
+         "Placeholders of some members couldn't be replaced", null); //$NON-NLS-1$
+
+      try {
+         ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+            public void run(IProgressMonitor pm) {
+               replace(replaceLists, status, pm);
+            }
+         }, (rule != null) ? rule : ResourcesPlugin.getWorkspace().getRoot(), IWorkspace.AVOID_UPDATE, monitor);
+      } catch (OperationCanceledException e) {
+         return Status.CANCEL_STATUS;
+      }  // try - catch
+
+      if (fOpenEditors && !fChangedFiles.isEmpty()) {
+         openEditors(new ArrayList<IFile>(fChangedFiles));
+      }  // if
+
+      return status;
+   }
+
+}
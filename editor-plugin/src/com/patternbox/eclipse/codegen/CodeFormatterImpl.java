@@ -33,6 +33,7 @@ import org.eclipse.jdt.core.*;
 import org.eclipse.jdt.core.formatter.*;
 //import org.eclipse.jdt.core.formatter.DefaultCodeFormatterConstants;
 import org.eclipse.jdt.internal.compiler.parser.TerminalTokens;
+import org.eclipse.jface.text.IRegion;
 //import org.eclipse.jdt.internal.formatter.DefaultCodeFormatter;
 import org.eclipse.text.edits.ReplaceEdit;
 import org.eclipse.text.edits.TextEdit;
@@ -46,7 +47,23 @@ import org.eclipse.text.edits.TextEdit;
  */
 public class CodeFormatterImpl implements TerminalTokens {
 
+   /**
+    * JDT code formatters aren't thread-safe, so each thread gets its own one
+    */
+   private static final ThreadLocal<CodeFormatterImpl> sInstance = new ThreadLocal<CodeFormatterImpl>() {
+      protected CodeFormatterImpl initialValue() {
+         return new CodeFormatterImpl();
+      }
+   };
+
    private final CodeFormatter sCodeFormatter = ToolFactory.createCodeFormatter(null);
+
+   /**
+    * @return Code formatter of the calling thread
+    */
+   public static CodeFormatterImpl getInstance() {
+      return sInstance.get();
+   }
 	//private final Map options = JavaCore.getOptions();
 	
 	public String format(String string, int indentLevel, int[] positions, String lineSeparator) {
@@ -81,4 +98,16 @@ public class CodeFormatterImpl implements TerminalTokens {
 		}
 		return org.eclipse.jdt.internal.core.util.Util.editedString(string, textEdit);
 	}	
+
+	/**
+	 * Formats the given regions of a compilation unit only, the remaining source keeps
+	 * its formatting.
+	 * @param source Source of a compilation unit
+	 * @param regions Sorted, non-overlapping regions to format
+	 * @param lineSeparator Line delimiter
+	 * @return Edit of the formatted regions, <code>null</code> if the source can't be formatted
+	 */
+	public TextEdit formatRegions(String source, IRegion[] regions, String lineSeparator) {
+		return sCodeFormatter.format(CodeFormatter.K_COMPILATION_UNIT, source, regions, 0, lineSeparator);
+	}
 }
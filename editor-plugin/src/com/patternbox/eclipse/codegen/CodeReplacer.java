@@ -26,28 +26,29 @@ SUCH DAMAGE.
 
 package com.patternbox.eclipse.codegen;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.StringTokenizer;
+import java.util.Map;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IBuffer;
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IImportDeclaration;
 import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IType;
-import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
-import org.eclipse.jdt.ui.IWorkingCopyManager;
-import org.eclipse.jdt.ui.JavaUI;
-import org.eclipse.ui.IEditorInput;
-import org.eclipse.ui.IEditorPart;
-import org.eclipse.ui.IWorkbenchPage;
-import org.eclipse.ui.PartInitException;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Region;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
 
+import com.patternbox.commons.model.DocumentNode;
 import com.patternbox.eclipse.editor.DesignPatternPlugin;
 import com.patternbox.eclipse.model.DesignPatternInstance;
 import com.patternbox.eclipse.model.MemberNode;
@@ -63,13 +64,21 @@ public class CodeReplacer {
    
    //------------------------------------------------------------------------- Field Definitions
    
-   private static final CodeFormatterImpl sCodeFormatter = new CodeFormatterImpl();
    private static final String DELI = "$";
    
    private final MemberCodeGenerator fCodeGenerator;
    private final DesignPatternInstance fModel;
    private final RoleNode fRoleNode;
 
+   /** Role references of compiled patterns, resolved once per generated member */
+   private final Map<WildcardPattern, RoleNode[]> fResolvedRoles = new IdentityHashMap<WildcardPattern, RoleNode[]>();
+
+   /** Patterns of template strings not compiled along with their code template */
+   private final Map<String, WildcardPattern> fCompiledPatterns = new HashMap<String, WildcardPattern>();
+
+   /** Reused for all substitutions of a member */
+   private final StringBuffer fSubstitution = new StringBuffer(256);
+
    public static final String REPLACE_START = "/* AUTO-REPLACE";
    public static final String REPLACE_END = "AUTO-REPLACE */";
    
@@ -86,147 +95,189 @@ public class CodeReplacer {
    
    //------------------------------------------------------------------------- Private Methods
    
-   private MemberNode getMemberNode(String roleName, int index, String foreachType) {
-      
-      // get member node
-      if (foreachType != null && foreachType.equals(roleName)) {
-         return fModel.getMember(roleName, index);
+   private MemberNode getMemberNode(RoleNode roleNode, int index, String foreachType) {
+
+      // member lists are taken once while a type is generated
+      final ExpansionPlan plan = fCodeGenerator.getExpansionPlan();
+      if (plan != null) {
+         return plan.getMember(roleNode, index, foreachType);
       }
-      
-      return fModel.getMember(roleName, 0);
+
+      final DocumentNode[] children = roleNode.getChildren();
+      // use the iterated member for the for-each-role, otherwise the first one
+      final int memberIndex = (foreachType != null && foreachType.equals(roleNode.getName())) ? index : 0;
+
+      return (children.length > memberIndex) ? (MemberNode) children[memberIndex] : null;
+   }
+
+   /**
+    * Resolves the role references of a compiled pattern. Unknown roles are resolved
+    * to <code>null</code>.
+    */
+   private RoleNode[] getResolvedRoles(WildcardPattern pattern) {
+
+      RoleNode[] result = fResolvedRoles.get(pattern);
+
+      if (result == null) {
+         result = new RoleNode[pattern.size()];
+         for (int i = 0; i < result.length; i++) {
+            if (pattern.isRoleReference(i)) {
+               result[i] = fModel.getRole(pattern.getSegment(i));
+            }
+         }  // for
+         fResolvedRoles.put(pattern, result);
+      }  // if
+
+      return result;
+   }
+   
+   private WildcardPattern getPattern(String input) {
+
+      WildcardPattern pattern = fCompiledPatterns.get(input);
+      if (pattern == null) {
+         pattern = WildcardPattern.compile(input);
+         fCompiledPatterns.put(input, pattern);
+      }
+
+      return pattern;
+   }
+
+   /**
+    * @return <code>true</code>, if a member or the new type is available for every
+    *   role referenced by the pattern
+    */
+   private boolean isResolvable(WildcardPattern pattern) {
+
+      final RoleNode[] roles = getResolvedRoles(pattern);
+
+      for (int i = 0; i < roles.length; i++) {
+         if (pattern.isRoleReference(i) && !fRoleNode.getName().equals(pattern.getSegment(i))
+               && (roles[i] == null || getMemberNode(roles[i], 0, null) == null)) {
+            return false;
+         }  // if
+      }  // for
+
+      return true;
+   }
+
+   /**
+    * Extends the given regions to whole lines and merges regions sharing a line.
+    * @param source Source containing the regions
+    * @param regions Regions in ascending order
+    * @return Sorted, non-overlapping line regions
+    */
+   private static IRegion[] toLineRegions(String source, List<IRegion> regions) {
+
+      final List<IRegion> result = new ArrayList<IRegion>(regions.size());
+      int lastStart = -1, lastEnd = -1;
+
+      for (IRegion region: regions) {
+         final int start = source.lastIndexOf('\n', region.getOffset() - 1) + 1;
+         int end = source.indexOf('\n', region.getOffset() + region.getLength());
+         if (end < 0) end = source.length();
+         if (start <= lastEnd) {
+            // same or overlapping line, extend the previous region
+            lastEnd = Math.max(lastEnd, end);
+            result.set(result.size() - 1, new Region(lastStart, lastEnd - lastStart));
+         } else {
+            lastStart = start;
+            lastEnd = end;
+            result.add(new Region(start, end - start));
+         }  // if - else
+      }  // for
+
+      return result.toArray(new IRegion[result.size()]);
    }
    
    //------------------------------------------------------------------------- Package Methods
    
-	/* package */ void replacePlaceholders(MemberNode memberNode) {
-
-		int firstPos, startPos, endPos, handledPos;
-		IBuffer buffer;
-		String original, placeholder;
+	/**
+	 * Replaces the placeholders of a member without opening an editor. The shared
+	 * working copy of the unit is used, so an open editor shows the changes. They are
+	 * saved, unless the editor already had unsaved changes.
+	 * @param memberNode Member containing placeholders
+	 * @param monitor Progress monitor
+	 * @return <code>true</code> if placeholders were replaced
+	 * @throws CoreException Unit can't be changed
+	 */
+	/* package */ boolean replacePlaceholders(MemberNode memberNode, IProgressMonitor monitor)
+		throws CoreException {
 
 		final IType member = memberNode.getMemberType();
-      //final ICompilationUnit cu = JavaModelUtil.toOriginal(member.getCompilationUnit());
-      final ICompilationUnit origCU = ((IMember) member.getPrimaryElement()).getCompilationUnit(); // JavaModelUtil.toOriginal(member.getCompilationUnit());
-		final IWorkbenchPage activePage = DesignPatternPlugin.getActivePage();
-		final IProgressMonitor monitor = new NullProgressMonitor();
-		final StringBuffer resultBuffer = new StringBuffer();
-		final List<String> importList = new LinkedList<String>();
-      
-		final IImportsManager imports = new IImportsManager() {
+		if (member == null) return false;
 
-			public String addImport(String qualifiedTypeName) {
+		final ICompilationUnit workingCopy = ((IMember) member.getPrimaryElement()).getCompilationUnit();
 
-            // set dot position start value
-            int dotPos = qualifiedTypeName.length() - 1;
-            while (dotPos > 0 && qualifiedTypeName.charAt(dotPos) != '.') {
-               dotPos--;
-            } // while
-            
-            final String packageName = qualifiedTypeName.substring(0, dotPos);
-            
-            if (!member.getPackageFragment().getElementName().equals(packageName)) {
-               importList.add(qualifiedTypeName);
-            }  // if
-            
-				// return reduced type name => pure class name 
-				return qualifiedTypeName.substring(dotPos + 1);
-			}
+		monitor.beginTask("", 5); //$NON-NLS-1$
+		final boolean hadUnsavedChanges = workingCopy.hasUnsavedChanges();
+		workingCopy.becomeWorkingCopy(new SubProgressMonitor(monitor, 1));
 
-			public Set<String> getImports() {
-				// TODO Auto-generated method stub
-				return null;
-			}
+		try {
 
-		};
+			final IBuffer buffer = workingCopy.getBuffer();
 
-      IEditorPart editor = null;
-		try {
-			editor = JavaUI.openInEditor(origCU);
-		} catch (PartInitException e) {
-         DesignPatternPlugin.log(e);
-         return;
-		} catch (JavaModelException e) {
-         DesignPatternPlugin.log(e);
-         return;
-		}
-      
-      final IEditorInput input = editor.getEditorInput();
-      final IWorkingCopyManager manager = JavaUI.getWorkingCopyManager();
-              
-		if (activePage != null) {
-
-         try {
-				manager.connect(input);
-			} catch (CoreException e) {
-            DesignPatternPlugin.log(e);
-            return;
+			final ImportsManager imports = new ImportsManager(member.getPackageFragment().getElementName());
+			// types declared or imported by the unit keep their simple names
+			imports.reserve(member.getFullyQualifiedName('.'));
+			final IImportDeclaration[] existing = workingCopy.getImports();
+			for (int i = 0; i < existing.length; i++) {
+				if (!existing[i].isOnDemand() && !Flags.isStatic(existing[i].getFlags())) {
+					imports.reserve(existing[i].getElementName());
+				}
+			} // for
+
+			// replace all placeholders found in a single pass by targeted edits
+			final PlaceholderScanner scanner = new PlaceholderScanner(buffer.getContents());
+			final MultiTextEdit replaceEdit = new MultiTextEdit();
+			final List<TextEdit> replacements = new ArrayList<TextEdit>();
+
+			while (scanner.next()) {
+				final WildcardPattern pattern = getPattern(scanner.getPlaceholder());
+				// placeholders of roles without members keep waiting
+				if (!isResolvable(pattern)) continue;
+				final String replacement = replaceWildcards(pattern, 0, null, imports) + ' ';
+				final TextEdit edit = new ReplaceEdit(scanner.getOffset(), scanner.getLength(), replacement);
+				replaceEdit.addChild(edit);
+				replacements.add(edit);
+			} // while
+
+			if (replacements.isEmpty()) return false;
+
+			// import Java types along with the replacements
+			final TextEdit importEdit = MemberCodeGenerator.createImportEdit(workingCopy, imports.getImports(),
+				new SubProgressMonitor(monitor, 1));
+			if (importEdit != null) {
+				replaceEdit.addChild(importEdit);
 			}
-         
-			try {
 
-            final ICompilationUnit workingCopy = manager.getWorkingCopy(input);
-            
-				buffer = workingCopy.getBuffer();
-				original = buffer.getContents();
-				handledPos = 0;
-
-				while ((startPos = original.indexOf(REPLACE_START, handledPos)) > 0) {
-					// get position range
-					endPos = original.indexOf(REPLACE_END, handledPos);
-					firstPos = startPos - 1;
-					// go back to the previous word 
-					for (firstPos = startPos - 2; firstPos > 0; firstPos--) {
-						if (original.charAt(firstPos) == ' '
-							|| original.charAt(firstPos) == '('
-							|| original.charAt(firstPos) == '\t') {
-							break;
-						}
-					}
-
-					// append leading code fragment
-					resultBuffer.append(original.substring(handledPos, firstPos + 1));
-
-					// replace and append placeholder
-					placeholder = original.substring(startPos + REPLACE_START.length(), endPos).trim();
-					resultBuffer.append(replaceWildcards(placeholder, 0, null, imports));
-					resultBuffer.append(' ');
-
-					// compute position until code replacement is handled
-					handledPos = endPos + REPLACE_END.length();
-
-				} // while
-
-				// append trailing code fragment
-				resultBuffer.append(original.substring(handledPos, original.length()));
-
-            // format changed code
-		      final String formattedCode = sCodeFormatter.format(resultBuffer.toString(), 0, null, MemberCodeGenerator.EOL);
-		      
-            buffer.setContents(formattedCode);
-				buffer.save(monitor, false);
-				buffer.close();
-
-				// import Java type
-				try {
-					final Iterator<String> it = importList.iterator();
-					while (it.hasNext()) {
-                  workingCopy.createImport(it.next().toString(), null, monitor);
-					} // while
-               
-				} catch (JavaModelException e) {
-					DesignPatternPlugin.logException(e);
-				}
+			workingCopy.applyTextEdit(replaceEdit, new SubProgressMonitor(monitor, 1));
+
+			// format the changed lines only, the user's formatting stays elsewhere
+			final List<IRegion> touched = new ArrayList<IRegion>(replacements.size());
+			for (TextEdit edit: replacements) {
+				// regions are updated to the changed source
+				touched.add(edit.getRegion());
+			} // for
+			final String changed = buffer.getContents();
+			final TextEdit formatEdit = CodeFormatterImpl.getInstance().formatRegions(changed,
+				toLineRegions(changed, touched), MemberCodeGenerator.EOL);
+			if (formatEdit != null) {
+				workingCopy.applyTextEdit(formatEdit, null);
+			}
 
-            // trigger reconciliation        
-         	JavaModelUtil.reconcile(workingCopy);
+			// trigger reconciliation
+			JavaModelUtil.reconcile(workingCopy);
+			monitor.worked(1);
 
-			} catch (JavaModelException e) {
-				DesignPatternPlugin.log(e);
-         } finally {
-             manager.disconnect(input);
-			} // try - catch - finally
+			if (!hadUnsavedChanges) {
+				workingCopy.commitWorkingCopy(false, new SubProgressMonitor(monitor, 1));
+			}
+			return true;
 
-		} // if
+		} finally {
+			workingCopy.discardWorkingCopy();
+			monitor.done();
+		} // try - finally
 	}
 
    /**
@@ -259,7 +310,7 @@ public class CodeReplacer {
          }
          
          // get member node
-         final MemberNode memberNode = getMemberNode(roleName, index, foreachType);
+         final MemberNode memberNode = getMemberNode(roleNode, index, foreachType);
          
          if (memberNode != null) {
             return importMgr.addImport(memberNode.toString());
@@ -279,71 +330,72 @@ public class CodeReplacer {
    /**
     * Replaces all wildcards by its types
     * @param input Input string including wildcards
-    * @param isJavaType Is input string a pure Java type
     * @param index Role member index
     * @param foreachType Name of type for for-each-iteration   
     * @return Valid Java code fragment 
     */
    /* package */ String replaceWildcards(String input, int index, String foreachType, IImportsManager importsMgr) {
       
-      // tokenizer throws an exception if input is null
       if (input == null) return "";
       
-      // create string buffer as result 
-      StringBuffer result = new StringBuffer();
-      // create new tokenizer
-      final StringTokenizer tokenizer = new StringTokenizer(input, DELI, true);
-      String token;
-      // set flag start value
-      boolean inWildcard = false;
-      // iterate all tokens
-      while (tokenizer.hasMoreTokens()) {
+      return replaceWildcards(getPattern(input), index, foreachType, importsMgr);
+   }
+   
+   /**
+    * Replaces all wildcards of a compiled template string by its types
+    * @param pattern Compiled input string
+    * @param index Role member index
+    * @param foreachType Name of type for for-each-iteration   
+    * @return Valid Java code fragment 
+    */
+   /* package */ String replaceWildcards(WildcardPattern pattern, int index, String foreachType, IImportsManager importsMgr) {
+      
+      // pure literals don't need any substitution
+      if (!pattern.hasRoleReferences()) {
+         return pattern.isEmpty() ? "" : pattern.getSegment(0);
+      }
+      
+      final RoleNode[] roles = getResolvedRoles(pattern);
+      final StringBuffer result = fSubstitution;
+      result.setLength(0);
+      
+      for (int i = 0; i < roles.length; i++) {
          
-         // read next token
-         token = tokenizer.nextToken();
+         final String segment = pattern.getSegment(i);
          
-         // check whether token is equal to the delimiter
-         if (token.equals(DELI)) {
-            // set in wildcard flag
-            inWildcard = !inWildcard;
-            // read next token
+         if (!pattern.isRoleReference(i)) {
+            result.append(segment);
             continue;
          }
-         
-         if (inWildcard) {
             
-            // get member node
-            MemberNode node = getMemberNode(token, index, foreachType);
+         // get member node
+         final MemberNode node = (roles[i] != null) ? getMemberNode(roles[i], index, foreachType) : null;
             
-            // check node availability
-            if (node != null) {
-                
-               // strip package name   
-               result.append(importsMgr.addImport(node.toString()));
-                
-            } else if (fRoleNode.getName().equals(token)) {
-               
-               // use new type as deputy 
-               final String packName = fCodeGenerator.getCurrentPackage().getElementName();
-					final String fullName =
-						(packName.length() > 0)
-							? packName + '.' + fCodeGenerator.getMemberName()
-							: fCodeGenerator.getMemberName();
-               // strip package name   
-               result.append(importsMgr.addImport(fullName));
-               
-            } else {
-               // fall back
-               result.append(DELI);
-               result.append(token);
-               result.append(DELI);
-            }
+         // check node availability
+         if (node != null) {
+             
+            // strip package name   
+            result.append(importsMgr.addImport(node.toString()));
+             
+         } else if (fRoleNode.getName().equals(segment)) {
+            
+            // use new type as deputy 
+            final String packName = fCodeGenerator.getCurrentPackage().getElementName();
+            final String fullName =
+               (packName.length() > 0)
+                  ? packName + '.' + fCodeGenerator.getMemberName()
+                  : fCodeGenerator.getMemberName();
+            // strip package name   
+            result.append(importsMgr.addImport(fullName));
             
          } else {
-            result.append(token);
-         }
+            // fall back
+            result.append(DELI);
+            result.append(segment);
+            result.append(DELI);
+         }  // if - else
 
-      }  // while
+      }  // for
 
       return result.toString();
    }
@@ -0,0 +1,96 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.xml.sax.SAXException;
+
+import com.patternbox.commons.xml.EInvalidXmlDocument;
+import com.patternbox.commons.xml.XmlDocValidator;
+import com.patternbox.eclipse.model.CatalogEntry;
+
+/**
+ * Compiled, immutable form of a code template document. Compiled templates are
+ * shared by all member creations of a design pattern, so the XML document is only
+ * validated and parsed again after it has been changed.
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class CodeTemplate {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private final Map<String, RoleTemplate> fRoles;
+
+   // ------------------------------------------------------------------------- Constructors
+
+   /**
+    * Constructor
+    * @param roles Role templates, keyed by role name
+    */
+   /* package */ CodeTemplate(Map<String, RoleTemplate> roles) {
+      fRoles = Collections.unmodifiableMap(roles);
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   /**
+    * Validates, parses and compiles a code template document.
+    * @param templateEntry Code template document
+    * @return Compiled code template
+    * @throws EInvalidXmlDocument Code template is invalid
+    * @throws IOException Code template can't be read
+    * @throws SAXException Code template can't be parsed
+    */
+   public static CodeTemplate compile(CatalogEntry templateEntry)
+      throws EInvalidXmlDocument, IOException, SAXException {
+
+      final CodeTemplateCompiler compiler = new CodeTemplateCompiler();
+      XmlDocValidator.getInstance().parse(templateEntry.openStream(), templateEntry.getSystemId(),
+         templateEntry.getLocation(), compiler);
+      return compiler.createCodeTemplate();
+   }
+
+   /**
+    * @param roleName Role name
+    * @return Role template or <code>null</code>, if the template doesn't define the role
+    */
+   public RoleTemplate getRoleTemplate(String roleName) {
+      return fRoles.get(roleName);
+   }
+
+   /**
+    * @return Unmodifiable map of all role templates, keyed by role name
+    */
+   public Map<String, RoleTemplate> getRoleTemplates() {
+      return fRoles;
+   }
+
+}
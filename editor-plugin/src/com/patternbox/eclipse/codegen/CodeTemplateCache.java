@@ -0,0 +1,117 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.xml.sax.SAXException;
+
+import com.patternbox.commons.xml.EInvalidXmlDocument;
+import com.patternbox.eclipse.model.CatalogEntry;
+
+/**
+ * Cache of compiled code templates, keyed by template location. A cached template is
+ * compiled again as soon as the modification time or the size of its document changes.
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class CodeTemplateCache {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final CodeTemplateCache fInstance = new CodeTemplateCache();
+
+   private final ConcurrentHashMap<String, Entry> fTemplates = new ConcurrentHashMap<String, Entry>();
+
+   // ------------------------------------------------------------------------- Inner Classes
+
+   /**
+    * Compiled template together with the version of its document
+    */
+   private static class Entry {
+
+      private final long fStamp;
+      private final CodeTemplate fTemplate;
+
+      public Entry(long stamp, CodeTemplate template) {
+         fStamp = stamp;
+         fTemplate = template;
+      }
+   }
+
+   // ------------------------------------------------------------------------- Constructors
+
+   private CodeTemplateCache() {
+      super();
+   }
+
+   public static CodeTemplateCache getInstance() {
+      return fInstance;
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   private static long getStamp(CatalogEntry templateEntry) {
+      // the length catches changes within the timestamp resolution of the file system
+      return templateEntry.getLastModified() * 31 + templateEntry.getSize();
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   /**
+    * Returns the compiled form of a code template. The document is only validated and
+    * parsed, if it is unknown or has changed since it was compiled.
+    * @param templateEntry Code template document
+    * @return Compiled code template
+    * @throws EInvalidXmlDocument Code template is invalid
+    * @throws IOException Code template can't be read
+    * @throws SAXException Code template can't be parsed
+    */
+   public CodeTemplate getCodeTemplate(CatalogEntry templateEntry)
+      throws EInvalidXmlDocument, IOException, SAXException {
+
+      final long stamp = getStamp(templateEntry);
+      final Entry cached = fTemplates.get(templateEntry.getLocation());
+      if (cached != null && cached.fStamp == stamp) {
+         return cached.fTemplate;
+      }  // if
+
+      // concurrent compilations of the same version yield equal templates
+      final CodeTemplate template = CodeTemplate.compile(templateEntry);
+      fTemplates.put(templateEntry.getLocation(), new Entry(stamp, template));
+      return template;
+   }
+
+   /**
+    * Drops all compiled templates.
+    */
+   public void clear() {
+      fTemplates.clear();
+   }
+
+}
@@ -0,0 +1,293 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.Flags;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.patternbox.commons.xml.SaxAttributeReader;
+
+/**
+ * Compiles a code template document into role templates. All roles of the document
+ * are compiled in one pass, independent of the design pattern instance the template
+ * is applied to later on.
+ *
+ * @see CodeTemplate#compile(com.patternbox.eclipse.model.CatalogEntry)
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+/* package */ class CodeTemplateCompiler extends DefaultHandler {
+
+   // ------------------------------------------------------------------------- Field Definitons
+
+   private static final String ELEM_ROLE = "role";
+   private static final String ELEM_IMPORT = "import";
+   private static final String ELEM_SUPERCLASS = "superclass";
+   private static final String ELEM_INTERFACE = "interface";
+   private static final String ELEM_FIELD = "field";
+   private static final String ELEM_CONSTRUCTOR = "constructor";
+   private static final String ELEM_METHOD = "method";
+   private static final String ELEM_PARAMETER = "param";
+   private static final String ELEM_COMMENT = "comment";
+   private static final String ELEM_EXCEPTION = "exception";
+   private static final String ELEM_CODE = "code";
+   private static final String ELEM_REPLACE = "replace";
+   
+   private static final String ATTR_NAME = "name";
+   private static final String ATTR_MODIFIERS = "modifiers";
+   private static final String ATTR_TYPE = "type";
+   private static final String ATTR_INITIAL = "initial";
+   private static final String ATTR_RETURN = "return";
+   private static final String ATTR_FOREACH = "foreach";
+   private static final String ATTR_DEPENDENCE = "dependence";
+
+   private final Map<String, RoleTemplate> fRoles = new LinkedHashMap<String, RoleTemplate>();
+   private final StringBuffer fElementValue = new StringBuffer();
+
+   // state of the current role
+   private final List<String> fImports = new ArrayList<String>(); 
+   private final List<String> fInterfaces = new ArrayList<String>(); 
+   private final List<MemberTemplate> fMembers = new ArrayList<MemberTemplate>();
+   private final Set<String> fReplaceDependences = new LinkedHashSet<String>();
+   private String fRoleName;
+   private boolean fIsClass;
+   private int fRoleModifiers;
+   private String fSuperClass;
+   private String fCodeFrag;
+
+   // state of the current member
+   private List<MethodParam> fParamList;
+   private List<String> fExceptionList;
+   private int fModifiers;
+   private String fType;
+   private String fName;
+   private String fInitialValue;
+   private String fComment;
+   private String fParamType;
+   private String fParamName;
+   private String fForEachMember;
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   private static int convertModifiersAsInt(String modifiers) {
+      
+      if (modifiers == null) return 0;
+
+      // initialize result value
+      int result = 0;
+      
+      result += (modifiers.indexOf("public") >= 0) ? Flags.AccPublic : 0;
+      result += (modifiers.indexOf("private") >= 0) ? Flags.AccPrivate : 0;
+      result += (modifiers.indexOf("protected") >= 0) ? Flags.AccProtected : 0;
+      result += (modifiers.indexOf("static") >= 0) ? Flags.AccStatic : 0;
+      result += (modifiers.indexOf("final") >= 0) ? Flags.AccFinal : 0;
+      result += (modifiers.indexOf("synchronized") >= 0) ? Flags.AccSynchronized : 0;
+      result += (modifiers.indexOf("volatile") >= 0) ? Flags.AccVolatile : 0;
+      result += (modifiers.indexOf("transient") >= 0) ? Flags.AccTransient : 0;
+      result += (modifiers.indexOf("native") >= 0) ? Flags.AccNative : 0;
+      result += (modifiers.indexOf("interface") >= 0) ? Flags.AccInterface : 0;
+      result += (modifiers.indexOf("abstract") >= 0) ? Flags.AccAbstract : 0;
+      
+      return result;
+      
+   }
+
+   private static String[] toArray(List<String> values) {
+      return values.toArray(new String[values.size()]);
+   }
+
+   // ------------------------------------------------------------------------- Package Methods
+
+   /**
+    * @return Compiled code template of the parsed document
+    */
+   /* package */ CodeTemplate createCodeTemplate() {
+      return new CodeTemplate(new LinkedHashMap<String, RoleTemplate>(fRoles));
+   }
+
+   // ------------------------------------------------------------------------- XML Parser Handler Methods
+
+   /**
+    * @see org.xml.sax.ContentHandler#startDocument()
+    */
+   public void startDocument() throws SAXException {
+      fRoles.clear();
+      fRoleName = null;
+   }
+
+   /**
+    * @see org.xml.sax.ContentHandler#startElement(java.lang.String, java.lang.String, java.lang.String, org.xml.sax.Attributes)
+    */
+   public void startElement(String namespaceURI, String localName, String qName, Attributes atts)
+      throws SAXException {
+	   
+      // clear old element value
+      if (!qName.equals(ELEM_REPLACE)) fElementValue.setLength(0);
+
+      if (qName.equals(ELEM_ROLE)) {
+         
+         fRoleName = SaxAttributeReader.getString(atts, ATTR_NAME, null, true);
+         final String type = SaxAttributeReader.getString(atts, ATTR_TYPE, null, true);
+         fIsClass = type.equals("class");
+         fRoleModifiers = convertModifiersAsInt(SaxAttributeReader.getString(atts, ATTR_MODIFIERS, null, false));
+         fSuperClass = null;
+         fCodeFrag = null;
+         fImports.clear();
+         fInterfaces.clear();
+         fMembers.clear();
+         fReplaceDependences.clear();
+
+      }
+
+      // elements outside of a role are not compiled
+      if (fRoleName == null) return;
+
+      if (qName.equals(ELEM_IMPORT)) {
+         
+         fImports.add(SaxAttributeReader.getString(atts, ATTR_TYPE, null, true));
+         
+      } else if (qName.equals(ELEM_SUPERCLASS)) {
+         
+         fSuperClass = SaxAttributeReader.getString(atts, ATTR_TYPE, null, true);
+         
+      } else if (qName.equals(ELEM_INTERFACE)) {
+         
+         fInterfaces.add(SaxAttributeReader.getString(atts, ATTR_TYPE, null, true));
+         
+      } else if (qName.equals(ELEM_FIELD)) {
+         
+         // clear old comment
+         fComment = null;
+
+         // read field attributes
+         fModifiers = convertModifiersAsInt(SaxAttributeReader.getString(atts, ATTR_MODIFIERS, null, false));
+         fType = SaxAttributeReader.getString(atts, ATTR_TYPE, null, true);
+         fName = SaxAttributeReader.getString(atts, ATTR_NAME, null, true);
+         fInitialValue = SaxAttributeReader.getString(atts, ATTR_INITIAL, null, false);
+         fForEachMember = SaxAttributeReader.getString(atts, ATTR_FOREACH, null, false); 
+         
+		} else if (qName.equals(ELEM_METHOD) || qName.equals(ELEM_CONSTRUCTOR)) {
+
+         // clear old comment, parameters and exceptions
+         fComment = null;
+         fParamList = new ArrayList<MethodParam>();
+         fExceptionList = new ArrayList<String>();
+
+         // read method attributes, constructors are named after the generated member
+         final boolean isCons = qName.equals(ELEM_CONSTRUCTOR);
+         fModifiers = convertModifiersAsInt(SaxAttributeReader.getString(atts, ATTR_MODIFIERS, null, false));
+         fType = SaxAttributeReader.getString(atts, ATTR_RETURN, null, !isCons);
+         fName = SaxAttributeReader.getString(atts, ATTR_NAME, null, !isCons);
+         fInitialValue = null;
+         fForEachMember = SaxAttributeReader.getString(atts, ATTR_FOREACH, null, false); 
+
+      } else if (qName.equals(ELEM_PARAMETER)) {
+            
+         fParamType = SaxAttributeReader.getString(atts, ATTR_TYPE, null, true);
+         fParamName = SaxAttributeReader.getString(atts, ATTR_NAME, null, true);
+            
+      } else if (qName.equals(ELEM_EXCEPTION)) {
+            
+         fExceptionList.add(SaxAttributeReader.getString(atts, ATTR_TYPE, null, true));
+            
+      } else if (qName.equals(ELEM_REPLACE)) {
+         
+         fElementValue.append(SaxAttributeReader.getString(atts, ATTR_INITIAL, null, true));
+         fElementValue.append(CodeReplacer.REPLACE_START);
+         fElementValue.append(' ');
+         
+         // resolved against the design pattern instance on member creation
+         fReplaceDependences.add(SaxAttributeReader.getString(atts, ATTR_DEPENDENCE, null, true));
+         
+		}
+      
+	}
+
+   /**
+    * @see org.xml.sax.ContentHandler#endElement(java.lang.String, java.lang.String, java.lang.String)
+    */
+   public void endElement(String namespaceURI, String localName, String qName) throws SAXException {
+      
+      if (fRoleName == null) return;
+
+      if (qName.equals(ELEM_ROLE)) {
+
+         fRoles.put(fRoleName, new RoleTemplate(fRoleName, fIsClass, fRoleModifiers, toArray(fImports),
+            fSuperClass, toArray(fInterfaces), fMembers.toArray(new MemberTemplate[fMembers.size()]),
+            toArray(new ArrayList<String>(fReplaceDependences))));
+         fRoleName = null;
+
+      } else if (qName.equals(ELEM_FIELD)) {
+
+         fMembers.add(new MemberTemplate(MemberTemplate.FIELD, fModifiers, fType, fName, fInitialValue,
+            fComment, fForEachMember, new ArrayList<MethodParam>(), new ArrayList<String>(), null));
+         
+      } else if (qName.equals(ELEM_PARAMETER)) {
+            
+         fParamList.add(new MethodParam(fParamType, fParamName, null));
+            
+      } else if (qName.equals(ELEM_METHOD) || qName.equals(ELEM_CONSTRUCTOR)) {
+            
+         final int kind = qName.equals(ELEM_CONSTRUCTOR) ? MemberTemplate.CONSTRUCTOR : MemberTemplate.METHOD;
+         // a method without code element reuses the previous code fragment of the role
+         fMembers.add(new MemberTemplate(kind, fModifiers, fType, fName, null, fComment,
+            fForEachMember, fParamList, fExceptionList, fCodeFrag));
+         
+      } else if (qName.equals(ELEM_COMMENT)) {
+            
+         fComment = fElementValue.toString();
+            
+      } else if (qName.equals(ELEM_CODE)) {
+            
+         fCodeFrag = fElementValue.toString();
+            
+      } else if (qName.equals(ELEM_REPLACE)) {
+            
+         fElementValue.append(' ');
+         fElementValue.append(CodeReplacer.REPLACE_END);
+           
+      }
+   }
+
+   /**
+    * @see org.xml.sax.ContentHandler#characters(char[], int, int)
+    */
+   public void characters(char[] ch, int start, int length) throws SAXException {
+      // append this chunck to current element value
+      fElementValue.append(ch, start, length);
+   }
+
+}
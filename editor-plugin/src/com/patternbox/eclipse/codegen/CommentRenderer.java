@@ -0,0 +1,244 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.patternbox.eclipse.model.DesignPatternModel;
+import com.patternbox.eclipse.model.RolePropertiesContainer;
+
+/**
+ * Renders the Javadoc blocks of generated types and members. Member comments are
+ * rendered once when a code template is compiled, type comments once per role of a
+ * loaded manifest, so emitting a member only appends finished blocks.
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+/* package */ final class CommentRenderer {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final String EOL = MemberCodeGenerator.EOL;
+
+   private static final String[] NO_LINES = new String[0];
+
+   /** Type comments by role name, dropped together with outdated manifest models */
+   private static final Map<DesignPatternModel, Map<String, String>> sTypeComments =
+      new WeakHashMap<DesignPatternModel, Map<String, String>>();
+
+   // ------------------------------------------------------------------------- Constructors
+
+   private CommentRenderer() {
+      super();
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   private static String renderTypeComment(String roleName, List<String> commentItems, String author,
+         String user) {
+
+      final StringBuffer result = new StringBuffer();
+
+      // 1. line
+      result.append("/**"); //$NON-NLS-1$
+      result.append(EOL);
+
+      // participant name
+      result.append(" * PatternBox: \""); //$NON-NLS-1$
+      result.append(roleName);
+      result.append("\" implementation."); //$NON-NLS-1$
+      result.append(EOL);
+
+      // append comment item list
+      if (!commentItems.isEmpty()) {
+         result.append(" * <ul>"); //$NON-NLS-1$
+         result.append(EOL);
+
+         for (int i = 0; i < commentItems.size(); i++) {
+            result.append(" *   <li>"); //$NON-NLS-1$
+            result.append(commentItems.get(i));
+            result.append("</li>"); //$NON-NLS-1$
+            result.append(EOL);
+         } // for
+
+         result.append(" * </ul>"); //$NON-NLS-1$
+         result.append(EOL);
+         result.append(" * "); //$NON-NLS-1$
+         result.append(EOL);
+      } // if
+
+      // author line
+      result.append(" * "); //$NON-NLS-1$
+      result.append(author);
+      result.append(EOL);
+
+      // second author line
+      if (user != null && !user.trim().equals("")) { //$NON-NLS-1$
+         result.append(" * @author "); //$NON-NLS-1$
+         result.append(user);
+         result.append(EOL);
+      }
+
+      // last line
+      result.append(" */"); //$NON-NLS-1$
+
+      return result.toString();
+   }
+
+   // ------------------------------------------------------------------------- Package Methods
+
+   /**
+    * Converts a comment into trimmed lines. Empty lines are dropped at the beginning
+    * and the end, lines consisting of line breaks only are dropped everywhere.
+    * @param comment Comment read from a template file, can be <code>null</code>
+    * @return Comment splitted into lines
+    */
+   /* package */ static String[] splitLines(String comment) {
+
+      if (comment == null) return NO_LINES;
+
+      final List<String> lines = new ArrayList<String>();
+      final int length = comment.length();
+      int start = 0;
+
+      while (start < length) {
+         int end = comment.indexOf('\n', start);
+         if (end < 0) end = length;
+         // like a tokenizer, successive line breaks don't produce lines
+         if (end > start) {
+            final String line = comment.substring(start, end).trim();
+            // skip leading empty lines
+            if (line.length() > 0 || !lines.isEmpty()) lines.add(line);
+         }
+         start = end + 1;
+      }  // while
+
+      // remove trailing empty lines
+      int size = lines.size();
+      while (size > 0 && lines.get(size - 1).length() == 0) {
+         lines.remove(--size);
+      }  // while
+
+      return lines.toArray(new String[size]);
+   }
+
+   /**
+    * Renders the comment block of a field. The first line follows the opening of the
+    * comment directly.
+    * @param comment Field comment, can be <code>null</code>
+    * @return Comment block including the line delimiter, empty if there is no comment
+    */
+   /* package */ static String renderFieldComment(String comment) {
+
+      if (comment == null || comment.length() == 0) return ""; //$NON-NLS-1$
+
+      final StringBuffer buf = new StringBuffer(comment.length() + 16);
+      buf.append("/** "); //$NON-NLS-1$
+      // get comment spitted into lines
+      final String[] lines = splitLines(comment);
+      // write comment to code buffer
+      if (lines.length > 0)
+         buf.append(lines[0]);
+      for (int i = 1; i < lines.length; i++) {
+         buf.append(" * "); //$NON-NLS-1$
+         buf.append(lines[i]);
+         buf.append(EOL);
+      }
+      // close comment
+      buf.append(" */"); //$NON-NLS-1$
+      buf.append(EOL);
+      return buf.toString();
+   }
+
+   /**
+    * Renders the comment block of a method or constructor.
+    * @param comment Method comment, can be <code>null</code>
+    * @return Comment block including the line delimiter, empty if there is no comment
+    */
+   /* package */ static String renderMethodComment(String comment) {
+
+      if (comment == null || comment.length() == 0) return ""; //$NON-NLS-1$
+
+      final StringBuffer buf = new StringBuffer(comment.length() + 16);
+      buf.append("/** "); //$NON-NLS-1$
+      buf.append(EOL);
+      // get comment spitted into lines and store them
+      final String[] lines = splitLines(comment);
+      for (int i = 0; i < lines.length; i++) {
+         buf.append(" * "); //$NON-NLS-1$
+         buf.append(lines[i]);
+         buf.append(EOL);
+      }
+      // close comment
+      buf.append(" */"); //$NON-NLS-1$
+      buf.append(EOL);
+      return buf.toString();
+   }
+
+   /**
+    * Returns the type comment of a role. The comments of all roles of a design pattern
+    * are rendered together on the first request after its manifest was loaded.
+    * @param model Design pattern model, can be <code>null</code>
+    * @param roleName Role of the generated type
+    * @param commentItems Comment items of the role, used if the model is unknown
+    * @return Type comment without trailing line delimiter
+    */
+   /* package */ static String getTypeComment(DesignPatternModel model, String roleName,
+         List<String> commentItems) {
+
+      final String user = System.getProperty("user.name"); //$NON-NLS-1$
+
+      if (model == null) return renderTypeComment(roleName, commentItems, null, user);
+
+      Map<String, String> comments;
+      synchronized (sTypeComments) {
+         comments = sTypeComments.get(model);
+      }  // synchronized
+
+      if (comments == null) {
+         comments = new HashMap<String, String>();
+         for (final Iterator<String> it = model.getRoles().iterator(); it.hasNext();) {
+            final RolePropertiesContainer props = model.getRoleProperties(it.next());
+            comments.put(props.getName(), renderTypeComment(props.getName(),
+               props.getCommentItemList(), model.getAuthor(), user));
+         }  // for
+         // concurrent renderings are equal, any of them may win
+         synchronized (sTypeComments) {
+            sTypeComments.put(model, comments);
+         }  // synchronized
+      }  // if
+
+      final String result = comments.get(roleName);
+      return (result != null) ? result
+         : renderTypeComment(roleName, commentItems, model.getAuthor(), user);
+   }
+}
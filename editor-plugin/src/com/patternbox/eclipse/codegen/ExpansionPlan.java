@@ -0,0 +1,152 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.patternbox.commons.model.DocumentNode;
+import com.patternbox.eclipse.editor.DesignPatternPlugin;
+import com.patternbox.eclipse.model.DesignPatternInstance;
+import com.patternbox.eclipse.model.MemberNode;
+import com.patternbox.eclipse.model.RoleNode;
+
+/**
+ * Member lists of the roles a single member generation refers to. The foreach roles
+ * of a role template are resolved when the plan is created, every other role on first
+ * use. Members don't change while a type is generated, so each member list is taken
+ * only once instead of for each iteration and wildcard.
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+/* package */ final class ExpansionPlan {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final MemberNode[] NO_MEMBERS = new MemberNode[0];
+
+   private final DesignPatternInstance fModel;
+
+   private final Map<RoleNode, MemberNode[]> fMembers = new HashMap<RoleNode, MemberNode[]>();
+
+   private final Map<String, Integer> fIterationCounts = new HashMap<String, Integer>();
+
+   // ------------------------------------------------------------------------- Constructors
+
+   /**
+    * Constructor
+    * @param model Design pattern instance
+    * @param roleTemplate Role template to generate, can be <code>null</code>
+    */
+   /* package */ ExpansionPlan(DesignPatternInstance model, RoleTemplate roleTemplate) {
+
+      fModel = model;
+
+      if (roleTemplate == null) return;
+
+      final MemberTemplate[] members = roleTemplate.getMembers();
+      for (int i = 0; i < members.length; i++) {
+         final String foreach = members[i].getForEach();
+         if (foreach != null && foreach.length() > 0 && !fIterationCounts.containsKey(foreach)) {
+            fIterationCounts.put(foreach, Integer.valueOf(computeIterationCount(foreach)));
+         }
+      }  // for
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   private int computeIterationCount(String foreach) {
+
+      final RoleNode roleNode = fModel.getRole(foreach);
+
+      if (roleNode == null) {
+         DesignPatternPlugin.logErrorMessage("Unknown foreach role '" + foreach + "'"); //$NON-NLS-1$ //$NON-NLS-2$
+         return 1;
+      }
+
+      return Math.max(1, getMembers(roleNode).length);
+   }
+
+   // ------------------------------------------------------------------------- Package Methods
+
+   /**
+    * Returns the members of a role, taken once per plan.
+    * @param roleNode Role node
+    * @return Member nodes of the role
+    */
+   /* package */ MemberNode[] getMembers(RoleNode roleNode) {
+
+      MemberNode[] result = fMembers.get(roleNode);
+
+      if (result == null) {
+         final DocumentNode[] children = roleNode.getChildren();
+         result = (children.length == 0) ? NO_MEMBERS : new MemberNode[children.length];
+         for (int i = 0; i < children.length; i++) {
+            result[i] = (MemberNode) children[i];
+         }  // for
+         fMembers.put(roleNode, result);
+      }  // if
+
+      return result;
+   }
+
+   /**
+    * Returns the number of times a template member is emitted, i.e. the member count
+    * of its foreach role, but at least one.
+    * @param foreach Foreach role name, can be <code>null</code>
+    * @return Number of iterations
+    */
+   /* package */ int getIterationCount(String foreach) {
+
+      if (foreach == null || foreach.length() == 0) return 1;
+
+      Integer result = fIterationCounts.get(foreach);
+      if (result == null) {
+         result = Integer.valueOf(computeIterationCount(foreach));
+         fIterationCounts.put(foreach, result);
+      }
+      
+      return result.intValue();
+   }
+
+   /**
+    * Returns the member a role reference stands for in the given iteration.
+    * @param roleNode Referenced role
+    * @param index Iteration index
+    * @param foreachType Name of the iterated role, can be <code>null</code>
+    * @return Member node or <code>null</code>, if the role has no such member
+    */
+   /* package */ MemberNode getMember(RoleNode roleNode, int index, String foreachType) {
+
+      final MemberNode[] members = getMembers(roleNode);
+      // use the iterated member for the foreach role, otherwise the first one
+      final int memberIndex = (foreachType != null && foreachType.equals(roleNode.getName())) ? index : 0;
+
+      return (members.length > memberIndex) ? members[memberIndex] : null;
+   }
+
+}
@@ -0,0 +1,99 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import com.patternbox.eclipse.model.DesignPatternInstance;
+import com.patternbox.eclipse.model.RoleNode;
+
+/**
+ * State of a single role member creation. A context is created for each member and
+ * must not be shared between threads, the {@link RoleMemberFactory} itself is
+ * stateless.
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class GenerationContext {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private final DesignPatternInstance fModel;
+   private final RoleNode fRoleNode;
+   private final String fMemberName;
+   private final IProgressMonitor fMonitor;
+   private final MemberCodeGenerator fCodeGenerator;
+
+   // ------------------------------------------------------------------------- Constructors
+
+   /**
+    * Constructor
+    * @param model Design pattern instance
+    * @param roleNode Participant role
+    * @param memberName Name of the participant instance
+    * @param packFragRoot Location of the new java file
+    * @param packFrag Package of the new java file
+    * @param monitor Progress monitor, can be <code>null</code>
+    */
+   public GenerationContext(DesignPatternInstance model, RoleNode roleNode, String memberName,
+         IPackageFragmentRoot packFragRoot, IPackageFragment packFrag, IProgressMonitor monitor) {
+      fModel = model;
+      fRoleNode = roleNode;
+      fMemberName = memberName;
+      fMonitor = (monitor != null) ? monitor : new NullProgressMonitor();
+      fCodeGenerator = new MemberCodeGenerator(model, roleNode, memberName, packFragRoot, packFrag);
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   public DesignPatternInstance getModel() {
+      return fModel;
+   }
+
+   public RoleNode getRoleNode() {
+      return fRoleNode;
+   }
+
+   public String getMemberName() {
+      return fMemberName;
+   }
+
+   public IProgressMonitor getMonitor() {
+      return fMonitor;
+   }
+
+   /**
+    * @return Code generator of this member creation
+    */
+   public MemberCodeGenerator getCodeGenerator() {
+      return fCodeGenerator;
+   }
+
+}
@@ -0,0 +1,169 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+
+/**
+ * Result of a headless generation run: one entry per design pattern instance file
+ * with the number of generated members and the time it took.
+ *
+ * @see PatternInstanceGenerator
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class GenerationReport {
+
+   // ------------------------------------------------------------------------- Inner Classes
+
+   /**
+    * Generation result of a single design pattern instance file
+    */
+   public static class Entry {
+
+      private final IPath fPath;
+      private final int fGenerated;
+      private final int fSkipped;
+      private final long fNanos;
+      private final IStatus fStatus;
+
+      /**
+       * Constructor
+       * @param path Workspace path of the instance file
+       * @param generated Number of generated members
+       * @param skipped Number of members without a Java source type and of roles
+       *   left without members
+       * @param nanos Elapsed time in nanoseconds
+       * @param status Generation status
+       */
+      public Entry(IPath path, int generated, int skipped, long nanos, IStatus status) {
+         fPath = path;
+         fGenerated = generated;
+         fSkipped = skipped;
+         fNanos = nanos;
+         fStatus = status;
+      }
+
+      public IPath getPath() {
+         return fPath;
+      }
+
+      public int getGenerated() {
+         return fGenerated;
+      }
+
+      public int getSkipped() {
+         return fSkipped;
+      }
+
+      public long getNanos() {
+         return fNanos;
+      }
+
+      public IStatus getStatus() {
+         return fStatus;
+      }
+   }
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private final List<Entry> fEntries = new ArrayList<Entry>();
+
+   private long fElapsedNanos;
+
+   // ------------------------------------------------------------------------- Package Methods
+
+   /* package */ synchronized void add(Entry entry) {
+      fEntries.add(entry);
+   }
+
+   /* package */ void setElapsedNanos(long nanos) {
+      fElapsedNanos = nanos;
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   /**
+    * @return Entries in completion order
+    */
+   public synchronized List<Entry> getEntries() {
+      return Collections.unmodifiableList(new ArrayList<Entry>(fEntries));
+   }
+
+   /**
+    * @return Wall clock time of the whole run in nanoseconds
+    */
+   public long getElapsedNanos() {
+      return fElapsedNanos;
+   }
+
+   /**
+    * @return <code>true</code>, if all instance files have been generated without errors
+    */
+   public synchronized boolean isOK() {
+      for (Entry entry: fEntries) {
+         if (entry.getStatus().getSeverity() == IStatus.ERROR) return false;
+      }  // for
+      return true;
+   }
+
+   /**
+    * Writes the report as tab separated lines: path, generated and skipped members,
+    * milliseconds and status, followed by a summary line.
+    * @param writer Target writer
+    */
+   public void write(PrintWriter writer) {
+
+      int generated = 0;
+      long nanos = 0;
+      final List<Entry> entries = getEntries();
+
+      for (Entry entry: entries) {
+         writer.print(entry.getPath());
+         writer.print('\t');
+         writer.print(entry.getGenerated());
+         writer.print('\t');
+         writer.print(entry.getSkipped());
+         writer.print('\t');
+         writer.print(entry.getNanos() / 1000000L);
+         writer.print(" ms\t"); //$NON-NLS-1$
+         writer.println(entry.getStatus().isOK() ? "OK" : entry.getStatus().getMessage()); //$NON-NLS-1$
+         generated += entry.getGenerated();
+         nanos += entry.getNanos();
+      }  // for
+
+      writer.println(entries.size() + " instances, " + generated + " members, " //$NON-NLS-1$ //$NON-NLS-2$
+         + (nanos / 1000000L) + " ms generation, " + (fElapsedNanos / 1000000L) + " ms elapsed"); //$NON-NLS-1$ //$NON-NLS-2$
+      writer.flush();
+   }
+
+}
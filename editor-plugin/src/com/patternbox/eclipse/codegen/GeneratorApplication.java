@@ -0,0 +1,147 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+import java.io.FileWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+
+/**
+ * Headless application generating the role members of design pattern instances.
+ * Arguments are workspace paths of <code>.xdp</code> files, projects or folders, the
+ * whole workspace is processed if none is given. Options:
+ * <ul>
+ *   <li><code>-threads &lt;n&gt;</code> number of instances generated in parallel</li>
+ *   <li><code>-report &lt;file&gt;</code> writes the timing report to a file instead of
+ *     the standard output</li>
+ *   <li><code>-package &lt;name&gt;</code> generates members for roles without members
+ *     into this package of the instance file's project, otherwise these roles are
+ *     reported as skipped</li>
+ * </ul>
+ * 
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class GeneratorApplication implements IApplication {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final String ARG_THREADS = "-threads"; //$NON-NLS-1$
+
+   private static final String ARG_REPORT = "-report"; //$NON-NLS-1$
+
+   private static final String ARG_PACKAGE = "-package"; //$NON-NLS-1$
+
+   private static final Integer EXIT_ERROR = Integer.valueOf(1);
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   /**
+    * Resolves workspace paths to design pattern instance files.
+    */
+   private static IFile[] findInstanceFiles(List<String> paths) throws Exception {
+
+      final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+
+      if (paths.isEmpty()) return PatternInstanceGenerator.findInstanceFiles(root);
+
+      final List<IFile> result = new ArrayList<IFile>();
+      for (String path: paths) {
+         final IResource resource = root.findMember(new Path(path));
+         if (resource instanceof IFile) {
+            result.add((IFile) resource);
+         } else if (resource instanceof IContainer) {
+            result.addAll(Arrays.asList(PatternInstanceGenerator.findInstanceFiles((IContainer) resource)));
+         } else {
+            System.err.println("Resource not found: " + path); //$NON-NLS-1$
+         }  // if - else
+      }  // for
+
+      return result.toArray(new IFile[result.size()]);
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   /**
+    * @see org.eclipse.equinox.app.IApplication#start(org.eclipse.equinox.app.IApplicationContext)
+    */
+   public Object start(IApplicationContext context) throws Exception {
+
+      final String[] args = (String[]) context.getArguments().get(IApplicationContext.APPLICATION_ARGS);
+      final List<String> paths = new ArrayList<String>();
+      int threadCount = Runtime.getRuntime().availableProcessors();
+      String reportFile = null;
+      String packageName = null;
+
+      for (int i = 0; args != null && i < args.length; i++) {
+         if (ARG_THREADS.equals(args[i]) && i + 1 < args.length) {
+            threadCount = Integer.parseInt(args[++i]);
+         } else if (ARG_REPORT.equals(args[i]) && i + 1 < args.length) {
+            reportFile = args[++i];
+         } else if (ARG_PACKAGE.equals(args[i]) && i + 1 < args.length) {
+            packageName = args[++i];
+         } else {
+            paths.add(args[i]);
+         }  // if - else
+      }  // for
+
+      final GenerationReport report = new PatternInstanceGenerator(threadCount, packageName).generate(
+         findInstanceFiles(paths), null);
+
+      ResourcesPlugin.getWorkspace().save(true, null);
+
+      final PrintWriter writer = (reportFile != null)
+         ? new PrintWriter(new FileWriter(reportFile))
+         : new PrintWriter(new OutputStreamWriter(System.out));
+      try {
+         report.write(writer);
+      } finally {
+         if (reportFile != null) writer.close();
+      }
+
+      return report.isOK() ? IApplication.EXIT_OK : EXIT_ERROR;
+   }
+
+   /**
+    * @see org.eclipse.equinox.app.IApplication#stop()
+    */
+   public void stop() {
+      // generation can't be stopped from outside
+   }
+
+}
@@ -26,29 +26,65 @@ SUCH DAMAGE.
 
 package com.patternbox.eclipse.codegen;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
- * Organize type imports.
+ * Organize type imports of a single compilation unit. Simple names are indexed, so a
+ * type whose simple name is already taken by another type is used by its fully
+ * qualified name. Primitive types and types of the package <code>java.lang</code> or
+ * the unit's package don't need an import. Resolved names are cached, the same
+ * types are requested for every member of a role.
  * 
  * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
  */
 public class ImportsManager implements IImportsManager {
 	
-	private final Set<String> fIgnores = new HashSet<String>();
+	private static final String JAVA_LANG = "java.lang"; //$NON-NLS-1$
 	
-	private final Set<String> fImports = new HashSet<String>();
+	private static final String ARRAY_SUFFIX = "[]"; //$NON-NLS-1$
+	
+	private static final Set<String> sPrimitives = new HashSet<String>();
+	
+	static {
+		sPrimitives.add("void"); //$NON-NLS-1$
+		sPrimitives.add("boolean"); //$NON-NLS-1$
+		sPrimitives.add("byte"); //$NON-NLS-1$
+		sPrimitives.add("char"); //$NON-NLS-1$
+		sPrimitives.add("short"); //$NON-NLS-1$
+		sPrimitives.add("int"); //$NON-NLS-1$
+		sPrimitives.add("long"); //$NON-NLS-1$
+		sPrimitives.add("float"); //$NON-NLS-1$
+		sPrimitives.add("double"); //$NON-NLS-1$
+	}
+	
+	private final String fPackageName;
+	
+	private final Set<String> fImports = new LinkedHashSet<String>();
+	
+	/** Qualified type names by simple name */
+	private final Map<String, String> fSimpleNames = new HashMap<String, String>();
+	
+	/** Names to be used in the code by requested type name */
+	private final Map<String, String> fResolvedNames = new HashMap<String, String>();
 	
 	/**
-    * Constructor
+    * Constructor for a unit of the default package
 	 */
 	public ImportsManager() {
-		fIgnores.add("void");
-		fIgnores.add("int");
-		fIgnores.add("long");
-		fIgnores.add("float");
-		fIgnores.add("byte");
+		this(""); //$NON-NLS-1$
+	}
+	
+	/**
+    * Constructor
+    * 
+	 * @param packageName Package of the compilation unit
+	 */
+	public ImportsManager(String packageName) {
+		fPackageName = packageName;
 	}
 	
 	/**
@@ -58,7 +94,26 @@ public class ImportsManager implements IImportsManager {
 	 */
 	public ImportsManager(Set<String> imports) {
 		this();
-		fImports.addAll(imports);
+		for (String qualifiedTypeName : imports) {
+			addImport(qualifiedTypeName);
+		}
+	}
+	
+	/**
+	 * Reserves the simple name of a type which is visible without a new import, e.g. a
+	 * type declared or already imported by the unit.
+	 * 
+	 * @param qualifiedTypeName The fully qualified name of the type (dot separated)
+	 * @return <code>true</code>, if the simple name wasn't taken by another type
+	 */
+	public boolean reserve(String qualifiedTypeName) {
+		final String simpleName = qualifiedTypeName.substring(qualifiedTypeName.lastIndexOf('.') + 1);
+		final String owner = fSimpleNames.get(simpleName);
+		if (owner == null) {
+			fSimpleNames.put(simpleName, qualifiedTypeName);
+			return true;
+		}
+		return owner.equals(qualifiedTypeName);
 	}
 
    /**
@@ -73,16 +128,42 @@ public class ImportsManager implements IImportsManager {
     */
 	public String addImport(String qualifiedTypeName) {
 		
-		if (!fIgnores.contains(qualifiedTypeName)) {
-			
+		String result = fResolvedNames.get(qualifiedTypeName);
+		
+		if (result == null) {
+			if (qualifiedTypeName.endsWith(ARRAY_SUFFIX)) {
+				// resolve the element type
+				result = addImport(qualifiedTypeName.substring(0,
+					qualifiedTypeName.length() - ARRAY_SUFFIX.length())) + ARRAY_SUFFIX;
+			} else {
+				result = resolve(qualifiedTypeName);
+			}
+			fResolvedNames.put(qualifiedTypeName, result);
+		}
+		
+		return result;
+	}
+	
+	private String resolve(String qualifiedTypeName) {
+		
+		final int dotPos = qualifiedTypeName.lastIndexOf('.');
+		
+		// primitive, simple or parameterized names are used as they are
+		if (dotPos < 0 || sPrimitives.contains(qualifiedTypeName) || qualifiedTypeName.indexOf('<') >= 0) {
+			return qualifiedTypeName;
+		}
+		
+		if (!reserve(qualifiedTypeName)) {
+			// simple name is used by another type
+			return qualifiedTypeName;
+		}
+		
+		final String packageName = qualifiedTypeName.substring(0, dotPos);
+		if (!JAVA_LANG.equals(packageName) && !fPackageName.equals(packageName)) {
 			fImports.add(qualifiedTypeName);
-			
-			if (qualifiedTypeName.contains(".")) {			
-				return qualifiedTypeName.substring(qualifiedTypeName.lastIndexOf('.')+1);
-			}			
 		}
 		
-		return qualifiedTypeName;
+		return qualifiedTypeName.substring(dotPos + 1);
 	}
 	
 	/* (non-Javadoc)
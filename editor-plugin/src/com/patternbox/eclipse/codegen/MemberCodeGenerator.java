@@ -27,13 +27,19 @@
 package com.patternbox.eclipse.codegen;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.StringTokenizer;
+import java.util.Set;
 
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IBuffer;
@@ -43,13 +49,21 @@ import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.ISourceRange;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.WorkingCopyOwner;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.rewrite.ImportRewrite;
 import org.eclipse.jdt.internal.corext.codemanipulation.StubUtility;
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
 import org.eclipse.jdt.ui.CodeGeneration;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
 import org.eclipse.text.edits.TextEdit;
 
 import com.patternbox.commons.model.DocumentNode;
+import com.patternbox.eclipse.editor.DesignPatternPlugin;
 import com.patternbox.eclipse.model.DesignPatternInstance;
 import com.patternbox.eclipse.model.MemberNode;
 import com.patternbox.eclipse.model.RoleNode;
@@ -63,10 +77,14 @@ public class MemberCodeGenerator {
 
    // ------------------------------------------------------------------------- Field Definitions
 
-   private static final CodeFormatterImpl sCodeFormatter = new CodeFormatterImpl();
-
    public static final String EOL = System.getProperty("line.separator", "\n");
 
+   /** Every member is inserted into the working copy on its own */
+   public static final int INCREMENTAL = 0;
+
+   /** The whole compilation unit is assembled in memory and written at once */
+   public static final int IN_MEMORY = 1;
+
    private final DesignPatternInstance fModel;
 
    private final RoleNode fRoleNode;
@@ -83,8 +101,22 @@ public class MemberCodeGenerator {
 
    private IType fCreatedType = null;
 
+   private ICompilationUnit fWorkingCopy = null;
+
    private IImportsManager fImports;
 
+   private int fGenerationMode = IN_MEMORY;
+
+   private boolean fOverwrite = false;
+
+   private String fTypeHeader;
+
+   private StringBuffer fFieldsBuffer;
+
+   private StringBuffer fMethodsBuffer;
+
+   private ExpansionPlan fExpansionPlan;
+
    //private Collection fTypeImports;
 
    // ------------------------------------------------------------------------- Constructors
@@ -134,6 +166,19 @@ public class MemberCodeGenerator {
     * Called from createType to construct the source for this type
     */
    private String constructTypeStub(int modifiers, String superClassName, String[] interfaces) {
+      StringBuffer buf = new StringBuffer(constructTypeHeader(modifiers, superClassName, interfaces));
+      buf.append('{');
+      buf.append(EOL);
+      buf.append(EOL);
+      buf.append('}');
+      buf.append(EOL);
+      return buf.toString();
+   }
+
+   /**
+    * Constructs the type declaration without its body
+    */
+   private String constructTypeHeader(int modifiers, String superClassName, String[] interfaces) {
       StringBuffer buf = new StringBuffer();
 
       buf.append(Flags.toString(modifiers));
@@ -150,65 +195,30 @@ public class MemberCodeGenerator {
       }
 
       writeSuperInterfaces(buf, interfaces);
+      return buf.toString();
+   }
+
+   /**
+    * Constructs the source of this type including all collected members. Like
+    * <code>IType.createField</code> fields are placed in front of the methods.
+    */
+   private String constructTypeContent() {
+      StringBuffer buf = new StringBuffer(fTypeHeader.length() + fFieldsBuffer.length()
+         + fMethodsBuffer.length() + 8);
+      buf.append(fTypeHeader);
       buf.append('{');
       buf.append(EOL);
       buf.append(EOL);
+      buf.append(fFieldsBuffer);
+      buf.append(fMethodsBuffer);
       buf.append('}');
       buf.append(EOL);
       return buf.toString();
    }
 
    private String getTypeComment() {
-
-      final StringBuffer result = new StringBuffer();
-
-      // 1. line
-      result.append("/**");
-      result.append(EOL);
-
-      // participant name
-      result.append(" * PatternBox: \"");
-      result.append(fRoleNode.getName());
-      result.append("\" implementation.");
-      result.append(EOL);
-
-      // append comment item list
-      if (!fRoleNode.getCommentItemList().isEmpty()) {
-         result.append(" * <ul>");
-         result.append(EOL);
-
-         for (int i = 0; i < fRoleNode.getCommentItemList().size(); i++) {
-            result.append(" *   <li>");
-            result.append(fRoleNode.getCommentItemList().get(i));
-            result.append("</li>");
-            result.append(EOL);
-         } // for
-
-         result.append(" * </ul>");
-         result.append(EOL);
-         result.append(" * ");
-         result.append(EOL);
-      } // if
-
-      // author line
-      result.append(" * ");
-      result.append(fModel.getDesignPatternModel().getAuthor());
-      result.append(EOL);
-
-      // second author line
-      final String user = System.getProperty("user.name");
-      if (user != null && !user.trim().equals("")) {
-         result.append(" * @author ");
-         result.append(user);
-         result.append(EOL);
-      }
-
-      // last line
-      result.append(" */");
-      // result.append(EOL);
-
-      return result.toString();
-
+      return CommentRenderer.getTypeComment(fModel.getDesignPatternModel(), fRoleNode.getName(),
+         fRoleNode.getCommentItemList());
    }
 
    private void addImportsToTargetUnit(final ICompilationUnit targetUnit, final IProgressMonitor monitor) throws CoreException,
@@ -217,17 +227,50 @@ public class MemberCodeGenerator {
       monitor.beginTask("", 2); //$NON-NLS-1$
       
       try {
-         ImportRewrite rewrite = StubUtility.createImportRewrite(targetUnit, true);
-
-         String qualifiedImport;
-         for (final Iterator<String> iterator = fImports.getImports().iterator(); iterator.hasNext();) {
-            qualifiedImport = iterator.next();
-            rewrite.addImport(qualifiedImport);
+         final TextEdit edits = createImportEdit(targetUnit, fImports.getImports(), new SubProgressMonitor(monitor, 1));
+         if (edits != null) {
+            JavaModelUtil.applyEdit(targetUnit, edits, false, new SubProgressMonitor(monitor, 1));
          }
+      } finally {
+         monitor.done();
+      }
+   }
+
+   /**
+    * Adds the imports to a generated unit source in memory. The import edit is computed
+    * on a scratch working copy, so the target unit is written only once.
+    * @param targetUnit Unit the source is generated for
+    * @param source Generated source without imports
+    * @return Source with imports
+    */
+   private String addImportsToSource(ICompilationUnit targetUnit, String source, IProgressMonitor monitor)
+            throws CoreException {
 
-         TextEdit edits = rewrite.rewriteImports(new SubProgressMonitor(monitor, 1));
-         JavaModelUtil.applyEdit(targetUnit, edits, false, new SubProgressMonitor(monitor, 1));
+      if (fImports.getImports().isEmpty()) return source;
+
+      monitor.beginTask("", 3); //$NON-NLS-1$
+
+      final ICompilationUnit scratchUnit = targetUnit.getPrimary().getWorkingCopy(new WorkingCopyOwner() {
+      }, new SubProgressMonitor(monitor, 1));
+
+      try {
+         scratchUnit.getBuffer().setContents(source);
+         // parsed from the buffer, the structure of an overwritten file would be stale
+         final ASTParser parser = ASTParser.newParser(AST.JLS3);
+         parser.setSource(scratchUnit);
+         parser.setResolveBindings(false);
+         final CompilationUnit astRoot = (CompilationUnit) parser.createAST(new SubProgressMonitor(monitor, 1));
+         final TextEdit edit = createImportEdit(StubUtility.createImportRewrite(astRoot, true),
+               fImports.getImports(), new SubProgressMonitor(monitor, 1));
+         if (edit == null) return source;
+         final IDocument document = new Document(source);
+         edit.apply(document);
+         return document.get();
+      } catch (BadLocationException e) {
+         throw new CoreException(new Status(IStatus.ERROR, DesignPatternPlugin.getPluginId(), IStatus.ERROR,
+               e.getMessage(), e));
       } finally {
+         scratchUnit.discardWorkingCopy();
          monitor.done();
       }
    }
@@ -273,54 +316,46 @@ public class MemberCodeGenerator {
    }
 
    /**
-    * Converts comment into single lines
-    * 
-    * @param comment
-    *           Read comment from template file
-    * @return Comment splitted into lines
+    * @return Full path of the unit declaring the member, <code>null</code> if it doesn't exist
     */
-   private String[] formatComment(String comment) {
-
-      // create new string tokenizer to split up all lines
-      final StringTokenizer tokenizer = new StringTokenizer(comment, "\n");
-      // create list for storing comment lines
-      final List<String> lines = new ArrayList<String>();
-      // copy tokens as lines
-      while (tokenizer.hasMoreTokens()) {
-         lines.add(tokenizer.nextToken().trim());
-      }
+   private static IPath getUnitPath(MemberNode member) {
+      final IType type = member.getMemberType();
+      final IResource resource = (type != null) ? type.getResource() : null;
+      return (resource != null) ? resource.getFullPath() : null;
+   }
+
+   // ------------------------------------------------------------------------- Package Methods
 
-      // remove leading empty lines
-      while (!lines.isEmpty()) {
-         // check empty line
-         if (!lines.get(0).toString().equals(""))
-            break;
-         // remove empty line
-         lines.remove(0);
-      } // while
-
-      // remove trailing empty lines
-      int last;
-      while (!lines.isEmpty()) {
-         // get last line index
-         last = lines.size() - 1;
-         // check empty line
-         if (!lines.get(last).toString().equals(""))
-            break;
-         // remove empty line
-         lines.remove(last);
-      } // while
-
-      // create result array
-      String[] result = new String[lines.size()];
-      // copy lines as string array
-      lines.toArray(result);
+   /**
+    * Creates a single edit adding all imports to a unit. The edit refers to the current
+    * contents of the unit, so it can be applied together with other edits of it.
+    * @param unit Target unit
+    * @param imports Fully qualified type names
+    * @param monitor Progress monitor
+    * @return Import edit, <code>null</code> if there is nothing to import
+    * @throws CoreException Unit can't be parsed
+    */
+   /* package */static TextEdit createImportEdit(ICompilationUnit unit, Collection<String> imports,
+            IProgressMonitor monitor) throws CoreException {
 
-      return result;
+      if (imports.isEmpty()) {
+         monitor.done();
+         return null;
+      }
 
+      return createImportEdit(StubUtility.createImportRewrite(unit, true), imports, monitor);
    }
 
-   // ------------------------------------------------------------------------- Package Methods
+   private static TextEdit createImportEdit(ImportRewrite rewrite, Collection<String> imports,
+            IProgressMonitor monitor) throws CoreException {
+
+      for (final Iterator<String> iterator = imports.iterator(); iterator.hasNext();) {
+         rewrite.addImport(iterator.next());
+      }
+
+      final TextEdit edit = rewrite.rewriteImports(monitor);
+      return edit.hasChildren() ? edit : null;
+   }
 
    /* package */DesignPatternInstance getModel() {
       return fModel;
@@ -338,6 +373,21 @@ public class MemberCodeGenerator {
       return fCurrPackage;
    }
 
+   /**
+    * @return Expansion plan of the running type creation or <code>null</code>
+    */
+   /* package */ExpansionPlan getExpansionPlan() {
+      return fExpansionPlan;
+   }
+
+   /**
+    * Sets the expansion plan for the next type creation. It has to be reset after
+    * creation, because members of the referenced roles may change afterwards.
+    */
+   /* package */void setExpansionPlan(ExpansionPlan plan) {
+      fExpansionPlan = plan;
+   }
+
    // ------------------------------------------------------------------------- Public Methods
 
    /**
@@ -362,24 +412,21 @@ public class MemberCodeGenerator {
    public void appendField(int modifiers, String type, String name, String initial, String comment, int index, String foreachType)
             throws JavaModelException {
 
+      appendField(modifiers, type, WildcardPattern.compile(name), WildcardPattern.compile(initial),
+               CommentRenderer.renderFieldComment(comment), index, foreachType);
+   }
+
+   /**
+    * Append a new field from compiled template strings and a rendered comment block.
+    * 
+    * @see #appendField(int, String, String, String, String, int, String)
+    */
+   /* package */void appendField(int modifiers, String type, WildcardPattern name, WildcardPattern initial,
+            String commentBlock, int index, String foreachType) throws JavaModelException {
+
       StringBuffer buf = new StringBuffer();
 
-      if (comment != null && comment.length() > 0) {
-         buf.append("/** ");
-         // get comment spitted into lines
-         final String[] lines = formatComment(comment);
-         // write comment to code buffer
-         if (lines.length > 0)
-            buf.append(lines[0]);
-         for (int i = 1; i < lines.length; i++) {
-            buf.append(" * ");
-            buf.append(lines[i]);
-            buf.append(EOL);
-         }
-         // close comment
-         buf.append(" */");
-         buf.append(EOL);
-      }
+      buf.append(commentBlock);
 
       buf.append(Flags.toString(modifiers));
       if (modifiers == 0) {
@@ -391,7 +438,7 @@ public class MemberCodeGenerator {
       buf.append(' ');
       buf.append(fCodeReplacer.replaceWildcards(name, index, foreachType, fImports));
 
-      if (initial != null && initial.length() > 0) {
+      if (!initial.isEmpty()) {
          buf.append(" = ");
          buf.append(fCodeReplacer.replaceWildcards(initial, index, foreachType, fImports));
       }
@@ -399,7 +446,12 @@ public class MemberCodeGenerator {
       buf.append(';');
       buf.append(EOL);
       buf.append(EOL);
-      fCreatedType.createField(buf.toString(), null, false, null);
+
+      if (fFieldsBuffer != null) {
+         fFieldsBuffer.append(buf);
+      } else {
+         fCreatedType.createField(buf.toString(), null, false, null);
+      }
 
    }
 
@@ -429,22 +481,22 @@ public class MemberCodeGenerator {
    public void appendMethod(int modifiers, String returnType, String name, List<MethodParam> params, List<String> exceptions, String codeFrag,
             String comment, int index, String foreachType, boolean isConstructor) throws JavaModelException {
 
+      appendMethod(modifiers, returnType, WildcardPattern.compile(name), params, exceptions, WildcardPattern.compile(codeFrag),
+               CommentRenderer.renderMethodComment(comment), index, foreachType, isConstructor);
+   }
+
+   /**
+    * Append a new method from compiled template strings and a rendered comment block.
+    * 
+    * @see #appendMethod(int, String, String, List, List, String, String, int, String, boolean)
+    */
+   /* package */void appendMethod(int modifiers, String returnType, WildcardPattern name, List<MethodParam> params,
+            List<String> exceptions, WildcardPattern codeFrag, String commentBlock, int index, String foreachType,
+            boolean isConstructor) throws JavaModelException {
+
       StringBuffer buf = new StringBuffer();
 
-      if (comment != null && comment.length() > 0) {
-         buf.append("/** ");
-         buf.append(EOL);
-         // get comment spitted into lines and store them
-         final String[] lines = formatComment(comment);
-         for (int i = 0; i < lines.length; i++) {
-            buf.append(" * ");
-            buf.append(lines[i]);
-            buf.append(EOL);
-         }
-         // close comment
-         buf.append(" */");
-         buf.append(EOL);
-      }
+      buf.append(commentBlock);
 
       buf.append(Flags.toString(modifiers));
       if (modifiers == 0) {
@@ -504,7 +556,11 @@ public class MemberCodeGenerator {
       buf.append(EOL);
       buf.append(EOL);
 
-      fCreatedType.createMethod(buf.toString(), null, false, null);
+      if (fMethodsBuffer != null) {
+         fMethodsBuffer.append(buf);
+      } else {
+         fCreatedType.createMethod(buf.toString(), null, false, null);
+      }
 
    }
 
@@ -528,26 +584,48 @@ public class MemberCodeGenerator {
 
       monitor.worked(1);
 
-      ICompilationUnit parentCU = fCurrPackage.createCompilationUnit(
-               fMemberName + ".java", "", false, new SubProgressMonitor(monitor, 2)); //$NON-NLS-1$ //$NON-NLS-2$
+      // the Java file is written by finishTypeCreation only, until then an existing
+      // file is left untouched
+      ICompilationUnit parentCU = fCurrPackage.getCompilationUnit(fMemberName + ".java"); //$NON-NLS-1$
+      if (parentCU.exists() && !fOverwrite) {
+         throw new CoreException(new Status(IStatus.ERROR, DesignPatternPlugin.getPluginId(), IStatus.ERROR,
+            parentCU.getElementName() + " already exists", null)); //$NON-NLS-1$
+      }
+
+      monitor.worked(2);
 
       // create a working copy with a new owner
       createdWorkingCopy = parentCU.getWorkingCopy(null);
+      fWorkingCopy = createdWorkingCopy;
 
       // fImports = new ImportsManager(createdWorkingCopy); v3.2
-      fImports = new ImportsManager();
+      final ImportsManager importsManager = new ImportsManager(fCurrPackage.getElementName());
+      // the simple name of the new type can't be used for imported types
+      importsManager.reserve(JavaModelUtil.concatenateName(fCurrPackage.getElementName(), fMemberName));
+      fImports = importsManager;
 
       // add an import that will be removed again. Having this import solves 14661
       // fImports.addImport(JavaModelUtil.concatenateName(fCurrPackage.getElementName(), fMemberName));
       // fImports.fImportsStructure.addImport(JavaModelUtil.concatenateName(fCurrPackage.getElementName(), fMemberName)); v3.2
 
+      fCreatedType = createdWorkingCopy.getType(fMemberName);
+
+      if (fGenerationMode == IN_MEMORY) {
+         // members are collected and written together with the type by finishTypeCreation
+         fTypeHeader = constructTypeHeader(modifiers, superClass, interfaces);
+         fFieldsBuffer = new StringBuffer();
+         fMethodsBuffer = new StringBuffer();
+         for (int i = 0; i < imports.length; i++) {
+            fCodeReplacer.substituteJavaType(imports[i], 0, null, fImports);
+         } // for
+         return createdWorkingCopy;
+      } // if
+
       String typeContent = constructTypeStub(modifiers, superClass, interfaces);
 
       // fImports.create(false, new SubProgressMonitor(monitor, 1));
 
-      fCreatedType = createdWorkingCopy.getType(fMemberName);
-
-      String cuContent = constructCUContent(monitor, parentCU, typeContent);
+      String cuContent = constructCUContent(monitor, createdWorkingCopy, typeContent);
 
       createdWorkingCopy.getBuffer().setContents(cuContent);
 
@@ -569,10 +647,7 @@ public class MemberCodeGenerator {
          throw new InterruptedException();
       }
 
-      // set up again
-      // fImports = new ImportsManager(fImports.getCompilationUnit(), fImports.getAddedTypes()); v3.2
-      fImports = new ImportsManager(fImports.getImports());
-
+      // the imports manager is kept, its resolved names stay valid for the whole type
       for (int i = 0; i < imports.length; i++) {
          fCodeReplacer.substituteJavaType(imports[i], 0, null, fImports);
       } // for
@@ -587,6 +662,19 @@ public class MemberCodeGenerator {
       // fImports.create(false, new SubProgressMonitor(monitor, 1), true); v3.2
 
       ICompilationUnit cu = fCreatedType.getCompilationUnit();
+
+      if (fGenerationMode == IN_MEMORY) {
+         // format the type and add the imports in memory, the whole unit is written
+         // with a single buffer update
+         final String typeContent = CodeFormatterImpl.getInstance().format(constructTypeContent(), 0, null, EOL);
+         final String cuContent = CodeGeneration.getCompilationUnitContent(cu, getTypeComment(), typeContent, EOL);
+         fFieldsBuffer = null;
+         fMethodsBuffer = null;
+         cu.getBuffer().setContents(addImportsToSource(cu, cuContent, new SubProgressMonitor(monitor, 1)));
+         JavaModelUtil.reconcile(cu);
+         cu.commitWorkingCopy(false, new SubProgressMonitor(monitor, 1));
+         return;
+      } // if
       
       addImportsToTargetUnit(cu, new SubProgressMonitor(monitor, 1));
 
@@ -596,7 +684,7 @@ public class MemberCodeGenerator {
 
       IBuffer buf = cu.getBuffer();
       final String original = buf.getText(range.getOffset(), range.getLength());
-      final String formattedCode = sCodeFormatter.format(original, 0, null, EOL);
+      final String formattedCode = CodeFormatterImpl.getInstance().format(original, 0, null, EOL);
 
       buf.replace(range.getOffset(), range.getLength(), formattedCode);
 
@@ -604,6 +692,44 @@ public class MemberCodeGenerator {
 
    }
 
+   /**
+    * Releases the working copy of the generated unit, must be called after
+    * {@link #finishTypeCreation(IProgressMonitor)} or if the generation failed. Unless
+    * the type creation has been finished, the Java file isn't changed.
+    */
+   public void discardTypeCreation() throws JavaModelException {
+      if (fWorkingCopy == null) return;
+      try {
+         fWorkingCopy.discardWorkingCopy();
+      } finally {
+         // the created type is referenced by its primary element from now on
+         fCreatedType = fWorkingCopy.getPrimary().getType(fMemberName);
+         fWorkingCopy = null;
+      }
+   }
+
+   /**
+    * Selects how the compilation unit is generated, must be called before
+    * {@link #startTypeCreation(IProgressMonitor, boolean, int, String[], String, String[])}.
+    * 
+    * @param mode
+    *           {@link #IN_MEMORY} (default) or {@link #INCREMENTAL}
+    */
+   public void setGenerationMode(int mode) {
+      fGenerationMode = mode;
+   }
+
+   /**
+    * Allows to replace an existing compilation unit, e.g. to regenerate a member. The
+    * existing file is replaced once the new unit is complete.
+    * 
+    * @param overwrite
+    *           <code>true</code>, to replace an existing Java file
+    */
+   public void setOverwrite(boolean overwrite) {
+      fOverwrite = overwrite;
+   }
+
    /**
     * @return
     */
@@ -617,16 +743,43 @@ public class MemberCodeGenerator {
     * @return List with member nodes
     */
    public List<MemberNode> getAutomaticReplaceList() {
+      return getAutomaticReplaceList(fRoleNode.getReplaceNodeSet());
+   }
+
+   /**
+    * Returns a list with all members nodes which includes placeholders for automatic
+    * replacement, based on a copy of the replace nodes of the role.
+    * 
+    * @param replaceNodes Roles registered for automatic replacement
+    * @return List with member nodes
+    */
+   public List<MemberNode> getAutomaticReplaceList(Collection<RoleNode> replaceNodes) {
 
       final List<MemberNode> result = new LinkedList<MemberNode>();
 
-      for (RoleNode role: fRoleNode.getReplaceNodeSet()) {
+      for (RoleNode role: replaceNodes) {
     	  for (DocumentNode member: role.getChildrenCollection()) {
     		  if (member instanceof MemberNode) {
     			  result.add((MemberNode) member); 
     		  }
     	  }
       }
+
+      // placeholders left over from earlier sessions
+      final PlaceholderIndex index = PlaceholderIndex.getInstance();
+      if (index != null) {
+         final Set<IPath> units = index.getUnits(fRoleNode.getName());
+         if (!units.isEmpty()) {
+            for (DocumentNode role: fModel.getRoot().getChildren()) {
+               for (DocumentNode member: role.getChildren()) {
+                  if (member instanceof MemberNode && !result.contains(member)
+                        && units.contains(getUnitPath((MemberNode) member))) {
+                     result.add((MemberNode) member);
+                  }  // if
+               }  // for
+            }  // for
+         }  // if
+      }  // if
       
       return result;
 
@@ -634,17 +787,47 @@ public class MemberCodeGenerator {
 
    /**
     * Replaces all placeholders by its Java types
+    * @see AutoReplaceJob
     */
    public void handleAutomaticReplace(List<MemberNode> memberList) {
 
-      Iterator<MemberNode> memberSet = memberList.iterator();
-      while (memberSet.hasNext()) {
-         fCodeReplacer.replacePlaceholders(memberSet.next());
-      } // while
+      try {
+         replacePlaceholders(memberList, new NullProgressMonitor());
+      } catch (CoreException e) {
+         DesignPatternPlugin.log(e);
+      }
 
       // remove role node entries
       fRoleNode.clearReplaceNodes();
 
    }
 
+   /**
+    * Replaces the placeholders of the given members without opening editors.
+    * @param memberList Members containing placeholders
+    * @param monitor Progress monitor
+    * @return Members which have been changed
+    * @throws CoreException Unit of a member can't be changed
+    */
+   /* package */List<MemberNode> replacePlaceholders(List<MemberNode> memberList, IProgressMonitor monitor)
+            throws CoreException {
+
+      final List<MemberNode> result = new ArrayList<MemberNode>(memberList.size());
+
+      monitor.beginTask("", memberList.size()); //$NON-NLS-1$
+      try {
+         final Iterator<MemberNode> memberSet = memberList.iterator();
+         while (memberSet.hasNext()) {
+            final MemberNode member = memberSet.next();
+            if (fCodeReplacer.replacePlaceholders(member, new SubProgressMonitor(monitor, 1))) {
+               result.add(member);
+            }
+         } // while
+      } finally {
+         monitor.done();
+      }
+
+      return result;
+   }
+
 }
@@ -0,0 +1,92 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import com.patternbox.eclipse.model.RoleNode;
+
+/**
+ * Describes a single role member of a batch generation: the participant role, the
+ * name of the new Java type and its location.
+ *
+ * @see RoleMemberFactory#createRoleMembers(com.patternbox.eclipse.model.DesignPatternInstance, java.util.List, java.util.List, org.eclipse.core.runtime.IProgressMonitor)
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class MemberRequest {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private final RoleNode fRoleNode;
+   private final String fMemberName;
+   private final IPackageFragmentRoot fPackageFragmentRoot;
+   private final IPackageFragment fPackageFragment;
+
+   // ------------------------------------------------------------------------- Constructors
+
+   /**
+    * Constructor
+    * @param roleNode Participant role
+    * @param memberName Name of the participant instance
+    * @param packFragRoot Location of the new java file
+    * @param packFrag Package of the new java file
+    */
+   public MemberRequest(RoleNode roleNode, String memberName, IPackageFragmentRoot packFragRoot,
+         IPackageFragment packFrag) {
+      fRoleNode = roleNode;
+      fMemberName = memberName;
+      fPackageFragmentRoot = packFragRoot;
+      fPackageFragment = packFrag;
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   public RoleNode getRoleNode() {
+      return fRoleNode;
+   }
+
+   public String getMemberName() {
+      return fMemberName;
+   }
+
+   public IPackageFragmentRoot getPackageFragmentRoot() {
+      return fPackageFragmentRoot;
+   }
+
+   public IPackageFragment getPackageFragment() {
+      return fPackageFragment;
+   }
+
+   /**
+    * @see java.lang.Object#toString()
+    */
+   public String toString() {
+      return fRoleNode.getName() + ": " + fPackageFragment.getElementName() + '.' + fMemberName; //$NON-NLS-1$
+   }
+
+}
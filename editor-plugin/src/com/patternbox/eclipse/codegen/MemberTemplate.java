@@ -0,0 +1,188 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiled form of a single field, constructor or method definition of a code template.
+ * Names and types still contain wildcards, they are replaced for each generated member.
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class MemberTemplate {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   public static final int FIELD = 0;
+   public static final int CONSTRUCTOR = 1;
+   public static final int METHOD = 2;
+
+   private final int fKind;
+   private final int fModifiers;
+   private final String fType;
+   private final String fName;
+   private final String fInitialValue;
+   private final String fComment;
+   private final String fForEach;
+   private final List<MethodParam> fParams;
+   private final List<String> fExceptions;
+   private final String fCode;
+   private final WildcardPattern fNamePattern;
+   private final WildcardPattern fInitialValuePattern;
+   private final WildcardPattern fCodePattern;
+   private final String fCommentBlock;
+
+   // ------------------------------------------------------------------------- Constructors
+
+   /**
+    * Constructor
+    * @param kind {@link #FIELD}, {@link #CONSTRUCTOR} or {@link #METHOD}
+    * @param modifiers Modifier flags
+    * @param type Field type or method return type
+    * @param name Member name, <code>null</code> for constructors named after the member
+    * @param initialValue Initial field value, can be <code>null</code>
+    * @param comment Member comment, can be <code>null</code>
+    * @param forEach Role name to iterate over, can be <code>null</code>
+    * @param params Method parameters
+    * @param exceptions Thrown exception types
+    * @param code Method code fragment, can be <code>null</code>
+    */
+   public MemberTemplate(int kind, int modifiers, String type, String name, String initialValue,
+         String comment, String forEach, List<MethodParam> params, List<String> exceptions, String code) {
+      fKind = kind;
+      fModifiers = modifiers;
+      fType = type;
+      fName = name;
+      fInitialValue = initialValue;
+      fComment = comment;
+      fForEach = forEach;
+      fParams = Collections.unmodifiableList(params);
+      fExceptions = Collections.unmodifiableList(exceptions);
+      fCode = code;
+      // template strings are compiled once and substituted for every generated member
+      fNamePattern = (name != null) ? WildcardPattern.compile(name) : null;
+      fInitialValuePattern = WildcardPattern.compile(initialValue);
+      fCodePattern = WildcardPattern.compile(code);
+      // comments don't contain wildcards, their blocks are rendered only once
+      fCommentBlock = (kind == FIELD) ? CommentRenderer.renderFieldComment(comment)
+         : CommentRenderer.renderMethodComment(comment);
+   }
+
+   // ------------------------------------------------------------------------- Package Methods
+
+   /**
+    * @param memberName Name of the generated member, used for constructors
+    * @return Compiled member name
+    */
+   /* package */ WildcardPattern getNamePattern(String memberName) {
+      return (fNamePattern != null) ? fNamePattern : WildcardPattern.compile(memberName);
+   }
+
+   /* package */ WildcardPattern getInitialValuePattern() {
+      return fInitialValuePattern;
+   }
+
+   /* package */ WildcardPattern getCodePattern() {
+      return fCodePattern;
+   }
+
+   /**
+    * @return Rendered comment block, empty if the member has no comment
+    */
+   /* package */ String getCommentBlock() {
+      return fCommentBlock;
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   public int getKind() {
+      return fKind;
+   }
+
+   public boolean isField() {
+      return fKind == FIELD;
+   }
+
+   public boolean isConstructor() {
+      return fKind == CONSTRUCTOR;
+   }
+
+   public int getModifiers() {
+      return fModifiers;
+   }
+
+   /**
+    * @return Field type or method return type
+    */
+   public String getType() {
+      return fType;
+   }
+
+   /**
+    * @param memberName Name of the generated member, used for constructors
+    * @return Member name
+    */
+   public String getName(String memberName) {
+      return (fName != null) ? fName : memberName;
+   }
+
+   public String getInitialValue() {
+      return fInitialValue;
+   }
+
+   public String getComment() {
+      return fComment;
+   }
+
+   /**
+    * @return Role name to iterate over or <code>null</code>
+    */
+   public String getForEach() {
+      return fForEach;
+   }
+
+   /**
+    * @return Unmodifiable list of method parameters
+    */
+   public List<MethodParam> getParams() {
+      return fParams;
+   }
+
+   /**
+    * @return Unmodifiable list of thrown exception types
+    */
+   public List<String> getExceptions() {
+      return fExceptions;
+   }
+
+   public String getCode() {
+      return fCode;
+   }
+
+}
@@ -0,0 +1,325 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import com.patternbox.commons.model.DocumentNode;
+import com.patternbox.eclipse.editor.DesignPatternPlugin;
+import com.patternbox.eclipse.model.DesignPatternInstance;
+import com.patternbox.eclipse.model.MemberNode;
+import com.patternbox.eclipse.model.RoleNode;
+
+/**
+ * Regenerates all role members of design pattern instance files without the workbench
+ * UI. Instance files are processed in parallel, the members of a single instance are
+ * regenerated within one workspace operation. If a package is given, members are
+ * generated for roles without members first, named after their roles like the
+ * participants section of the editor does, and added to the instance file.
+ *
+ * @see GeneratorApplication
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class PatternInstanceGenerator {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final RoleMemberFactory sRoleMemberFactory = new RoleMemberFactory();
+
+   private static final String FILE_EXT = DesignPatternPlugin.DEFAULT_FILE_EXT.substring(1);
+
+   private final int fThreadCount;
+
+   private final String fPackageName;
+
+   // ------------------------------------------------------------------------- Constructors
+
+   /**
+    * Constructor, roles without members are left out
+    * @param threadCount Number of instance files processed in parallel
+    */
+   public PatternInstanceGenerator(int threadCount) {
+      this(threadCount, null);
+   }
+
+   /**
+    * Constructor
+    * @param threadCount Number of instance files processed in parallel
+    * @param packageName Package of the members generated for roles without members,
+    *   <code>null</code> to leave these roles out
+    */
+   public PatternInstanceGenerator(int threadCount, String packageName) {
+      fThreadCount = Math.max(1, threadCount);
+      fPackageName = packageName;
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   /**
+    * Collects the members of an instance whose Java types exist in source folders.
+    * @return Number of skipped members
+    */
+   private static int collectMembers(DesignPatternInstance model, List<MemberRequest> requests)
+      throws JavaModelException {
+
+      int skipped = 0;
+      final DocumentNode[] roleNodes = model.getRoot().getChildren();
+
+      for (int i = 0; i < roleNodes.length; i++) {
+         final RoleNode roleNode = (RoleNode) roleNodes[i];
+         final DocumentNode[] members = roleNode.getChildren();
+         for (int j = 0; j < members.length; j++) {
+            final IType type = ((MemberNode) members[j]).getMemberType();
+            final IPackageFragment packFrag = (type != null) ? type.getPackageFragment() : null;
+            final IPackageFragmentRoot packFragRoot = (packFrag != null) ? (IPackageFragmentRoot) packFrag.getParent() : null;
+            if (packFragRoot == null || packFragRoot.getKind() != IPackageFragmentRoot.K_SOURCE) {
+               skipped++;
+               continue;
+            }
+            requests.add(new MemberRequest(roleNode, type.getElementName(), packFragRoot, packFrag));
+         }  // for
+      }  // for
+
+      return skipped;
+   }
+
+   /**
+    * @return Number of roles without members
+    */
+   private static int countMissingRoles(DesignPatternInstance model) {
+
+      int result = 0;
+      final DocumentNode[] roleNodes = model.getRoot().getChildren();
+      for (int i = 0; i < roleNodes.length; i++) {
+         if (!roleNodes[i].hasChildren()) result++;
+      }  // for
+      return result;
+   }
+
+   /**
+    * Returns the package with the given name in the source folders of a project. If
+    * the package doesn't exist yet, it is located in the first source folder.
+    * @return Package or <code>null</code>, if the project has no source folder
+    */
+   private static IPackageFragment findPackage(IJavaProject project, String packageName)
+      throws JavaModelException {
+
+      IPackageFragmentRoot sourceRoot = null;
+      final IPackageFragmentRoot[] roots = project.getPackageFragmentRoots();
+      for (int i = 0; i < roots.length; i++) {
+         if (roots[i].getKind() != IPackageFragmentRoot.K_SOURCE) continue;
+         final IPackageFragment packFrag = roots[i].getPackageFragment(packageName);
+         if (packFrag.exists()) return packFrag;
+         if (sourceRoot == null) sourceRoot = roots[i];
+      }  // for
+      return (sourceRoot != null) ? sourceRoot.getPackageFragment(packageName) : null;
+   }
+
+   /**
+    * Collects a new member for each role without members, existing types aren't
+    * overwritten.
+    */
+   private void collectMissingMembers(DesignPatternInstance model, IFile file,
+      List<MemberRequest> requests) throws CoreException {
+
+      final IPackageFragment packFrag = findPackage(JavaCore.create(file.getProject()), fPackageName);
+      if (packFrag == null) {
+         throw new CoreException(new Status(IStatus.ERROR, DesignPatternPlugin.getPluginId(),
+            IStatus.ERROR, "No source folder in project " + file.getProject().getName(), null)); //$NON-NLS-1$
+      }
+      final IPackageFragmentRoot packFragRoot = (IPackageFragmentRoot) packFrag.getParent();
+
+      for (RoleNode roleNode: RoleMemberFactory.getMissingRoles(model)) {
+         final String memberName = RoleMemberFactory.toMemberName(roleNode.getName());
+         if (memberName.length() > 0
+            && !packFrag.getCompilationUnit(memberName + ".java").exists()) { //$NON-NLS-1$
+            requests.add(new MemberRequest(roleNode, memberName, packFragRoot, packFrag));
+         }
+      }  // for
+   }
+
+   /**
+    * Writes the design pattern instance back to its file.
+    */
+   private static void saveInstance(DesignPatternInstance model, IFile file) throws CoreException {
+
+      file.setContents(new ByteArrayInputStream(model.getXmlString().getBytes()), true, true, null);
+      model.setDirty(false);
+   }
+
+   /**
+    * Generates the missing members and regenerates all existing members of a single
+    * design pattern instance file. Existing members are regenerated after the new
+    * members have been added, so they refer to them.
+    */
+   private GenerationReport.Entry generate(IFile file) {
+
+      final long start = System.nanoTime();
+      int generated = 0;
+      int skipped = 0;
+      IStatus status = Status.OK_STATUS;
+
+      try {
+         final DesignPatternInstance model = new DesignPatternInstance(file);
+         final List<MemberRequest> requests = new ArrayList<MemberRequest>();
+         skipped = collectMembers(model, requests);
+         int missing = countMissingRoles(model);
+         if (fPackageName != null && missing > 0) {
+            final List<MemberRequest> newRequests = new ArrayList<MemberRequest>();
+            final List<MemberCodeGenerator> created = new ArrayList<MemberCodeGenerator>();
+            collectMissingMembers(model, file, newRequests);
+            status = sRoleMemberFactory.createRoleMembers(model, newRequests, created,
+               new NullProgressMonitor());
+            // members created before a failure are kept in the instance
+            if (!created.isEmpty()) saveInstance(model, file);
+            generated += created.size();
+            missing -= created.size();
+         }  // if
+         // roles left without members are reported as skipped
+         skipped += missing;
+         if (!status.isOK()) throw new CoreException(status);
+         sRoleMemberFactory.regenerateRoleMembers(model, requests, new NullProgressMonitor());
+         generated += requests.size();
+      } catch (CoreException e) {
+         status = e.getStatus();
+      } catch (RuntimeException e) {
+         status = new Status(IStatus.ERROR, DesignPatternPlugin.getPluginId(), IStatus.ERROR,
+            String.valueOf(e.getMessage()), e);
+      }  // try - catch
+
+      if (!status.isOK()) DesignPatternPlugin.log(status);
+
+      return new GenerationReport.Entry(file.getFullPath(), generated, skipped,
+         System.nanoTime() - start, status);
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   /**
+    * Finds all design pattern instance files below a container.
+    * @param container Workspace root, project or folder
+    * @return Instance files
+    */
+   public static IFile[] findInstanceFiles(IContainer container) throws CoreException {
+
+      final List<IFile> result = new ArrayList<IFile>();
+
+      container.accept(new IResourceProxyVisitor() {
+
+         public boolean visit(IResourceProxy proxy) {
+            if (proxy.getType() == IResource.FILE) {
+               if (proxy.getName().endsWith(DesignPatternPlugin.DEFAULT_FILE_EXT)) {
+                  result.add((IFile) proxy.requestResource());
+               }
+               return false;
+            }
+            return true;
+         }
+      }, IResource.NONE);
+
+      return result.toArray(new IFile[result.size()]);
+   }
+
+   /**
+    * Generates the role members of the given design pattern instance files.
+    * @param files Design pattern instance files
+    * @param monitor Progress monitor, can be <code>null</code>
+    * @return Report with an entry for each processed file
+    * @throws InterruptedException Generation has been canceled
+    */
+   public GenerationReport generate(IFile[] files, IProgressMonitor monitor)
+      throws InterruptedException {
+
+      if (monitor == null) monitor = new NullProgressMonitor();
+
+      final List<IFile> instanceFiles = new ArrayList<IFile>(files.length);
+      for (int i = 0; i < files.length; i++) {
+         if (FILE_EXT.equals(files[i].getFileExtension())) instanceFiles.add(files[i]);
+      }  // for
+
+      final long start = System.nanoTime();
+      final GenerationReport report = new GenerationReport();
+      final ExecutorService executor = Executors.newFixedThreadPool(Math.min(fThreadCount,
+         Math.max(1, instanceFiles.size())));
+      final CompletionService<GenerationReport.Entry> completion =
+         new ExecutorCompletionService<GenerationReport.Entry>(executor);
+
+      monitor.beginTask("Generate design pattern instances", instanceFiles.size()); //$NON-NLS-1$
+      try {
+         for (final IFile file: instanceFiles) {
+            completion.submit(new Callable<GenerationReport.Entry>() {
+               public GenerationReport.Entry call() {
+                  return generate(file);
+               }
+            });
+         }  // for
+         // the monitor is only used by the calling thread
+         for (int i = 0; i < instanceFiles.size(); i++) {
+            if (monitor.isCanceled()) throw new InterruptedException();
+            final GenerationReport.Entry entry = completion.take().get();
+            report.add(entry);
+            monitor.subTask(entry.getPath().toString());
+            monitor.worked(1);
+         }  // for
+      } catch (ExecutionException e) {
+         // entries catch all exceptions, so this is a programming error
+         throw new IllegalStateException(e.getCause());
+      } finally {
+         executor.shutdownNow();
+         monitor.done();
+      }  // try - finally
+
+      report.setElapsedNanos(System.nanoTime() - start);
+      return report;
+   }
+
+}
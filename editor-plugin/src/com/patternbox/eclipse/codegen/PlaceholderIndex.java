@@ -0,0 +1,573 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.ISaveContext;
+import org.eclipse.core.resources.ISaveParticipant;
+import org.eclipse.core.resources.ISavedState;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import com.patternbox.eclipse.editor.DesignPatternPlugin;
+
+/**
+ * Persistent workspace index of the Java units containing automatic code replacements,
+ * keyed by the roles their placeholders refer to. A resource change listener keeps
+ * the index current, so waiting placeholders are found without reading any file,
+ * also ones created in earlier sessions. Units are verified by their modification
+ * stamp on lookup, changes made while the index wasn't listening are scanned again in
+ * the background. Files are never read while the index is locked. The index is saved
+ * together with the workspace, changes made while the plugin wasn't active are taken
+ * from the saved state of the workspace.
+ *
+ * @see PlaceholderScanner
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class PlaceholderIndex implements IResourceChangeListener, ISaveParticipant {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final int MAGIC = 0x50425049; // "PBPI"
+   private static final int FORMAT_VERSION = 1;
+
+   private static final String JAVA_EXTENSION = "java"; //$NON-NLS-1$
+
+   private static final long UPDATE_DELAY = 500;
+
+   private static volatile PlaceholderIndex sInstance;
+
+   private final File fIndexFile;
+
+   /** Referenced role names by unit */
+   private final Map<IPath, Entry> fUnits = new HashMap<IPath, Entry>();
+
+   /** Units by referenced role name */
+   private final Map<String, Set<IPath>> fRoles = new HashMap<String, Set<IPath>>();
+
+   /** Changed units not scanned yet */
+   private final Set<IPath> fPending = new LinkedHashSet<IPath>();
+
+   private final Job fUpdateJob;
+
+   /** Serializes scanning, lookups only wait for the index itself */
+   private final Object fUpdateLock = new Object();
+
+   private boolean fDirty;
+
+   // ------------------------------------------------------------------------- Inner Classes
+
+   /**
+    * Index entry of a single unit
+    */
+   private static class Entry {
+
+      private final long fStamp;
+      private final String[] fRoleNames;
+
+      public Entry(long stamp, String[] roleNames) {
+         fStamp = stamp;
+         fRoleNames = roleNames;
+      }
+
+   }
+
+   // ------------------------------------------------------------------------- Constructors
+
+   /**
+    * Constructor
+    * @param indexFile Location of the index, can be <code>null</code> to disable persistence
+    */
+   private PlaceholderIndex(File indexFile) {
+      fIndexFile = indexFile;
+      fUpdateJob = new Job("Updating design pattern placeholder index") { //$NON-NLS-1$
+         protected IStatus run(IProgressMonitor monitor) {
+            update();
+            return Status.OK_STATUS;
+         }
+      };
+      fUpdateJob.setSystem(true);
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   private static IWorkspaceRoot getWorkspaceRoot() {
+      return ResourcesPlugin.getWorkspace().getRoot();
+   }
+
+   private static boolean isJavaFile(IResource resource) {
+      return resource.getType() == IResource.FILE && JAVA_EXTENSION.equals(resource.getFileExtension());
+   }
+
+   private static String readContents(IFile file) throws CoreException, IOException {
+
+      final StringBuffer result = new StringBuffer();
+      final char[] buffer = new char[8192];
+      final Reader reader = new InputStreamReader(file.getContents(true), file.getCharset());
+
+      try {
+         int count;
+         while ((count = reader.read(buffer)) > 0) {
+            result.append(buffer, 0, count);
+         }  // while
+      } finally {
+         reader.close();
+      }  // try - finally
+
+      return result.toString();
+   }
+
+   private boolean load() {
+
+      if (fIndexFile == null || !fIndexFile.isFile()) return false;
+
+      DataInputStream in = null;
+      try {
+         in = new DataInputStream(new BufferedInputStream(new FileInputStream(fIndexFile)));
+         if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            // unknown format, the index will be rebuilt
+            return false;
+         }  // if
+         final int count = in.readInt();
+         if (count < 0) throw new IOException("Invalid unit count " + count); //$NON-NLS-1$
+         for (int i = 0; i < count; i++) {
+            final IPath path = Path.fromPortableString(in.readUTF());
+            final long stamp = in.readLong();
+            final String[] roleNames = new String[in.readInt()];
+            for (int j = 0; j < roleNames.length; j++) {
+               roleNames[j] = in.readUTF().intern();
+            }  // for
+            put(path, new Entry(stamp, roleNames));
+         }  // for
+         fDirty = false;
+         return true;
+      } catch (IOException e) {
+         discard(e);
+         return false;
+      } catch (RuntimeException e) {
+         // corrupt lengths
+         discard(e);
+         return false;
+      } finally {
+         if (in != null) {
+            try {
+               in.close();
+            } catch (IOException e) {
+               // ignore
+            }  // try - catch
+         }  // if
+      }  // try - catch - finally
+   }
+
+   /**
+    * Drops a corrupt index, it is built from scratch.
+    */
+   private void discard(Exception e) {
+      fUnits.clear();
+      fRoles.clear();
+      fIndexFile.delete();
+      DesignPatternPlugin.logException(e);
+   }
+
+   private synchronized void save() {
+
+      if (fIndexFile == null || !fDirty) return;
+
+      final File tempFile = new File(fIndexFile.getPath() + ".tmp"); //$NON-NLS-1$
+      DataOutputStream out = null;
+
+      try {
+         // write a temporary file first, so a crash never leaves a truncated index
+         out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+         out.writeInt(MAGIC);
+         out.writeInt(FORMAT_VERSION);
+         out.writeInt(fUnits.size());
+         for (Map.Entry<IPath, Entry> unit : fUnits.entrySet()) {
+            out.writeUTF(unit.getKey().toPortableString());
+            out.writeLong(unit.getValue().fStamp);
+            out.writeInt(unit.getValue().fRoleNames.length);
+            for (int i = 0; i < unit.getValue().fRoleNames.length; i++) {
+               out.writeUTF(unit.getValue().fRoleNames[i]);
+            }  // for
+         }  // for
+         out.close();
+         out = null;
+         if (!fIndexFile.delete() && fIndexFile.exists() || !tempFile.renameTo(fIndexFile)) {
+            throw new IOException("Unable to replace placeholder index " + fIndexFile); //$NON-NLS-1$
+         }  // if
+         fDirty = false;
+      } catch (IOException e) {
+         DesignPatternPlugin.logException(e);
+      } finally {
+         if (out != null) {
+            try {
+               out.close();
+            } catch (IOException e) {
+               // ignore
+            }  // try - catch
+         }  // if
+      }  // try - catch - finally
+   }
+
+   private void put(IPath path, Entry entry) {
+      remove(path);
+      fUnits.put(path, entry);
+      for (int i = 0; i < entry.fRoleNames.length; i++) {
+         Set<IPath> units = fRoles.get(entry.fRoleNames[i]);
+         if (units == null) {
+            units = new HashSet<IPath>();
+            fRoles.put(entry.fRoleNames[i], units);
+         }  // if
+         units.add(path);
+      }  // for
+      fDirty = true;
+   }
+
+   private void remove(IPath path) {
+      final Entry entry = fUnits.remove(path);
+      if (entry == null) return;
+      for (int i = 0; i < entry.fRoleNames.length; i++) {
+         final Set<IPath> units = fRoles.get(entry.fRoleNames[i]);
+         if (units != null && units.remove(path) && units.isEmpty()) {
+            fRoles.remove(entry.fRoleNames[i]);
+         }  // if
+      }  // for
+      fDirty = true;
+   }
+
+   /**
+    * Scans a unit again, the index must not be locked.
+    * @return New index entry, <code>null</code> if the unit has no placeholders
+    */
+   private static Entry rescan(IPath path) {
+
+      final IFile file = getWorkspaceRoot().getFile(path);
+
+      if (!file.exists()) return null;
+
+      try {
+         final long stamp = file.getModificationStamp();
+         final String[] roleNames = scan(readContents(file));
+         return (roleNames.length > 0) ? new Entry(stamp, roleNames) : null;
+      } catch (CoreException e) {
+         // out of sync or inaccessible, scanned again on its next change
+         return null;
+      } catch (IOException e) {
+         DesignPatternPlugin.logException(e);
+         return null;
+      }  // try - catch
+   }
+
+   /**
+    * Removes the next unit from the changed units.
+    * @return Unit path, <code>null</code> if there are no more changed units
+    */
+   private synchronized IPath nextPending() {
+      final Iterator<IPath> it = fPending.iterator();
+      if (!it.hasNext()) return null;
+      final IPath path = it.next();
+      it.remove();
+      return path;
+   }
+
+   /**
+    * Scans all units changed since the last update. Units without placeholders are
+    * dropped from the index.
+    */
+   private void update() {
+      synchronized (fUpdateLock) {
+         IPath path;
+         while ((path = nextPending()) != null) {
+            final Entry entry = rescan(path);
+            synchronized (this) {
+               if (entry != null) {
+                  put(path, entry);
+               } else {
+                  remove(path);
+               }  // if - else
+            }  // synchronized
+         }  // while
+      }  // synchronized
+   }
+
+   /**
+    * Builds the index from scratch, only units containing a replacement marker are
+    * indexed.
+    */
+   private void build() {
+
+      final Job job = new Job("Building design pattern placeholder index") { //$NON-NLS-1$
+         protected IStatus run(IProgressMonitor monitor) {
+            try {
+               getWorkspaceRoot().accept(new IResourceProxyVisitor() {
+                  public boolean visit(IResourceProxy proxy) {
+                     if (proxy.getType() == IResource.FILE
+                           && proxy.getName().endsWith('.' + JAVA_EXTENSION)) {
+                        synchronized (PlaceholderIndex.this) {
+                           fPending.add(proxy.requestFullPath());
+                        }  // synchronized
+                     }  // if
+                     return true;
+                  }
+               }, IResource.NONE);
+            } catch (CoreException e) {
+               return e.getStatus();
+            }  // try - catch
+            update();
+            return Status.OK_STATUS;
+         }
+      };
+      job.setSystem(true);
+      job.setPriority(Job.DECORATE);
+      job.schedule();
+   }
+
+   // ------------------------------------------------------------------------- Package Methods
+
+   /**
+    * Returns the names of all roles referenced by the placeholders of a source.
+    * @param source Source of a Java unit
+    * @return Sorted role names, empty if the source has no placeholders
+    */
+   /* package */ static String[] scan(String source) {
+
+      if (source.indexOf(CodeReplacer.REPLACE_START) < 0) return new String[0];
+
+      final Set<String> result = new TreeSet<String>();
+      final PlaceholderScanner scanner = new PlaceholderScanner(source);
+
+      while (scanner.next()) {
+         final WildcardPattern pattern = WildcardPattern.compile(scanner.getPlaceholder());
+         for (int i = 0; i < pattern.size(); i++) {
+            if (pattern.isRoleReference(i)) result.add(pattern.getSegment(i));
+         }  // for
+      }  // while
+
+      return result.toArray(new String[result.size()]);
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   /**
+    * Loads the index and starts listening to resource changes. Changes since the last
+    * workspace save are scanned again. The index is built in the background, if it
+    * doesn't exist yet or the workspace has no saved state for it.
+    * @param indexFile Location of the index, can be <code>null</code> to disable persistence
+    * @return Started index
+    */
+   public static PlaceholderIndex start(File indexFile) {
+
+      final PlaceholderIndex index = new PlaceholderIndex(indexFile);
+      boolean loaded = index.load();
+
+      ResourcesPlugin.getWorkspace().addResourceChangeListener(index, IResourceChangeEvent.POST_CHANGE);
+      sInstance = index;
+
+      if (indexFile != null) {
+         try {
+            final ISavedState savedState = ResourcesPlugin.getWorkspace().addSaveParticipant(
+               DesignPatternPlugin.getDefault(), index);
+            if (savedState != null) {
+               // units changed while the plugin wasn't active
+               savedState.processResourceChangeEvents(index);
+            } else {
+               loaded = false;
+            }  // if - else
+         } catch (CoreException e) {
+            DesignPatternPlugin.log(e);
+            loaded = false;
+         }  // try - catch
+      }  // if
+
+      if (!loaded) index.build();
+      return index;
+   }
+
+   /**
+    * Stops listening to resource changes and saves the index.
+    */
+   public void stop() {
+      ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+      if (fIndexFile != null) ResourcesPlugin.getWorkspace().removeSaveParticipant(DesignPatternPlugin.getDefault());
+      fUpdateJob.cancel();
+      if (sInstance == this) sInstance = null;
+      update();
+      save();
+   }
+
+   /**
+    * @return The started index, <code>null</code> if there is none, e.g. without workbench
+    */
+   public static PlaceholderIndex getInstance() {
+      return sInstance;
+   }
+
+   /**
+    * Returns all units containing placeholders which refer to the given role as they
+    * are indexed now, no file is read. Units changed since they were indexed are
+    * returned as well and scanned again in the background, removed units are left out.
+    * @param roleName Role name
+    * @return Full paths of the units
+    */
+   public Set<IPath> getUnits(String roleName) {
+
+      final Map<IPath, Long> stamps = new HashMap<IPath, Long>();
+      synchronized (this) {
+         final Set<IPath> units = fRoles.get(roleName);
+         if (units == null) return Collections.emptySet();
+         for (IPath path : units) {
+            stamps.put(path, Long.valueOf(fUnits.get(path).fStamp));
+         }  // for
+      }  // synchronized
+
+      // verify units changed while the index wasn't listening
+      final Set<IPath> result = new HashSet<IPath>();
+      final Set<IPath> changed = new HashSet<IPath>();
+      for (Map.Entry<IPath, Long> unit : stamps.entrySet()) {
+         final IFile file = getWorkspaceRoot().getFile(unit.getKey());
+         if (!file.exists()) {
+            changed.add(unit.getKey());
+            continue;
+         }  // if
+         if (file.getModificationStamp() != unit.getValue().longValue()) changed.add(unit.getKey());
+         result.add(unit.getKey());
+      }  // for
+
+      if (!changed.isEmpty()) {
+         synchronized (this) {
+            fPending.addAll(changed);
+         }  // synchronized
+         fUpdateJob.schedule(UPDATE_DELAY);
+      }  // if
+
+      return result;
+   }
+
+   /**
+    * Saves the index with the workspace and requests the changes until the next save
+    * for the next session.
+    * @see org.eclipse.core.resources.ISaveParticipant#saving(org.eclipse.core.resources.ISaveContext)
+    */
+   public void saving(ISaveContext context) {
+      if (context.getKind() == ISaveContext.PROJECT_SAVE) return;
+      update();
+      save();
+      context.needDelta();
+   }
+
+   /**
+    * @see org.eclipse.core.resources.ISaveParticipant#prepareToSave(org.eclipse.core.resources.ISaveContext)
+    */
+   public void prepareToSave(ISaveContext context) {
+      // nothing to prepare
+   }
+
+   /**
+    * @see org.eclipse.core.resources.ISaveParticipant#doneSaving(org.eclipse.core.resources.ISaveContext)
+    */
+   public void doneSaving(ISaveContext context) {
+      // the index file is replaced in place, no older versions to delete
+   }
+
+   /**
+    * @see org.eclipse.core.resources.ISaveParticipant#rollback(org.eclipse.core.resources.ISaveContext)
+    */
+   public void rollback(ISaveContext context) {
+      // the saved index is still valid, the workspace delta starts at an older state
+   }
+
+   /**
+    * Records added, changed and removed Java units, they are scanned in the background.
+    * @see org.eclipse.core.resources.IResourceChangeListener#resourceChanged(org.eclipse.core.resources.IResourceChangeEvent)
+    */
+   public void resourceChanged(IResourceChangeEvent event) {
+
+      final IResourceDelta delta = event.getDelta();
+      if (delta == null) return;
+
+      final Set<IPath> changed = new HashSet<IPath>();
+      try {
+         delta.accept(new IResourceDeltaVisitor() {
+            public boolean visit(IResourceDelta child) {
+               final IResource resource = child.getResource();
+               if (isJavaFile(resource)) {
+                  // markers and sync state don't change placeholders
+                  if (child.getKind() != IResourceDelta.CHANGED
+                        || (child.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0) {
+                     changed.add(resource.getFullPath());
+                  }  // if
+               }  // if
+               return true;
+            }
+         });
+      } catch (CoreException e) {
+         DesignPatternPlugin.log(e);
+      }  // try - catch
+
+      if (changed.isEmpty()) return;
+
+      synchronized (this) {
+         fPending.addAll(changed);
+      }  // synchronized
+      fUpdateJob.schedule(UPDATE_DELAY);
+   }
+
+}
@@ -0,0 +1,122 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+/**
+ * Finds the automatic code replacements of a source in a single forward pass. A
+ * replacement starts with the word in front of {@link CodeReplacer#REPLACE_START},
+ * i.e. the type or initial value used until the referenced role gets a member, and
+ * ends behind {@link CodeReplacer#REPLACE_END}. The text in between is the
+ * placeholder, a template string with wildcards.
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+/* package */ final class PlaceholderScanner {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final String START = CodeReplacer.REPLACE_START;
+
+   private static final String END = CodeReplacer.REPLACE_END;
+
+   private final String fSource;
+
+   private int fPosition;
+
+   private int fOffset = -1;
+
+   private int fLength;
+
+   private String fPlaceholder;
+
+   // ------------------------------------------------------------------------- Constructors
+
+   /**
+    * Constructor
+    * @param source Source to scan
+    */
+   /* package */ PlaceholderScanner(String source) {
+      fSource = source;
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   private static boolean isWordBoundary(char ch) {
+      return ch == ' ' || ch == '(' || ch == '\t' || ch == '\n' || ch == '\r';
+   }
+
+   // ------------------------------------------------------------------------- Package Methods
+
+   /**
+    * Moves to the next replacement. Markers without end are ignored.
+    * @return <code>false</code> if there are no more replacements
+    */
+   /* package */ boolean next() {
+
+      final int startPos = fSource.indexOf(START, fPosition);
+      if (startPos < 0) return false;
+
+      final int endPos = fSource.indexOf(END, startPos + START.length());
+      if (endPos < 0) {
+         fPosition = fSource.length();
+         return false;
+      }  // if
+
+      // go back to the previous word, but not into the last replacement
+      int firstPos = Math.max(startPos - 1, fPosition);
+      while (firstPos > fPosition && !isWordBoundary(fSource.charAt(firstPos - 1))) {
+         firstPos--;
+      }  // while
+
+      fOffset = firstPos;
+      fPosition = endPos + END.length();
+      fLength = fPosition - fOffset;
+      fPlaceholder = fSource.substring(startPos + START.length(), endPos).trim();
+      return true;
+   }
+
+   /**
+    * @return Start of the current replacement in the source
+    */
+   /* package */ int getOffset() {
+      return fOffset;
+   }
+
+   /**
+    * @return Length of the current replacement, including the word in front of it
+    */
+   /* package */ int getLength() {
+      return fLength;
+   }
+
+   /**
+    * @return Trimmed placeholder of the current replacement
+    */
+   /* package */ String getPlaceholder() {
+      return fPlaceholder;
+   }
+}
@@ -0,0 +1,384 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+import java.io.*;
+import java.util.*;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.MultiRule;
+import org.eclipse.jdt.core.*;
+
+import com.patternbox.commons.model.DocumentNode;
+import com.patternbox.eclipse.editor.DesignPatternPlugin;
+import com.patternbox.eclipse.model.*;
+
+/**
+ * Creates new design pattern role members from compiled code templates. The factory
+ * is stateless, all state of a single member creation is kept by its
+ * {@link GenerationContext}, so independent members can be created concurrently.
+ * Templates are taken from the {@link CodeTemplateCache}, so creating a member
+ * doesn't parse XML.
+ * 
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class RoleMemberFactory {
+
+   // ------------------------------------------------------------------------- Field Definitons
+   
+   private static final String[] NO_TYPES = new String[0];
+
+   // ------------------------------------------------------------------------- Private Methods
+   
+   /**
+    * Registers the requested role for automatic replacement in all single instance
+    * roles referenced by the code fragments of its template.
+    */
+   private static void registerReplaceNodes(GenerationContext context, RoleTemplate roleTemplate) {
+      
+      final String[] dependences = roleTemplate.getReplaceDependences();
+      for (int i = 0; i < dependences.length; i++) {
+         final RoleNode dependenceRole = context.getModel().getRole(dependences[i]);
+         if (dependenceRole != null && !dependenceRole.hasChildren()) {
+            dependenceRole.addReplaceNode(context.getRoleNode());
+         }
+      }  // for
+   }
+
+   /**
+    * Applies a compiled role template to the code generator of the given context.
+    * @param context Generation context
+    * @param roleTemplate Role template or <code>null</code>, if the template doesn't
+    *   define the requested role
+    */
+   private static void applyTemplate(GenerationContext context, RoleTemplate roleTemplate)
+      throws CoreException, InterruptedException {
+
+      final MemberCodeGenerator codeGenerator = context.getCodeGenerator();
+
+      // resolve foreach roles and their members once for the whole type
+      final ExpansionPlan plan = new ExpansionPlan(context.getModel(), roleTemplate);
+      codeGenerator.setExpansionPlan(plan);
+
+      if (roleTemplate == null) {
+         codeGenerator.startTypeCreation(context.getMonitor(), false, 0, NO_TYPES, null, NO_TYPES);
+         return;
+      }  // if
+
+      registerReplaceNodes(context, roleTemplate);
+
+      codeGenerator.startTypeCreation(
+         context.getMonitor(),
+         roleTemplate.isClass(),
+         roleTemplate.getModifiers(),
+         roleTemplate.getImports(),
+         roleTemplate.getSuperClass(),
+         roleTemplate.getInterfaces());
+
+      final MemberTemplate[] members = roleTemplate.getMembers();
+      for (int i = 0; i < members.length; i++) {
+         final MemberTemplate member = members[i];
+         final String foreach = member.getForEach();
+         final int iterationCount = plan.getIterationCount(foreach);
+         for (int index = 0; index < iterationCount; index++) {
+            if (member.isField()) {
+               codeGenerator.appendField(
+                  member.getModifiers(),
+                  member.getType(),
+                  member.getNamePattern(context.getMemberName()),
+                  member.getInitialValuePattern(),
+                  member.getCommentBlock(),
+                  index,
+                  foreach);
+            } else {
+               codeGenerator.appendMethod(
+                  member.getModifiers(),
+                  member.getType(),
+                  member.getNamePattern(context.getMemberName()),
+                  member.getParams(),
+                  member.getExceptions(),
+                  member.getCodePattern(),
+                  member.getCommentBlock(),
+                  index,
+                  foreach,
+                  member.isConstructor());
+            }  // if - else
+         }  // for
+      }  // for
+   }
+
+   /**
+    * Combines the package fragment roots of all requests to the scheduling rule of
+    * a batch generation.
+    */
+   private static ISchedulingRule getSchedulingRule(List<MemberRequest> requests) {
+      
+      ISchedulingRule rule = null;
+      for (MemberRequest request: requests) {
+         final IResource resource = request.getPackageFragmentRoot().getResource();
+         rule = MultiRule.combine(rule,
+            (resource != null) ? resource : ResourcesPlugin.getWorkspace().getRoot());
+      }  // for
+      return rule;
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+   
+   /**
+    * Returns all roles of an instance without members. Each role follows the roles it
+    * depends on, roles with unresolvable dependences are left out.
+    * @param model Design pattern instance
+    * @return Roles in generation order
+    */
+   public static List<RoleNode> getMissingRoles(DesignPatternInstance model) {
+      
+      final List<RoleNode> result = new ArrayList<RoleNode>();
+      final DocumentNode[] roleNodes = model.getRoot().getChildren();
+      boolean added = true;
+      while (added) {
+         added = false;
+         for (int i = 0; i < roleNodes.length; i++) {
+            final RoleNode roleNode = (RoleNode) roleNodes[i];
+            if (roleNode.hasChildren() || result.contains(roleNode)) continue;
+            boolean resolved = true;
+            final String[] roleList = roleNode.getDependenceRoles();
+            for (int j = 0; roleList != null && j < roleList.length; j++) {
+               final RoleNode dependence = model.getRole(roleList[j]);
+               resolved &= dependence != null
+                  && (dependence.hasChildren() || result.contains(dependence));
+            }  // for
+            if (resolved) {
+               result.add(roleNode);
+               added = true;
+            }
+         }  // for
+      }  // while
+      return result;
+   }
+
+   /**
+    * Converts a role name into the name of a new member type.
+    * @param roleName Name of a design pattern role
+    * @return Type name, might be empty
+    */
+   public static String toMemberName(String roleName) {
+      
+      final StringBuffer buf = new StringBuffer(roleName.length());
+      for (int i = 0; i < roleName.length(); i++) {
+         final char c = roleName.charAt(i);
+         if (buf.length() == 0 ? Character.isJavaIdentifierStart(c) : Character.isJavaIdentifierPart(c)) {
+            buf.append(c);
+         }
+      }  // for
+      return buf.toString();
+   }
+
+   /**
+    * Create a new design pattern participant instance. This method may be called
+    * concurrently for independent members.
+    * @param model Design pattern instance
+    * @param roleNode Participant role
+    * @param monitor Progress monitor, can be <code>null</code>
+    * @param memberName Name of the participant instance
+    * @param packFragRoot Location of the new java file  
+    * @param packFrag Package of the new java file
+    * @return Code generator holding the created type
+    */
+	public MemberCodeGenerator createRoleMember(
+      DesignPatternInstance model, 
+      RoleNode roleNode, 
+		IProgressMonitor monitor,
+		String memberName,
+		IPackageFragmentRoot packFragRoot, 
+      IPackageFragment packFrag)
+		throws CoreException {
+
+      return createRoleMember(new GenerationContext(model, roleNode, memberName, packFragRoot,
+         packFrag, monitor));
+   }
+
+   /**
+    * Create a new design pattern participant instance.
+    * @param context Generation context of this member, must not be shared
+    * @return Code generator holding the created type
+    */
+	public MemberCodeGenerator createRoleMember(GenerationContext context) throws CoreException {
+         
+      DesignPatternPlugin.debug("ENTER: createRoleMember");         
+
+      final IProgressMonitor monitor = context.getMonitor();
+      
+      try {
+         
+         try {
+            
+            CatalogEntry codeTemplate = context.getModel().getCodeTemplate();
+            if (codeTemplate == null) {
+               throw new FileNotFoundException("No code template found for design pattern " //$NON-NLS-1$
+                     + context.getModel().getModelID());
+            }
+             
+            DesignPatternPlugin.debug("CODE-TEMPLATE: " + codeTemplate.toString());         
+
+            // compiled once per template version, no XML parsing per member
+            final CodeTemplate template = CodeTemplateCache.getInstance().getCodeTemplate(codeTemplate);
+            
+            DesignPatternPlugin.debug("Code creation level 1 ...");
+            
+            applyTemplate(context, template.getRoleTemplate(context.getRoleNode().getName()));
+            
+			} catch (Exception e) {
+				IStatus s =
+					new Status(
+						IStatus.ERROR,
+						DesignPatternPlugin.getPluginId(),
+						IStatus.ERROR,
+						e.getMessage(),
+						e);
+            throw new CoreException(s);
+			}
+         
+         DesignPatternPlugin.debug("Code creation level 2 ...");
+            
+         context.getCodeGenerator().finishTypeCreation(monitor);
+            
+         DesignPatternPlugin.debug("Code creation level 3 ...");
+            
+      } finally {
+         context.getCodeGenerator().setExpansionPlan(null);
+         // leaves an existing Java file unchanged, if the generation failed
+         context.getCodeGenerator().discardTypeCreation();
+         monitor.done();
+      }
+
+      DesignPatternPlugin.debug("Code creation level 4 ...");
+            
+		return context.getCodeGenerator();
+	}
+
+   /**
+    * Creates several design pattern participant members in one workspace operation,
+    * so resource and Java element deltas are reported once for the whole batch. The
+    * members are created in the given order and appended to their roles right away,
+    * thus requests of dependent roles must follow the roles they depend on. No model
+    * events are fired, so the method may run in a forked operation; viewers showing
+    * the instance are refreshed by the caller afterwards.
+    * @param model Design pattern instance
+    * @param requests Members to create
+    * @param result Receives the code generators of the created members in request
+    *   order. If the operation fails or is canceled, it holds the members created so far.
+    * @param monitor Progress monitor, can be <code>null</code>
+    * @return Status of the operation, the status of the failed member creation if a
+    *   member couldn't be created
+    */
+   public IStatus createRoleMembers(
+      DesignPatternInstance model,
+      List<MemberRequest> requests,
+      List<MemberCodeGenerator> result,
+      IProgressMonitor monitor) {
+
+      try {
+         runBatch(model, requests, false, result, monitor);
+      } catch (CoreException e) {
+         return e.getStatus();
+      }
+      return Status.OK_STATUS;
+   }
+
+   /**
+    * Regenerates existing members of a design pattern instance in one workspace
+    * operation. Their Java files are replaced, the instance itself isn't changed.
+    * This method doesn't need a workbench and may be called concurrently for
+    * independent instances.
+    * @param model Design pattern instance
+    * @param requests Members to regenerate
+    * @param monitor Progress monitor, can be <code>null</code>
+    * @return Code generators of the regenerated members in request order
+    */
+   public List<MemberCodeGenerator> regenerateRoleMembers(
+      DesignPatternInstance model,
+      List<MemberRequest> requests,
+      IProgressMonitor monitor)
+      throws CoreException {
+
+      final List<MemberCodeGenerator> result = new ArrayList<MemberCodeGenerator>(requests.size());
+      runBatch(model, requests, true, result, monitor);
+      return result;
+   }
+
+   /**
+    * Runs a batch generation within one workspace operation.
+    * @param regenerate <code>true</code> to replace the Java files of existing members,
+    *   <code>false</code> to create new members
+    * @param result Receives the code generators of the members processed so far
+    */
+   private void runBatch(
+      final DesignPatternInstance model,
+      final List<MemberRequest> requests,
+      final boolean regenerate,
+      final List<MemberCodeGenerator> result,
+      IProgressMonitor monitor)
+      throws CoreException {
+
+      if (requests.isEmpty()) return;
+
+      final IWorkspaceRunnable operation = new IWorkspaceRunnable() {
+
+         public void run(IProgressMonitor pm) throws CoreException {
+            
+            pm.beginTask("Create members", requests.size()); //$NON-NLS-1$
+            try {
+               for (MemberRequest request: requests) {
+                  if (pm.isCanceled()) break;
+                  pm.subTask(request.toString());
+                  final GenerationContext context = new GenerationContext(
+                     model, 
+                     request.getRoleNode(), 
+                     request.getMemberName(),
+                     request.getPackageFragmentRoot(), 
+                     request.getPackageFragment(), 
+                     new SubProgressMonitor(pm, 1));
+                  context.getCodeGenerator().setOverwrite(regenerate);
+                  final MemberCodeGenerator codeGenerator = createRoleMember(context);
+                  if (!regenerate) {
+                     // following requests may refer to this member
+                     new MemberNode(request.getRoleNode(), codeGenerator.getCreatedType());
+                  }
+                  result.add(codeGenerator);
+               }  // for
+            } finally {
+               pm.done();
+            }
+         }
+      };
+      
+      JavaCore.run(operation, getSchedulingRule(requests), monitor);
+   }
+   
+}
@@ -0,0 +1,119 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+/**
+ * Compiled code template of a single design pattern role, i.e. type declaration and
+ * member definitions in template order.
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class RoleTemplate {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private final String fRoleName;
+   private final boolean fIsClass;
+   private final int fModifiers;
+   private final String[] fImports;
+   private final String fSuperClass;
+   private final String[] fInterfaces;
+   private final MemberTemplate[] fMembers;
+   private final String[] fReplaceDependences;
+
+   // ------------------------------------------------------------------------- Constructors
+
+   /**
+    * Constructor
+    * @param roleName Role name
+    * @param isClass <code>true</code> for classes, <code>false</code> for interfaces
+    * @param modifiers Type modifier flags
+    * @param imports Imported types
+    * @param superClass Super class, can be <code>null</code>
+    * @param interfaces Implemented interfaces
+    * @param members Member definitions in template order
+    * @param replaceDependences Names of all roles referenced by replace elements
+    */
+   public RoleTemplate(String roleName, boolean isClass, int modifiers, String[] imports,
+         String superClass, String[] interfaces, MemberTemplate[] members, String[] replaceDependences) {
+      fRoleName = roleName;
+      fIsClass = isClass;
+      fModifiers = modifiers;
+      fImports = imports;
+      fSuperClass = superClass;
+      fInterfaces = interfaces;
+      fMembers = members;
+      fReplaceDependences = replaceDependences;
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   public String getRoleName() {
+      return fRoleName;
+   }
+
+   public boolean isClass() {
+      return fIsClass;
+   }
+
+   public int getModifiers() {
+      return fModifiers;
+   }
+
+   /**
+    * @return Copy of the imported types
+    */
+   public String[] getImports() {
+      return fImports.clone();
+   }
+
+   public String getSuperClass() {
+      return fSuperClass;
+   }
+
+   /**
+    * @return Copy of the implemented interfaces
+    */
+   public String[] getInterfaces() {
+      return fInterfaces.clone();
+   }
+
+   /**
+    * @return Copy of the member definitions in template order
+    */
+   public MemberTemplate[] getMembers() {
+      return fMembers.clone();
+   }
+
+   /**
+    * @return Copy of the names of all roles referenced by replace elements
+    */
+   public String[] getReplaceDependences() {
+      return fReplaceDependences.clone();
+   }
+
+}
@@ -0,0 +1,160 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.codegen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Template string compiled into literal segments and <code>$Role$</code> references.
+ * Compiling splits the string like the former <code>StringTokenizer</code> on
+ * <code>$</code>, so a template string is scanned only once, no matter how many
+ * members and foreach iterations it is substituted for.
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+/* package */ final class WildcardPattern {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final char DELI = '$';
+
+   /** Pattern of <code>null</code> and empty strings */
+   /* package */ static final WildcardPattern EMPTY = new WildcardPattern("", new String[0], new boolean[0]);
+
+   private final String fSource;
+   private final String[] fSegments;
+   private final boolean[] fRoleReferences;
+   private final boolean fHasRoleReferences;
+
+   // ------------------------------------------------------------------------- Constructors
+
+   private WildcardPattern(String source, String[] segments, boolean[] roleReferences) {
+      fSource = source;
+      fSegments = segments;
+      fRoleReferences = roleReferences;
+      boolean hasRoleReferences = false;
+      for (int i = 0; i < roleReferences.length; i++) {
+         hasRoleReferences |= roleReferences[i];
+      }  // for
+      fHasRoleReferences = hasRoleReferences;
+   }
+
+   // ------------------------------------------------------------------------- Package Methods
+
+   /**
+    * Compiles a template string.
+    * @param input Template string, can be <code>null</code>
+    * @return Compiled pattern
+    */
+   /* package */ static WildcardPattern compile(String input) {
+
+      if (input == null || input.length() == 0) return EMPTY;
+
+      final List<String> segments = new ArrayList<String>();
+      final List<Boolean> roleReferences = new ArrayList<Boolean>();
+      final StringBuffer literal = new StringBuffer();
+      boolean inWildcard = false;
+      int start = 0;
+
+      while (start <= input.length()) {
+         int end = input.indexOf(DELI, start);
+         if (end < 0) end = input.length();
+         // empty tokens between adjacent delimiters are skipped
+         if (end > start) {
+            final String token = input.substring(start, end);
+            if (inWildcard) {
+               if (literal.length() > 0) {
+                  segments.add(literal.toString());
+                  roleReferences.add(Boolean.FALSE);
+                  literal.setLength(0);
+               }
+               segments.add(token);
+               roleReferences.add(Boolean.TRUE);
+            } else {
+               literal.append(token);
+            }  // if - else
+         }  // if
+         inWildcard = !inWildcard;
+         start = end + 1;
+      }  // while
+
+      if (literal.length() > 0) {
+         segments.add(literal.toString());
+         roleReferences.add(Boolean.FALSE);
+      }
+
+      final boolean[] flags = new boolean[roleReferences.size()];
+      for (int i = 0; i < flags.length; i++) {
+         flags[i] = roleReferences.get(i).booleanValue();
+      }  // for
+
+      return new WildcardPattern(input, segments.toArray(new String[segments.size()]), flags);
+   }
+
+   /**
+    * @return Number of segments
+    */
+   /* package */ int size() {
+      return fSegments.length;
+   }
+
+   /**
+    * @param index Segment index
+    * @return Literal text or role name of the segment
+    */
+   /* package */ String getSegment(int index) {
+      return fSegments[index];
+   }
+
+   /**
+    * @param index Segment index
+    * @return <code>true</code>, if the segment references a role
+    */
+   /* package */ boolean isRoleReference(int index) {
+      return fRoleReferences[index];
+   }
+
+   /**
+    * @return <code>true</code>, if the pattern contains at least one role reference
+    */
+   /* package */ boolean hasRoleReferences() {
+      return fHasRoleReferences;
+   }
+
+   /* package */ boolean isEmpty() {
+      return fSegments.length == 0;
+   }
+
+   /**
+    * @return Template string without substitution
+    */
+   public String toString() {
+      return fSource;
+   }
+
+}
@@ -0,0 +1,135 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.editor;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.Platform;
+import org.osgi.framework.Bundle;
+
+import com.patternbox.eclipse.model.ArchiveCatalogSource;
+import com.patternbox.eclipse.model.DirectoryCatalogSource;
+import com.patternbox.eclipse.model.ICatalogSource;
+
+/**
+ * Collects the catalog sources contributed by the <code>catalogSources</code> extension
+ * point. Contributed folders and archives are resolved relative to the contributing
+ * plug-in, archives are read in place.
+ * 
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class CatalogSourceRegistry {
+
+	private final static String EXTENSION_POINT = "catalogSources"; //$NON-NLS-1$
+
+	private final static String ELEMENT_SOURCE = "source"; //$NON-NLS-1$
+
+	private final static String ATTR_ID = "id"; //$NON-NLS-1$
+
+	private final static String ATTR_PATH = "path"; //$NON-NLS-1$
+
+	private final static String ATTR_PRIORITY = "priority"; //$NON-NLS-1$
+
+	private CatalogSourceRegistry() {
+		// static helper
+	}
+
+	/**
+	 * Returns all catalog sources, starting with the catalog of this plugin.
+	 * 
+	 * @param pluginPath Installation path of this plugin
+	 * @return Catalog sources
+	 */
+	public static ICatalogSource[] getCatalogSources(String pluginPath) {
+		List<ICatalogSource> result = new ArrayList<ICatalogSource>();
+		result.add(new DirectoryCatalogSource(new File(pluginPath), ICatalogSource.BUILTIN_SOURCE, 0));
+
+		IConfigurationElement[] elements = Platform.getExtensionRegistry().getConfigurationElementsFor(
+				DesignPatternPlugin.getPluginId(), EXTENSION_POINT);
+		for (int i = 0; i < elements.length; i++) {
+			if (!ELEMENT_SOURCE.equals(elements[i].getName())) continue;
+			try {
+				ICatalogSource source = createSource(elements[i]);
+				if (source != null) result.add(source);
+			} catch (IOException e) {
+				DesignPatternPlugin.logException(e);
+			} catch (NumberFormatException e) {
+				DesignPatternPlugin.logErrorMessage("Invalid priority of catalog source " //$NON-NLS-1$
+						+ elements[i].getAttribute(ATTR_ID) + ": " + e.getMessage()); //$NON-NLS-1$
+			}
+		}
+
+		return result.toArray(new ICatalogSource[result.size()]);
+	}
+
+	private static ICatalogSource createSource(IConfigurationElement element) throws IOException {
+		String id = element.getAttribute(ATTR_ID);
+		String path = element.getAttribute(ATTR_PATH);
+		if (path == null) path = "/"; //$NON-NLS-1$
+		String priorityValue = element.getAttribute(ATTR_PRIORITY);
+		int priority = (priorityValue != null) ? Integer.parseInt(priorityValue.trim()) : 0;
+
+		Bundle bundle = Platform.getBundle(element.getContributor().getName());
+		URL rootURL = FileLocator.resolve(bundle.getEntry("/")); //$NON-NLS-1$
+
+		if ("file".equals(rootURL.getProtocol())) { //$NON-NLS-1$
+			// unpacked plug-in, the catalog is a folder or an archive
+			File location = new File(rootURL.getFile(), path);
+			if (location.isFile()) {
+				return new ArchiveCatalogSource(location, null, id, priority);
+			}
+			return new DirectoryCatalogSource(location, id, priority);
+		}
+
+		if ("jar".equals(rootURL.getProtocol())) { //$NON-NLS-1$
+			// plug-in jar, the catalog is a folder within it
+			String spec = rootURL.getFile();
+			File archive = new File(new URL(spec.substring(0, spec.indexOf("!/"))).getFile()); //$NON-NLS-1$
+			if (isArchive(path)) {
+				DesignPatternPlugin.logErrorMessage("Catalog source " + id //$NON-NLS-1$
+						+ ": archives nested in a plug-in jar are not supported"); //$NON-NLS-1$
+				return null;
+			}
+			return new ArchiveCatalogSource(archive, path, id, priority);
+		}
+
+		DesignPatternPlugin.logErrorMessage("Catalog source " + id + ": unsupported location " + rootURL); //$NON-NLS-1$ //$NON-NLS-2$
+		return null;
+	}
+
+	private static boolean isArchive(String path) {
+		String name = path.toLowerCase();
+		return name.endsWith(".zip") || name.endsWith(".jar"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+}
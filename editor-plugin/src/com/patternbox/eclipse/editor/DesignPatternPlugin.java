@@ -36,10 +36,14 @@ import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.jface.viewers.LabelProvider;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.IWorkbenchPage;
@@ -47,7 +51,11 @@ import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
+import com.patternbox.commons.xml.XmlParserService;
+import com.patternbox.eclipse.codegen.PlaceholderIndex;
+import com.patternbox.eclipse.model.CatalogWatcher;
 import com.patternbox.eclipse.model.DesignPatternPool;
+import com.patternbox.eclipse.model.ICatalogSource;
 
 /**
  * Design pattern plugin manifest class
@@ -62,6 +70,18 @@ public class DesignPatternPlugin extends AbstractUIPlugin {
 
 	private final static String PLUGIN_ID = "com.patternbox.eclipse.editor"; //$NON-NLS-1$
 
+	private final static String CATALOG_SNAPSHOT = "catalog.snapshot"; //$NON-NLS-1$
+
+	private final static String PLACEHOLDER_INDEX = "placeholder.index"; //$NON-NLS-1$
+
+	// Tracing options, see .options file
+	public final static String TRACE_DEBUG = "/debug"; //$NON-NLS-1$
+
+	public final static String TRACE_CATALOG = "/debug/catalog"; //$NON-NLS-1$
+
+	private final static String[] PLUGIN_DTDS = new String[] {
+		"pattern.mf/manifest.dtd", "template.java/templates.dtd"}; //$NON-NLS-1$ //$NON-NLS-2$
+
 	public final static String AUTHOR_NAME = "Dirk Ehms"; //$NON-NLS-1$
 
 	public final static String AUTHOR_WEBSITE = "www.patternbox.com"; //$NON-NLS-1$
@@ -75,6 +95,17 @@ public class DesignPatternPlugin extends AbstractUIPlugin {
 	// Shared image provider
 	private final LabelProvider fImageProvider;
 
+	// Watcher of the manifests and code templates of all catalog sources
+	private CatalogWatcher fCatalogWatcher;
+
+	// Units waiting for automatic code replacement
+	private PlaceholderIndex fPlaceholderIndex;
+
+	// Loads the catalog and starts the watchers after activation
+	private Job fStartupJob;
+
+	private boolean fStopped;
+
 	public DesignPatternPlugin() {
 		sPluginInstance = this;
 		fImageProvider = new ImageProvider();
@@ -159,7 +190,28 @@ public class DesignPatternPlugin extends AbstractUIPlugin {
 	}
 
 	public static void debug(String message) {
-		// log(new Status(IStatus.INFO, getPluginId(), IStatus.INFO, message, null));
+		if (isTracing(TRACE_DEBUG)) {
+			trace(message);
+		}
+	}
+
+	/**
+	 * Checks whether a tracing option of this plugin is enabled.
+	 * @param option Tracing option, e.g. {@link #TRACE_CATALOG}
+	 * @return <code>true</code>, if the plugin runs in debug mode and the option is set
+	 */
+	public static boolean isTracing(String option) {
+		final DesignPatternPlugin plugin = getDefault();
+		return plugin != null && plugin.isDebugging()
+				&& "true".equalsIgnoreCase(Platform.getDebugOption(PLUGIN_ID + option)); //$NON-NLS-1$
+	}
+
+	public static void trace(String message) {
+		System.out.println("[" + PLUGIN_ID + "] " + message); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public static void logWarning(String message) {
+		log(new Status(IStatus.WARNING, getPluginId(), IStatus.WARNING, message, null));
 	}
 
 	public static void logErrorMessage(String message) {
@@ -202,13 +254,77 @@ public class DesignPatternPlugin extends AbstractUIPlugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		sPluginInstance = this;
+		// activation must not wait for any I/O, everything else is done in the background
+		fStartupJob = new Job("Loading design pattern catalog") { //$NON-NLS-1$
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					startServices();
+				} finally {
+					// callers waiting for the catalog get an empty one, if the load failed
+					DesignPatternPool.releaseCatalog();
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		// the job may be canceled by stop() before it runs
+		fStartupJob.addJobChangeListener(new JobChangeAdapter() {
+			@Override
+			public void done(IJobChangeEvent event) {
+				DesignPatternPool.releaseCatalog();
+			}
+		});
+		fStartupJob.setSystem(true);
+		fStartupJob.setPriority(Job.SHORT);
+		fStartupJob.schedule();
+	}
+
+	/**
+	 * Loads the catalog and starts the watchers, called by the startup job.
+	 */
+	private void startServices() {
 		String pluginPath = getPluginPath();
 		log("Patternbox-Plugin-Path: " + pluginPath);
-		DesignPatternPool.initialize(pluginPath);
+		// read the DTDs once, all manifests and code templates are validated against them
+		for (int i = 0; i < PLUGIN_DTDS.length; i++) {
+			try {
+				XmlParserService.getInstance().preloadDTD(new File(pluginPath, PLUGIN_DTDS[i]));
+			} catch (IOException e) {
+				log(e);
+			}
+		}
+		File snapshotFile = getStateLocation().append(CATALOG_SNAPSHOT).toFile();
+		// the catalog of this plugin plus all contributed catalogs
+		ICatalogSource[] sources = CatalogSourceRegistry.getCatalogSources(pluginPath);
+		// models requested meanwhile are loaded directly from their sources
+		DesignPatternPool.initialize(sources, snapshotFile, true);
+		synchronized (this) {
+			if (fStopped) return;
+			// pick up edited manifests and code templates without restart
+			fCatalogWatcher = new CatalogWatcher(sources);
+			fCatalogWatcher.start();
+			// placeholders of earlier sessions are taken from the persisted index, the
+			// workspace is only scanned in the background if there is no index yet
+			fPlaceholderIndex = PlaceholderIndex.start(getStateLocation().append(PLACEHOLDER_INDEX).toFile());
+		}
 	}
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		synchronized (this) {
+			fStopped = true;
+		}
+		fStartupJob.cancel();
+		// a running catalog load can't be interrupted, wait for it
+		fStartupJob.join();
+		if (fPlaceholderIndex != null) {
+			fPlaceholderIndex.stop();
+			fPlaceholderIndex = null;
+		}
+		if (fCatalogWatcher != null) {
+			fCatalogWatcher.stop();
+			fCatalogWatcher = null;
+		}
 		sPluginInstance = null;
 		super.stop(context);
 	}
@@ -25,13 +25,27 @@ SUCH DAMAGE.
  ******************************************************************************/
 package com.patternbox.eclipse.editor.form;
 
-import java.util.Iterator;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.ui.JavaUI;
+import org.eclipse.jface.dialogs.ErrorDialog;
 import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.dialogs.ProgressMonitorDialog;
+import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.jface.viewers.TreeViewer;
@@ -49,17 +63,23 @@ import org.eclipse.swt.custom.BusyIndicator;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IFileEditorInput;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.PartInitException;
 import org.eclipse.ui.actions.ActionFactory;
+import org.eclipse.ui.dialogs.SelectionDialog;
 import org.eclipse.ui.forms.widgets.FormToolkit;
 import org.eclipse.ui.forms.widgets.Section;
 import org.eclipse.ui.ide.IDE;
 
 import com.patternbox.commons.model.DocumentNode;
 import com.patternbox.commons.model.TreeContentProviderImpl;
+import com.patternbox.eclipse.codegen.AutoReplaceJob;
 import com.patternbox.eclipse.codegen.MemberCodeGenerator;
+import com.patternbox.eclipse.codegen.MemberRequest;
+import com.patternbox.eclipse.codegen.RoleMemberFactory;
 import com.patternbox.eclipse.editor.DesignPatternPlugin;
 import com.patternbox.eclipse.model.DesignPatternInstance;
 import com.patternbox.eclipse.model.DesignPatternPool;
@@ -83,19 +103,35 @@ public class SectPatternParticipants extends TreeSection implements IModelChange
 
 	private static final String ACTION_BROWSE = "PatternEditor.ParticipantSect.browse";
 
+	private static final String ACTION_GENERATE = "PatternEditor.ParticipantSect.generate";
+
 	// private static final String ACTION_HELP = "PatternEditor.ParticipantSect.help";
 	private static final String REMOVE_DLG_TITLE = "PatternEditor.Question.Message.title";
 
 	private static final String REMOVE_DLG_MSG = "PatternEditor.Question.Message.remove";
 
+	private static final String PACKAGE_DLG_TITLE = "PatternEditor.Generate.Package.title";
+
+	private static final String PACKAGE_DLG_MSG = "PatternEditor.Generate.Package.message";
+
+	private static final String GENERATE_ERR_TITLE = "PatternEditor.Generate.Error.title";
+
+	private static final String GENERATE_ERR_MSG = "PatternEditor.Generate.Error.source";
+
+	private static final String GENERATE_FAILED_MSG = "PatternEditor.Generate.Error.failed";
+
 	private static final int ACTION_INSERT_IDX = 0;
 
 	private static final int ACTION_REMOVE_IDX = 1;
 
 	private static final int ACTION_BROWSE_IDX = 3;
 
+	private static final int ACTION_GENERATE_IDX = 4;
+
 	private static final int ACTION_HELP_IDX = 5;
 
+	private static final RoleMemberFactory sRoleMemberFactory = new RoleMemberFactory();
+
 	private TreeViewer fParticipantTree;
 
 	private final Display fDisplay;
@@ -128,7 +164,8 @@ public class SectPatternParticipants extends TreeSection implements IModelChange
 	private static String[] getButtonLabels() {
 		return new String[] { DesignPatternPlugin.getResourceString(ACTION_INSERT),
 				DesignPatternPlugin.getResourceString(ACTION_REMOVE), null,
-				DesignPatternPlugin.getResourceString(ACTION_BROWSE) };
+				DesignPatternPlugin.getResourceString(ACTION_BROWSE),
+				DesignPatternPlugin.getResourceString(ACTION_GENERATE) };
 	}
 
 	private DesignPatternInstance getDesignPatternInstance() {
@@ -163,6 +200,58 @@ public class SectPatternParticipants extends TreeSection implements IModelChange
 		getTreePart().setButtonEnabled(ACTION_INSERT_IDX, insertBtnEnabled);
 		getTreePart().setButtonEnabled(ACTION_REMOVE_IDX, memberNodeSelected);
 		getTreePart().setButtonEnabled(ACTION_BROWSE_IDX, browseBtnEnabled);
+		getTreePart().setButtonEnabled(ACTION_GENERATE_IDX, !getGenerationRoles().isEmpty());
+	}
+
+	/**
+	 * Returns the roles to generate a member for: the selected role or, if no role is
+	 * selected, all roles without members. Each role follows the roles it depends on,
+	 * roles with unresolvable dependences are left out.
+	 * 
+	 * @return Roles in generation order
+	 */
+	private List<RoleNode> getGenerationRoles() {
+		final List<RoleNode> result = new ArrayList<RoleNode>();
+		if (fActiveNode instanceof RoleNode) {
+			if (((RoleNode) fActiveNode).isActive()) {
+				result.add((RoleNode) fActiveNode);
+			}
+			return result;
+		} // if
+		return RoleMemberFactory.getMissingRoles(getDesignPatternInstance());
+	}
+
+	/**
+	 * Asks for the source package of generated members.
+	 * 
+	 * @return Selected package or <code>null</code>, if the selection was canceled
+	 */
+	private IPackageFragment selectPackage() {
+		final Shell shell = DesignPatternPlugin.getActiveWorkbenchShell();
+		final IEditorInput input = getPage().getEditorInput();
+		if (!(input instanceof IFileEditorInput)) {
+			return null;
+		}
+		final IFile file = ((IFileEditorInput) input).getFile();
+		try {
+			final SelectionDialog dialog = JavaUI.createPackageDialog(shell, JavaCore.create(file
+					.getProject()), 0);
+			dialog.setTitle(DesignPatternPlugin.getResourceString(PACKAGE_DLG_TITLE));
+			dialog.setMessage(DesignPatternPlugin.getResourceString(PACKAGE_DLG_MSG));
+			if (dialog.open() != Window.OK) {
+				return null;
+			}
+			final IPackageFragment packFrag = (IPackageFragment) dialog.getResult()[0];
+			if (((IPackageFragmentRoot) packFrag.getParent()).getKind() != IPackageFragmentRoot.K_SOURCE) {
+				MessageDialog.openError(shell, DesignPatternPlugin.getResourceString(GENERATE_ERR_TITLE),
+						DesignPatternPlugin.getFormattedMessage(GENERATE_ERR_MSG, packFrag.getElementName()));
+				return null;
+			}
+			return packFrag;
+		} catch (JavaModelException e) {
+			DesignPatternPlugin.log(e);
+			return null;
+		} // try - catch
 	}
 
 	/**
@@ -225,6 +314,9 @@ public class SectPatternParticipants extends TreeSection implements IModelChange
 		case ACTION_BROWSE_IDX:
 			handleBrowse();
 			break;
+		case ACTION_GENERATE_IDX:
+			handleGenerate();
+			break;
 		case ACTION_HELP_IDX:
 			handleHelp();
 			break;
@@ -265,34 +357,16 @@ public class SectPatternParticipants extends TreeSection implements IModelChange
 		fParticipantTree.setSelection(new StructuredSelection(object), true);
 	}
 
-	private void handleAutoReplacement(final MemberCodeGenerator codeGenerator) {
-		// check whether automatic replacement is needed
-		final java.util.List<MemberNode> replaceList = codeGenerator.getAutomaticReplaceList();
-		// get current active page
-		final IWorkbenchPage activePage = DesignPatternPlugin.getActivePage();
-		// if (!replaceList.isEmpty() && activePage != null && fDisplay != null) {
-		if (activePage != null && fDisplay != null) {
-			// declare local variables
-			IType member;
-			ICompilationUnit cu;
-			IFile resource;
-			final Iterator<MemberNode> it = replaceList.iterator();
-			while (it.hasNext()) {
-				member = it.next().getMemberType();
-				// cu = JavaModelUtil.toOriginal(member.getCompilationUnit()); V3.2
-				cu = ((IMember) member.getPrimaryElement()).getCompilationUnit();
-				resource = (IFile) cu.getResource();
-				try {
-					if (resource != null) {
-						IDE.openEditor(activePage, resource, true);
-					}
-				} catch (PartInitException e) {
-					DesignPatternPlugin.log(e);
-				} // try - catch
-			} // while
-			// replace all member nodes of the replace collection
-			codeGenerator.handleAutomaticReplace(replaceList);
-		} // if
+	/**
+	 * Replaces the placeholders of dependent members in the background, no editors
+	 * are opened.
+	 * @param codeGenerators Code generators of the new members, in creation order
+	 */
+	private void handleAutoReplacement(final List<MemberCodeGenerator> codeGenerators) {
+		final AutoReplaceJob job = new AutoReplaceJob(codeGenerators);
+		if (job.hasWork()) {
+			job.schedule();
+		}
 	}
 
 	/**
@@ -318,7 +392,7 @@ public class SectPatternParticipants extends TreeSection implements IModelChange
 					// append new member node
 					MemberNode member = new MemberNode((RoleNode) fActiveNode, codeGen.getCreatedType());
 					// handle automatic code replacement
-					handleAutoReplacement(codeGen);
+					handleAutoReplacement(Collections.singletonList(codeGen));
 					// show new member node
 					fParticipantTree.refresh(fActiveNode);
 					// select new member node
@@ -332,6 +406,76 @@ public class SectPatternParticipants extends TreeSection implements IModelChange
 		});
 	}
 
+	/**
+	 * Handle action: generate a member for the selected role or for all roles without
+	 * members. Members are named after their roles and created within one workspace
+	 * operation, existing types are never overwritten. The batch runs forked and can be
+	 * canceled; the tree is refreshed on the UI thread once it has finished.
+	 */
+	void handleGenerate() {
+		final List<RoleNode> roles = getGenerationRoles();
+		if (roles.isEmpty()) {
+			return;
+		}
+		final IPackageFragment packFrag = selectPackage();
+		if (packFrag == null) {
+			return;
+		}
+		final IPackageFragmentRoot packFragRoot = (IPackageFragmentRoot) packFrag.getParent();
+		final List<MemberRequest> requests = new ArrayList<MemberRequest>(roles.size());
+		for (RoleNode roleNode : roles) {
+			final String memberName = RoleMemberFactory.toMemberName(roleNode.getName());
+			if (memberName.length() > 0
+					&& !packFrag.getCompilationUnit(memberName + ".java").exists()) { //$NON-NLS-1$
+				requests.add(new MemberRequest(roleNode, memberName, packFragRoot, packFrag));
+			}
+		} // for
+		if (requests.isEmpty()) {
+			return;
+		}
+		// the editor must not be accessed from the forked operation
+		final DesignPatternInstance model = getDesignPatternInstance();
+		final List<MemberCodeGenerator> codeGens = Collections
+				.synchronizedList(new ArrayList<MemberCodeGenerator>());
+		final IStatus[] status = new IStatus[] { Status.OK_STATUS };
+		try {
+			new ProgressMonitorDialog(DesignPatternPlugin.getActiveWorkbenchShell()).run(true, true,
+					new IRunnableWithProgress() {
+
+						@Override
+						public void run(IProgressMonitor monitor) {
+							// members created before a failure are kept in codeGens. Their
+							// nodes are appended to the model by the batch because following
+							// requests refer to them; the tree isn't refreshed until below.
+							status[0] = sRoleMemberFactory.createRoleMembers(model, requests,
+									codeGens, monitor);
+						} // func run()
+					});
+		} catch (InvocationTargetException e) {
+			DesignPatternPlugin.log(e);
+		} catch (InterruptedException e) {
+			// canceled, keep members created so far
+		} // try - catch
+		if (!status[0].isOK()) {
+			DesignPatternPlugin.log(status[0]);
+			ErrorDialog.openError(DesignPatternPlugin.getActiveWorkbenchShell(),
+					DesignPatternPlugin.getResourceString(GENERATE_ERR_TITLE),
+					DesignPatternPlugin.getResourceString(GENERATE_FAILED_MSG), status[0]);
+		}
+		if (codeGens.isEmpty()) {
+			return;
+		}
+		// handle automatic code replacement of all new members at once
+		handleAutoReplacement(new ArrayList<MemberCodeGenerator>(codeGens));
+		// show new member nodes
+		fParticipantTree.refresh();
+		fParticipantTree.expandAll();
+		// mark underlying model as dirty
+		model.setDirty(true);
+		// fire model is changed
+		getPage().getEditor().editorDirtyStateChanged();
+	}
+
 	/**
 	 * Handle action: delete selected role node
 	 */
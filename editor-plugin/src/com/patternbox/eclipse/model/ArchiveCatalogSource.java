@@ -0,0 +1,290 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.patternbox.commons.xml.XmlDocValidator;
+import com.patternbox.eclipse.editor.DesignPatternPlugin;
+
+/**
+ * Catalog source reading manifests and code templates directly from a zip or jar
+ * archive, without extracting it. The entry listing is cached until the archive
+ * itself changes. The contents of all listed entries are read on demand in a single
+ * pass over the archive, so a catalog scan doesn't open the archive per entry.
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class ArchiveCatalogSource implements ICatalogSource {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final String XML_EXTENSION = ".xml"; //$NON-NLS-1$
+
+   private final File fArchive;
+   private final String fManifestPath;
+   private final String fTemplatePath;
+   private final String fName;
+   private final int fPriority;
+
+   /**
+    * Cached listing, replaced as a whole when the archive changes
+    */
+   private volatile Listing fListing;
+
+   // ------------------------------------------------------------------------- Inner Classes
+
+   /**
+    * Entries of the archive at a certain modification stamp
+    */
+   private static class Listing {
+
+      private final long fStamp;
+      private final Map<String, CatalogEntry> fManifests = new HashMap<String, CatalogEntry>();
+      private final Map<String, CatalogEntry> fTemplates = new HashMap<String, CatalogEntry>();
+
+      /** Contents by entry path, may be reclaimed. Guarded by the listing. */
+      private SoftReference<Map<String, byte[]>> fContents;
+
+      Listing(long stamp) {
+         fStamp = stamp;
+      }
+   }
+
+   /**
+    * Catalog entry stored in the archive
+    */
+   private class ArchiveEntry extends CatalogEntry {
+
+      private final Listing fListing;
+      private final String fPath;
+      private final long fSize;
+      private final long fModified;
+
+      ArchiveEntry(Listing listing, String path, long size, long modified) {
+         super(ArchiveCatalogSource.this, path.substring(path.lastIndexOf('/') + 1));
+         fListing = listing;
+         fPath = path;
+         fSize = size;
+         fModified = modified;
+      }
+
+      public String getLocation() {
+         return fArchive.getAbsolutePath() + "!/" + fPath; //$NON-NLS-1$
+      }
+
+      public String getSystemId() {
+         return "jar:" + XmlDocValidator.getSystemURI(fArchive) + "!/" + fPath; //$NON-NLS-1$ //$NON-NLS-2$
+      }
+
+      public long getSize() {
+         return fSize;
+      }
+
+      public long getLastModified() {
+         return fModified;
+      }
+
+      public InputStream openStream() throws IOException {
+         final byte[] content = getContents(fListing).get(fPath);
+         if (content == null) {
+            throw new IOException("Entry " + fPath + " not found in " + fArchive); //$NON-NLS-1$ //$NON-NLS-2$
+         }  // if
+         return new ByteArrayInputStream(content);
+      }
+   }
+
+   // ------------------------------------------------------------------------- Constructors
+
+   /**
+    * Constructor
+    * @param archive Zip or jar archive
+    * @param rootPath Path of the folder within the archive, which contains the
+    *   <code>pattern.mf</code> and <code>template.java</code> folders
+    * @param name Name of the source
+    * @param priority Priority on conflicting model identifiers
+    */
+   public ArchiveCatalogSource(File archive, String rootPath, String name, int priority) {
+      String root = (rootPath == null) ? "" : rootPath.replace('\\', '/'); //$NON-NLS-1$
+      while (root.startsWith("/")) root = root.substring(1); //$NON-NLS-1$
+      if (root.length() > 0 && !root.endsWith("/")) root = root + '/'; //$NON-NLS-1$
+      fArchive = archive;
+      fManifestPath = root + MANIFEST_DIR;
+      fTemplatePath = root + TEMPLATE_DIR;
+      fName = name;
+      fPriority = priority;
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   private static byte[] readFully(InputStream inStream) throws IOException {
+      try {
+         final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+         final byte[] buffer = new byte[4096];
+         int count;
+         while ((count = inStream.read(buffer)) > 0) {
+            outStream.write(buffer, 0, count);
+         }  // while
+         return outStream.toByteArray();
+      } finally {
+         inStream.close();
+      }  // try - finally
+   }
+
+   /**
+    * Returns the contents of all entries of a listing. They are read in one pass and
+    * kept until memory gets low, concurrent callers wait for the same pass.
+    */
+   private Map<String, byte[]> getContents(Listing listing) throws IOException {
+
+      synchronized (listing) {
+         Map<String, byte[]> result = (listing.fContents != null) ? listing.fContents.get() : null;
+         if (result != null) return result;
+
+         result = new HashMap<String, byte[]>();
+         final List<CatalogEntry> entries = new ArrayList<CatalogEntry>(listing.fManifests.values());
+         entries.addAll(listing.fTemplates.values());
+         final ZipFile zipFile = new ZipFile(fArchive);
+         try {
+            for (CatalogEntry entry: entries) {
+               final String path = ((ArchiveEntry) entry).fPath;
+               final ZipEntry zipEntry = zipFile.getEntry(path);
+               if (zipEntry != null) result.put(path, readFully(zipFile.getInputStream(zipEntry)));
+            }  // for
+         } finally {
+            // the archive is closed right away, so it is never locked by the IDE
+            zipFile.close();
+         }  // try - finally
+
+         listing.fContents = new SoftReference<Map<String, byte[]>>(result);
+         return result;
+      }  // synchronized
+   }
+
+   /**
+    * Returns the current listing of the archive, the archive is only read again after
+    * it has been modified.
+    */
+   private Listing getListing() {
+
+      final long stamp = fArchive.lastModified() * 31 + fArchive.length();
+      Listing listing = fListing;
+      if (listing != null && listing.fStamp == stamp) return listing;
+
+      listing = new Listing(stamp);
+      try {
+         final ZipFile zipFile = new ZipFile(fArchive);
+         try {
+            for (Enumeration<? extends ZipEntry> en = zipFile.entries(); en.hasMoreElements();) {
+               final ZipEntry zipEntry = en.nextElement();
+               final String path = zipEntry.getName();
+               if (zipEntry.isDirectory() || !path.endsWith(XML_EXTENSION)) continue;
+               if (isChild(path, fManifestPath)) {
+                  final CatalogEntry entry = new ArchiveEntry(listing, path, zipEntry.getSize(), zipEntry.getTime());
+                  listing.fManifests.put(entry.getModelID(), entry);
+               } else if (isChild(path, fTemplatePath)) {
+                  final CatalogEntry entry = new ArchiveEntry(listing, path, zipEntry.getSize(), zipEntry.getTime());
+                  listing.fTemplates.put(entry.getModelID(), entry);
+               }  // if
+            }  // for
+         } finally {
+            zipFile.close();
+         }  // try - finally
+      } catch (IOException e) {
+         // missing or corrupt archive, the source is empty until it is fixed
+         DesignPatternPlugin.logWarning("Catalog archive " + fArchive + " can't be read: " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+      }  // try - catch
+
+      fListing = listing;
+      return listing;
+   }
+
+   /**
+    * @return <code>true</code> if the path denotes a file directly within the folder
+    */
+   private static boolean isChild(String path, String folder) {
+      return path.startsWith(folder) && path.indexOf('/', folder.length()) < 0;
+   }
+
+   private static CatalogEntry[] toArray(Map<String, CatalogEntry> entries) {
+      final List<CatalogEntry> result = new ArrayList<CatalogEntry>(entries.values());
+      return result.toArray(new CatalogEntry[result.size()]);
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   /**
+    * @return Archive file of this source
+    */
+   public File getArchive() {
+      return fArchive;
+   }
+
+   public String getName() {
+      return fName;
+   }
+
+   public int getPriority() {
+      return fPriority;
+   }
+
+   public CatalogEntry[] getManifests() {
+      return toArray(getListing().fManifests);
+   }
+
+   public CatalogEntry getManifest(String modelID) {
+      return getListing().fManifests.get(modelID);
+   }
+
+   public CatalogEntry[] getCodeTemplates() {
+      return toArray(getListing().fTemplates);
+   }
+
+   public CatalogEntry getCodeTemplate(String modelID) {
+      return getListing().fTemplates.get(modelID);
+   }
+
+   /**
+    * @see java.lang.Object#toString()
+    */
+   public String toString() {
+      return fName;
+   }
+
+}
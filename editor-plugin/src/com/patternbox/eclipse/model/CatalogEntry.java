@@ -0,0 +1,135 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A single XML document of a pattern catalog source, i.e. a manifest or a code template.
+ * Entries may be plain files or entries of an archive, so their content is only
+ * accessible by streams.
+ *
+ * @see ICatalogSource
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public abstract class CatalogEntry {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final String XML_EXTENSION = ".xml"; //$NON-NLS-1$
+
+   private final ICatalogSource fSource;
+
+   private final String fName;
+
+   // ------------------------------------------------------------------------- Constructors
+
+   /**
+    * Constructor
+    * @param source Catalog source containing this entry
+    * @param name File name of the entry, e.g. <code>singleton.xml</code>
+    */
+   protected CatalogEntry(ICatalogSource source, String name) {
+      fSource = source;
+      fName = name;
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   /**
+    * @return Catalog source containing this entry
+    */
+   public ICatalogSource getSource() {
+      return fSource;
+   }
+
+   /**
+    * @return File name of the entry
+    */
+   public String getName() {
+      return fName;
+   }
+
+   /**
+    * @return Design pattern identifier derived from the file name
+    */
+   public String getModelID() {
+      return fName.endsWith(XML_EXTENSION) 
+            ? fName.substring(0, fName.length() - XML_EXTENSION.length()) : fName;
+   }
+
+   /**
+    * @return Unique location of the entry, used as key for snapshots and caches
+    */
+   public abstract String getLocation();
+
+   /**
+    * @return System identifier used to resolve DTDs relative to the entry
+    */
+   public abstract String getSystemId();
+
+   /**
+    * @return Size of the entry in bytes
+    */
+   public abstract long getSize();
+
+   /**
+    * @return Modification time of the entry
+    */
+   public abstract long getLastModified();
+
+   /**
+    * Opens the content of the entry. The caller has to close the stream.
+    * @return Content of the entry
+    * @throws IOException Entry can't be read
+    */
+   public abstract InputStream openStream() throws IOException;
+
+   /**
+    * @see java.lang.Object#equals(java.lang.Object)
+    */
+   public boolean equals(Object obj) {
+      return (obj instanceof CatalogEntry) && getLocation().equals(((CatalogEntry) obj).getLocation());
+   }
+
+   /**
+    * @see java.lang.Object#hashCode()
+    */
+   public int hashCode() {
+      return getLocation().hashCode();
+   }
+
+   /**
+    * @see java.lang.Object#toString()
+    */
+   public String toString() {
+      return getLocation();
+   }
+
+}
@@ -0,0 +1,380 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import com.patternbox.eclipse.editor.DesignPatternPlugin;
+
+/**
+ * Persistent snapshot of all parsed design pattern manifests. Each entry is
+ * keyed by the location of its manifest and validated by size and modification time.
+ * The content hash is only computed if those differ, e.g. after a checkout, so
+ * unchanged manifests are neither read nor parsed again on startup. Manifests of all
+ * catalog sources share one snapshot.
+ *
+ * @see DesignPatternPool#initialize(ICatalogSource[], File, boolean)
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class CatalogSnapshot {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final int MAGIC = 0x50424353; // "PBCS"
+   private static final int FORMAT_VERSION = 4;
+
+   /** Upper bound of lengths read from a snapshot, larger values mean corrupt data */
+   private static final int MAX_LENGTH = 1 << 24;
+
+   private static final Charset UTF8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+   private final File fSnapshotFile;
+   private final Map<String, Entry> fEntries = new ConcurrentHashMap<String, Entry>();
+   private volatile boolean fDirty;
+
+   // ------------------------------------------------------------------------- Inner Classes
+
+   /**
+    * Snapshot entry of a single manifest
+    */
+   private static class Entry {
+
+      private final long fSize;
+      private final long fModified;
+      private final long fHash;
+      private final DesignPatternModel fModel;
+
+      public Entry(long size, long modified, long hash, DesignPatternModel model) {
+         fSize = size;
+         fModified = modified;
+         fHash = hash;
+         fModel = model;
+      }
+
+      public boolean matches(CatalogEntry manifestEntry) {
+         return fSize == manifestEntry.getSize() && fModified == manifestEntry.getLastModified()
+               && fModified > 0;
+      }
+
+      public boolean matches(CatalogEntry manifestEntry, long hash) {
+         return fSize == manifestEntry.getSize() && fHash == hash;
+      }
+
+   }
+
+   // ------------------------------------------------------------------------- Constructors
+
+   /**
+    * Constructor
+    * @param snapshotFile Location of the snapshot, can be <code>null</code> 
+    *   to disable persistence
+    */
+   private CatalogSnapshot(File snapshotFile) {
+      fSnapshotFile = snapshotFile;
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   private void read(DataInputStream in) throws IOException {
+
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+         // unknown format, the snapshot will be rebuilt
+         return;
+      }  // if
+
+      String key;
+      long size, modified, hash;
+
+      final int count = readLength(in);
+      for (int i = 0; i < count; i++) {
+         key = in.readUTF();
+         size = in.readLong();
+         modified = in.readLong();
+         hash = in.readLong();
+         fEntries.put(key, new Entry(size, modified, hash, DesignPatternModel.readFrom(in)));
+      }  // for
+
+   }
+
+   private void write(DataOutputStream out) throws IOException {
+
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(fEntries.size());
+
+      for (Map.Entry<String, Entry> entry : fEntries.entrySet()) {
+         out.writeUTF(entry.getKey());
+         out.writeLong(entry.getValue().fSize);
+         out.writeLong(entry.getValue().fModified);
+         out.writeLong(entry.getValue().fHash);
+         entry.getValue().fModel.writeTo(out);
+      }  // for
+
+   }
+
+   // ------------------------------------------------------------------------- Package Methods
+
+   /**
+    * Writes a string as length-prefixed UTF-8 bytes, unlike <code>writeUTF</code> it isn't
+    * limited to 64 KB, e.g. for long comments.
+    */
+   /* package */ static void writeString(DataOutputStream out, String value) throws IOException {
+      if (value == null) {
+         out.writeInt(-1);
+         return;
+      }  // if
+      final byte[] bytes = value.getBytes(UTF8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+   }
+
+   /**
+    * Reads the length of a string or an array, <code>-1</code> stands for
+    * <code>null</code>.
+    * @throws IOException Length is out of range, the snapshot is corrupt
+    */
+   /* package */ static int readLength(DataInputStream in) throws IOException {
+      final int length = in.readInt();
+      if (length < -1 || length > MAX_LENGTH) {
+         throw new IOException("Invalid length " + length + " in catalog snapshot"); //$NON-NLS-1$ //$NON-NLS-2$
+      }  // if
+      return length;
+   }
+
+   /* package */ static String readString(DataInputStream in) throws IOException {
+      final int length = readLength(in);
+      if (length < 0) return null;
+      final byte[] bytes = new byte[length];
+      in.readFully(bytes);
+      return new String(bytes, UTF8);
+   }
+
+   /* package */ static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+      out.writeInt(values != null ? values.length : -1);
+      for (int i = 0; values != null && i < values.length; i++) {
+         writeString(out, values[i]);
+      }  // for
+   }
+
+   /* package */ static String[] readStrings(DataInputStream in) throws IOException {
+      final int count = readLength(in);
+      if (count < 0) return null;
+      final String[] result = new String[count];
+      for (int i = 0; i < count; i++) {
+         result[i] = readString(in);
+      }  // for
+      return result;
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   /**
+    * Loads a catalog snapshot. A missing or unreadable snapshot results in an
+    * empty one.
+    * @param snapshotFile Location of the snapshot, can be <code>null</code> 
+    *   to disable persistence
+    * @return Catalog snapshot
+    */
+   public static CatalogSnapshot load(File snapshotFile) {
+
+      final CatalogSnapshot result = new CatalogSnapshot(snapshotFile);
+
+      if (snapshotFile != null && snapshotFile.isFile() && snapshotFile.length() > 0) {
+         DataInputStream in = null;
+         try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)));
+            result.read(in);
+         } catch (IOException e) {
+            // corrupt snapshot, start from scratch
+            result.fEntries.clear();
+            DesignPatternPlugin.logException(e);
+         } catch (RuntimeException e) {
+            // corrupt model data, e.g. rejected by the model constructor
+            result.fEntries.clear();
+            DesignPatternPlugin.logException(e);
+         } finally {
+            if (in != null) {
+               try {
+                  in.close();
+               } catch (IOException e) {
+                  // ignore
+               }  // try - catch
+            }  // if
+         }  // try - catch - finally
+      }  // if
+
+      return result;
+   }
+
+   /**
+    * Computes the content hash of a manifest file.
+    * @param manifestFile Manifest file
+    * @return CRC-32 checksum of the file content
+    */
+   public static long computeHash(File manifestFile) throws IOException {
+      return computeHash(new FileInputStream(manifestFile));
+   }
+
+   /**
+    * Computes the content hash of a manifest, e.g. of an archive entry.
+    * @param in Content of the manifest, the stream will be closed
+    * @return CRC-32 checksum of the content
+    */
+   public static long computeHash(InputStream in) throws IOException {
+
+      final CRC32 crc = new CRC32();
+      final byte[] buffer = new byte[8192];
+
+      try {
+         int count;
+         while ((count = in.read(buffer)) > 0) {
+            crc.update(buffer, 0, count);
+         }  // while
+      } finally {
+         in.close();
+      }  // try - finally
+
+      return crc.getValue();
+   }
+
+   /**
+    * Returns the design pattern model of a manifest, if its size and modification
+    * time haven't changed since the snapshot was taken. The manifest isn't read.
+    * @param manifestEntry Manifest
+    * @return Design pattern model or <code>null</code>, if the manifest is unknown or
+    *   may have changed
+    */
+   public DesignPatternModel lookup(CatalogEntry manifestEntry) {
+      final Entry entry = fEntries.get(manifestEntry.getLocation());
+      return (entry != null && entry.matches(manifestEntry)) ? entry.fModel : null;
+   }
+
+   /**
+    * Returns the design pattern model of a manifest, if its content hasn't 
+    * changed since the snapshot was taken.
+    * @param manifestEntry Manifest
+    * @param hash Current content hash of the manifest
+    * @return Design pattern model or <code>null</code>, if the manifest is unknown or changed
+    */
+   public DesignPatternModel lookup(CatalogEntry manifestEntry, long hash) {
+      final Entry entry = fEntries.get(manifestEntry.getLocation());
+      return (entry != null && entry.matches(manifestEntry, hash)) ? entry.fModel : null;
+   }
+
+   /**
+    * Stores the design pattern model of a (changed) manifest.
+    * @param manifestEntry Manifest
+    * @param hash Content hash of the manifest
+    * @param model Design pattern model built from the manifest
+    */
+   public void update(CatalogEntry manifestEntry, long hash, DesignPatternModel model) {
+      fEntries.put(manifestEntry.getLocation(), new Entry(manifestEntry.getSize(),
+            manifestEntry.getLastModified(), hash, model));
+      fDirty = true;
+   }
+
+   /**
+    * Removes the entry of a deleted manifest.
+    * @param manifestEntry Manifest
+    */
+   public void remove(CatalogEntry manifestEntry) {
+      if (fEntries.remove(manifestEntry.getLocation()) != null) {
+         fDirty = true;
+      }  // if
+   }
+
+   /**
+    * Removes all entries of manifests which don't exist anymore.
+    * @param manifestEntries All currently available manifests of all sources
+    */
+   public void retain(CatalogEntry[] manifestEntries) {
+
+      final Set<String> keys = new HashSet<String>();
+      for (int i = 0; i < manifestEntries.length; i++) {
+         keys.add(manifestEntries[i].getLocation());
+      }  // for
+
+      for (Iterator<String> it = fEntries.keySet().iterator(); it.hasNext();) {
+         if (!keys.contains(it.next())) {
+            it.remove();
+            fDirty = true;
+         }  // if
+      }  // for
+
+   }
+
+   /**
+    * Writes the snapshot back to disk, if it has been changed.
+    */
+   public void save() {
+
+      if (fSnapshotFile == null || !fDirty) return;
+
+      final File tempFile = new File(fSnapshotFile.getPath() + ".tmp"); //$NON-NLS-1$
+      DataOutputStream out = null;
+
+      try {
+         // write a temporary file first, so a crash never leaves a truncated snapshot
+         out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+         write(out);
+         out.close();
+         out = null;
+         if (!fSnapshotFile.delete() && fSnapshotFile.exists() || !tempFile.renameTo(fSnapshotFile)) {
+            throw new IOException("Unable to replace catalog snapshot " + fSnapshotFile);
+         }  // if
+         fDirty = false;
+      } catch (IOException e) {
+         DesignPatternPlugin.logException(e);
+      } finally {
+         if (out != null) {
+            try {
+               out.close();
+            } catch (IOException e) {
+               // ignore
+            }  // try - catch
+         }  // if
+      }  // try - catch - finally
+
+   }
+
+}
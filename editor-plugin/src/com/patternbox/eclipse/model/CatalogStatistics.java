@@ -0,0 +1,227 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+
+package com.patternbox.eclipse.model;
+
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timings and counts of a design pattern catalog scan. Phase times are wall clock
+ * times of the scanning thread, hash and parse times are summed up over all loader
+ * threads. All times are given in nanoseconds.
+ *
+ * @see DesignPatternPool#getStatistics()
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class CatalogStatistics {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   /** Listing of the manifest directory */
+   public static final int PHASE_LISTING = 0;
+   /** Reading the catalog snapshot */
+   public static final int PHASE_SNAPSHOT_LOAD = 1;
+   /** Validating and parsing changed manifests, including waiting for loader threads */
+   public static final int PHASE_LOADING = 2;
+   /** Building the categorie tree */
+   public static final int PHASE_TREE = 3;
+   /** Writing the catalog snapshot */
+   public static final int PHASE_SNAPSHOT_SAVE = 4;
+
+   private static final String[] PHASE_NAMES = new String[] {
+      "listing", "snapshot load", "loading", "tree", "snapshot save"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+
+   private static final String REPORT_FORMAT = 
+      "Catalog: {0} manifests, {1} from snapshot, {2} parsed, {3} invalid, {4} patterns, {5} categories, total {6} ms"; //$NON-NLS-1$
+
+   private final AtomicLong[] fPhaseTimes = new AtomicLong[PHASE_NAMES.length];
+   private final AtomicLong fHashTime = new AtomicLong();
+   private final AtomicLong fParseTime = new AtomicLong();
+   private final AtomicInteger fSnapshotHits = new AtomicInteger();
+   private final AtomicInteger fInvalidCount = new AtomicInteger();
+   private final Map<String, Long> fFileParseTimes = new ConcurrentHashMap<String, Long>();
+
+   private volatile int fManifestCount;
+   private volatile int fPatternCount;
+   private volatile int fCategorieCount;
+   private volatile long fTotalTime;
+
+   // ------------------------------------------------------------------------- Constructors
+
+   public CatalogStatistics() {
+      for (int i = 0; i < fPhaseTimes.length; i++) {
+         fPhaseTimes[i] = new AtomicLong();
+      }  // for
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   private static long toMillis(long nanos) {
+      return nanos / 1000000L;
+   }
+
+   // ------------------------------------------------------------------------- Package Methods
+
+   /* package */ void addPhaseTime(int phase, long nanos) {
+      fPhaseTimes[phase].addAndGet(nanos);
+   }
+
+   /* package */ void addHashTime(long nanos) {
+      fHashTime.addAndGet(nanos);
+   }
+
+   /* package */ void snapshotHit() {
+      fSnapshotHits.incrementAndGet();
+   }
+
+   /**
+    * Records the validation and parsing of a single manifest.
+    * @param manifestEntry Manifest
+    * @param nanos Duration of the single validating parse pass
+    * @param valid <code>false</code>, if the manifest has been rejected
+    */
+   /* package */ void fileParsed(CatalogEntry manifestEntry, long nanos, boolean valid) {
+      fParseTime.addAndGet(nanos);
+      fFileParseTimes.put(manifestEntry.getLocation(), Long.valueOf(nanos));
+      if (!valid) fInvalidCount.incrementAndGet();
+   }
+
+   /* package */ void setManifestCount(int count) {
+      fManifestCount = count;
+   }
+
+   /* package */ void setCatalogCounts(int patternCount, int categorieCount) {
+      fPatternCount = patternCount;
+      fCategorieCount = categorieCount;
+   }
+
+   /* package */ void setTotalTime(long nanos) {
+      fTotalTime = nanos;
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   /**
+    * @param phase One of the <code>PHASE_*</code> constants
+    * @return Wall clock time of the given phase
+    */
+   public long getPhaseTime(int phase) {
+      return fPhaseTimes[phase].get();
+   }
+
+   /**
+    * @return Time spent on computing content hashes for change detection, summed up
+    *   over all loader threads
+    */
+   public long getHashTime() {
+      return fHashTime.get();
+   }
+
+   /**
+    * Manifests are validated and parsed in a single pass, so the parse time includes
+    * the validation.
+    * @return Time spent on validating and parsing, summed up over all loader threads
+    */
+   public long getParseTime() {
+      return fParseTime.get();
+   }
+
+   /**
+    * @return Validation and parse time of each parsed manifest, keyed by manifest location
+    */
+   public Map<String, Long> getFileParseTimes() {
+      return Collections.unmodifiableMap(new TreeMap<String, Long>(fFileParseTimes));
+   }
+
+   public long getTotalTime() {
+      return fTotalTime;
+   }
+
+   public int getManifestCount() {
+      return fManifestCount;
+   }
+
+   /**
+    * @return Number of manifests taken from the catalog snapshot without parsing
+    */
+   public int getSnapshotHits() {
+      return fSnapshotHits.get();
+   }
+
+   /**
+    * @return Number of manifests validated and parsed, including invalid ones
+    */
+   public int getParsedCount() {
+      return fFileParseTimes.size();
+   }
+
+   public int getInvalidCount() {
+      return fInvalidCount.get();
+   }
+
+   public int getPatternCount() {
+      return fPatternCount;
+   }
+
+   public int getCategorieCount() {
+      return fCategorieCount;
+   }
+
+   /**
+    * @see java.lang.Object#toString()
+    */
+   public String toString() {
+
+      final StringBuffer result = new StringBuffer(MessageFormat.format(REPORT_FORMAT, new Object[] {
+            Integer.valueOf(fManifestCount), Integer.valueOf(getSnapshotHits()),
+            Integer.valueOf(getParsedCount()), Integer.valueOf(getInvalidCount()),
+            Integer.valueOf(fPatternCount), Integer.valueOf(fCategorieCount),
+            Long.valueOf(toMillis(fTotalTime))}));
+
+      for (int i = 0; i < PHASE_NAMES.length; i++) {
+         result.append("\n  ").append(PHASE_NAMES[i]).append(": ") //$NON-NLS-1$ //$NON-NLS-2$
+               .append(toMillis(getPhaseTime(i))).append(" ms"); //$NON-NLS-1$
+      }  // for
+      result.append("\n  hashing (all threads): ").append(toMillis(getHashTime())).append(" ms"); //$NON-NLS-1$ //$NON-NLS-2$
+      result.append("\n  parsing (all threads): ").append(toMillis(getParseTime())).append(" ms"); //$NON-NLS-1$ //$NON-NLS-2$
+
+      for (Map.Entry<String, Long> entry : getFileParseTimes().entrySet()) {
+         result.append("\n    ").append(entry.getKey()).append(": ") //$NON-NLS-1$ //$NON-NLS-2$
+               .append(entry.getValue().longValue() / 1000L).append(" us"); //$NON-NLS-1$
+      }  // for
+
+      return result.toString();
+   }
+
+}
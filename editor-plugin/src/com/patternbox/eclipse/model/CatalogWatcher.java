@@ -0,0 +1,301 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+
+package com.patternbox.eclipse.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Background job watching the manifests and code templates of all catalog sources.
+ * Added, changed and removed manifests are re-indexed by the design pattern pool,
+ * changed code templates are reported to the catalog listeners. All other files are
+ * left untouched, so template authors don't have to restart the IDE.
+ * <p>
+ * Sources located in the workspace are checked when a resource change touches their
+ * folders. Other writable folders are polled, the interval grows while nothing
+ * changes. Archives and read-only installations are never checked again.
+ *
+ * @see DesignPatternPool#updateManifests(CatalogEntry[], CatalogEntry[])
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class CatalogWatcher extends Job implements IResourceChangeListener {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final long POLL_INTERVAL = 2000;
+
+   private static final long MAX_POLL_INTERVAL = 60000;
+
+   private static final long CHANGE_DELAY = 200;
+
+   private final ICatalogSource[] fSources;
+
+   /**
+    * Last seen state of all watched sources
+    */
+   private final Map<ICatalogSource, SourceState> fStates = new LinkedHashMap<ICatalogSource, SourceState>();
+
+   /**
+    * Folders of the workspace sources by workspace path
+    */
+   private final Map<IPath, SourceState> fWorkspaceFolders = new HashMap<IPath, SourceState>();
+
+   private long fPollInterval = POLL_INTERVAL;
+
+   private long fNextPoll;
+
+   private volatile boolean fStopped;
+
+   // ------------------------------------------------------------------------- Inner Classes
+
+   /**
+    * Last seen modification stamps of a single source, keyed by catalog entry
+    */
+   private static class SourceState {
+
+      private final ICatalogSource fSource;
+      private final boolean fPolled;
+      private final Map<CatalogEntry, Long> fManifestStamps;
+      private final Map<CatalogEntry, Long> fTemplateStamps;
+      private volatile boolean fChanged;
+
+      public SourceState(ICatalogSource source, boolean polled) {
+         fSource = source;
+         fPolled = polled;
+         fManifestStamps = scan(source, true);
+         fTemplateStamps = scan(source, false);
+      }
+
+   }
+
+   // ------------------------------------------------------------------------- Constructors
+
+   /**
+    * Constructor. The current content of the sources is taken as the initial state,
+    * it is expected to be indexed already.
+    * @param sources Catalog sources
+    */
+   public CatalogWatcher(ICatalogSource[] sources) {
+      super("Design pattern catalog watcher"); //$NON-NLS-1$
+      fSources = sources.clone();
+      setSystem(true);
+      setPriority(DECORATE);
+      init();
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   /**
+    * Sorts the sources into workspace, polled and static ones and takes their state.
+    */
+   private void init() {
+
+      final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+
+      for (int i = 0; i < fSources.length; i++) {
+         if (!(fSources[i] instanceof DirectoryCatalogSource)) continue;
+         final DirectoryCatalogSource source = (DirectoryCatalogSource) fSources[i];
+         final IContainer manifestFolder = root.getContainerForLocation(
+               new Path(source.getManifestDir().getAbsolutePath()));
+         final IContainer templateFolder = root.getContainerForLocation(
+               new Path(source.getTemplateDir().getAbsolutePath()));
+         if (manifestFolder != null || templateFolder != null) {
+            final SourceState state = new SourceState(source, false);
+            fStates.put(source, state);
+            if (manifestFolder != null) fWorkspaceFolders.put(manifestFolder.getFullPath(), state);
+            if (templateFolder != null) fWorkspaceFolders.put(templateFolder.getFullPath(), state);
+         } else if (source.getManifestDir().canWrite() || source.getTemplateDir().canWrite()) {
+            fStates.put(source, new SourceState(source, true));
+         }  // if - else
+      }  // for
+
+   }
+
+   private boolean hasPolledSources() {
+      for (SourceState state : fStates.values()) {
+         if (state.fPolled) return true;
+      }  // for
+      return false;
+   }
+
+   private static Map<CatalogEntry, Long> scan(ICatalogSource source, boolean manifests) {
+
+      final Map<CatalogEntry, Long> result = new HashMap<CatalogEntry, Long>();
+
+      final CatalogEntry[] entries = manifests ? source.getManifests() : source.getCodeTemplates();
+      for (int j = 0; j < entries.length; j++) {
+         // the length catches changes within the timestamp resolution of the file system
+         result.put(entries[j], Long.valueOf(entries[j].getLastModified() * 31 + entries[j].getSize()));
+      }  // for
+
+      return result;
+   }
+
+   /**
+    * Compares the current content of a source with the last seen one and updates
+    * the given stamps.
+    * @param source Catalog source
+    * @param manifests Compare manifests or code templates
+    * @param stamps Last seen modification stamps
+    * @param changed Receives added and modified entries
+    * @param removed Receives deleted entries
+    */
+   private static void compare(ICatalogSource source, boolean manifests, Map<CatalogEntry, Long> stamps,
+         List<CatalogEntry> changed, List<CatalogEntry> removed) {
+
+      final Map<CatalogEntry, Long> current = scan(source, manifests);
+
+      for (Map.Entry<CatalogEntry, Long> entry : current.entrySet()) {
+         if (!entry.getValue().equals(stamps.get(entry.getKey()))) {
+            changed.add(entry.getKey());
+         }  // if
+      }  // for
+
+      for (CatalogEntry entry : stamps.keySet()) {
+         if (!current.containsKey(entry)) removed.add(entry);
+      }  // for
+
+      stamps.clear();
+      stamps.putAll(current);
+   }
+
+   // ------------------------------------------------------------------------- Protected Methods
+
+   /**
+    * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+    */
+   protected IStatus run(IProgressMonitor monitor) {
+
+      if (monitor.isCanceled() || fStopped) return Status.CANCEL_STATUS;
+
+      final boolean poll = System.currentTimeMillis() >= fNextPoll;
+      final List<CatalogEntry> changedManifests = new ArrayList<CatalogEntry>();
+      final List<CatalogEntry> removedManifests = new ArrayList<CatalogEntry>();
+      final List<CatalogEntry> changedTemplates = new ArrayList<CatalogEntry>();
+
+      for (SourceState state : fStates.values()) {
+         if (state.fPolled ? !poll : !state.fChanged) continue;
+         state.fChanged = false;
+         compare(state.fSource, true, state.fManifestStamps, changedManifests, removedManifests);
+         // deleted code templates are reported like changed ones
+         compare(state.fSource, false, state.fTemplateStamps, changedTemplates, changedTemplates);
+      }  // for
+
+      // re-index changed manifests
+      if (!changedManifests.isEmpty() || !removedManifests.isEmpty()) {
+         DesignPatternPool.updateManifests(changedManifests.toArray(new CatalogEntry[changedManifests.size()]),
+               removedManifests.toArray(new CatalogEntry[removedManifests.size()]));
+      }  // if
+
+      // code templates are named after the model identifier of their design pattern
+      if (!changedTemplates.isEmpty()) {
+         final String[] modelIDs = new String[changedTemplates.size()];
+         for (int i = 0; i < modelIDs.length; i++) {
+            modelIDs[i] = changedTemplates.get(i).getModelID();
+         }  // for
+         DesignPatternPool.fireCatalogChanged(modelIDs);
+      }  // if
+
+      if (poll) {
+         // poll less often while nothing changes
+         final boolean changed = !changedManifests.isEmpty() || !removedManifests.isEmpty()
+               || !changedTemplates.isEmpty();
+         fPollInterval = changed ? POLL_INTERVAL : Math.min(fPollInterval * 2, MAX_POLL_INTERVAL);
+         fNextPoll = System.currentTimeMillis() + fPollInterval;
+      }  // if
+
+      if (!fStopped && hasPolledSources()) {
+         schedule(Math.max(0, fNextPoll - System.currentTimeMillis()));
+      }  // if
+
+      return Status.OK_STATUS;
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   /**
+    * Marks workspace sources whose folders have been changed and checks them soon.
+    * @see org.eclipse.core.resources.IResourceChangeListener#resourceChanged(org.eclipse.core.resources.IResourceChangeEvent)
+    */
+   public void resourceChanged(IResourceChangeEvent event) {
+
+      final IResourceDelta delta = event.getDelta();
+      if (delta == null || fStopped) return;
+
+      boolean changed = false;
+      for (Map.Entry<IPath, SourceState> folder : fWorkspaceFolders.entrySet()) {
+         if (delta.findMember(folder.getKey()) != null) {
+            folder.getValue().fChanged = true;
+            changed = true;
+         }  // if
+      }  // for
+
+      if (changed) schedule(CHANGE_DELAY);
+   }
+
+   /**
+    * Starts watching the catalog sources.
+    */
+   public void start() {
+      fStopped = false;
+      if (!fWorkspaceFolders.isEmpty()) {
+         ResourcesPlugin.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+      }  // if
+      if (hasPolledSources()) {
+         fNextPoll = System.currentTimeMillis() + fPollInterval;
+         schedule(fPollInterval);
+      }  // if
+   }
+
+   /**
+    * Stops watching the catalog sources.
+    */
+   public void stop() {
+      fStopped = true;
+      ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+      cancel();
+   }
+
+}
@@ -26,7 +26,8 @@ SUCH DAMAGE.
 
 package com.patternbox.eclipse.model;
 
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.patternbox.commons.model.DocumentNode;
 
@@ -40,7 +41,7 @@ public class CategorieNode extends DocumentNode {
    // ------------------------------------------------------------------------- Field Definitions
 
    private final String fName;
-   private final HashMap<String, CategorieNode> fChildMap = new HashMap<String, CategorieNode>();
+   private final Map<String, CategorieNode> fChildMap = new ConcurrentHashMap<String, CategorieNode>();
 
    // ------------------------------------------------------------------------- Constructors
 
@@ -64,6 +65,16 @@ public class CategorieNode extends DocumentNode {
       return fChildMap.get(name);
    }
 
+   /**
+    * Detaches this categorie and all of its children from the categorie tree.
+    */
+   public void dispose() {
+      if (getParent() instanceof CategorieNode) {
+         ((CategorieNode) getParent()).fChildMap.remove(fName);
+      }  // if
+      setParent(null);
+   }
+
    /**
     * Returns categorie name
     * @return String Categorie name
@@ -26,10 +26,11 @@ SUCH DAMAGE.
 
 package com.patternbox.eclipse.model;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -55,17 +56,15 @@ public class DesignPatternInstance extends AbstractModel implements IEditable {
 
    /**
     * 
-    * @uml.property name="patternXmlHandler"
+    * @uml.property name="root"
     * @uml.associationEnd multiplicity="(0 1)"
     */
-   private transient static PatternXmlHandler sPatternXmlHandler = new PatternXmlHandler();
+   private DocumentNode fRoot = new DocumentNode(null);
 
    /**
-    * 
-    * @uml.property name="root"
-    * @uml.associationEnd multiplicity="(0 1)"
+    * Role nodes of the current root, keyed by role name
     */
-   private DocumentNode fRoot = new DocumentNode(null);
+   private volatile Map<String, RoleNode> fRoleIndex = Collections.emptyMap();
 
    private String fModelID;
    private String fDesignPatternName;
@@ -80,13 +79,22 @@ public class DesignPatternInstance extends AbstractModel implements IEditable {
     * @throws CoreException
     */
 	public DesignPatternInstance(IEditorInput input) throws CoreException {
+		this((input instanceof FileEditorInput) ? ((FileEditorInput) input).getFile() : null);
+	}
+
+   /**
+    * Constructor, doesn't need a workbench
+    * @param file Design pattern instance file, can be <code>null</code>
+    * @throws CoreException
+    */
+	public DesignPatternInstance(IFile file) throws CoreException {
 
       // call inherited constructor
 		super();
 
-		if (input instanceof FileEditorInput) {
-			createModel((FileEditorInput) input);
-			fInputFile = ((FileEditorInput) input).getFile(); 
+		if (file != null) {
+			createModel(file);
+			fInputFile = file; 
 		}
 
 		// get role nodes set
@@ -97,11 +105,24 @@ public class DesignPatternInstance extends AbstractModel implements IEditable {
 		} // for
 	}
 
-	private void createModel(FileEditorInput input) throws CoreException {
+	/**
+	 * Indexes the role nodes of a design pattern instance by name. On duplicate names
+	 * the last role node wins, like the former linear search.
+	 */
+	private static Map<String, RoleNode> createRoleIndex(DocumentNode root) {
+		final DocumentNode[] children = root.getChildren();
+		final Map<String, RoleNode> result = new HashMap<String, RoleNode>(children.length * 2);
+		for (int i = 0; i < children.length; i++) {
+			result.put(((RoleNode) children[i]).getName(), (RoleNode) children[i]);
+		} // for
+		return result;
+	}
+
+	private void createModel(IFile file) throws CoreException {
 
-      InputStream stream = input.getFile().getContents(false);
+      InputStream stream = file.getContents(false);
 
-		load(stream, false, input.getFile().getProject().getName());
+		load(stream, false, file.getProject().getName());
 
 		try {
 			stream.close();
@@ -132,18 +153,7 @@ public class DesignPatternInstance extends AbstractModel implements IEditable {
     */
    public RoleNode getRole(String roleName) {
 
-      // declare result variable and set default value
-      RoleNode result = null;
-      DocumentNode[] children = fRoot.getChildren();
-
-      // for each role node check name and compare it with the given name
-      for (int i=0; i<children.length; i++) {
-         if (((RoleNode) children[i]).getName().equals(roleName)) {
-            result = (RoleNode) children[i];
-         }  // if
-      }  // for
-
-      return result;
+      return fRoleIndex.get(roleName);
    }
 
    public MemberNode getMember(String roleName, int index) {
@@ -162,10 +172,13 @@ public class DesignPatternInstance extends AbstractModel implements IEditable {
 
 	  setLoaded(false);
       try {
-         // parse input stream and assign root node
-         fRoot = sPatternXmlHandler.parsePatternStream(stream, project);
+         // parse input stream and assign root node, handlers keep parse state
+         final PatternXmlHandler patternXmlHandler = new PatternXmlHandler();
+         fRoot = patternXmlHandler.parsePatternStream(stream, project);
+         // index role nodes for lookups during code generation
+         fRoleIndex = createRoleIndex(fRoot);
          // save design pattern model identifier
-         fModelID = sPatternXmlHandler.getModelID();
+         fModelID = patternXmlHandler.getModelID();
          // save design pattern name
          fDesignPatternName = DesignPatternPool.getDesignPatternName(fModelID);
          // set loaded flag
@@ -350,9 +363,12 @@ public class DesignPatternInstance extends AbstractModel implements IEditable {
    }
 
 
-   public File getCodeTemplateFile() {
-      String pluginPath = DesignPatternPlugin.getPluginPath();
-      return new File(pluginPath + "/template.java/" + fModelID + ".xml");
+   /**
+    * @return Code template of the underlying design pattern, it may be located in
+    *   any catalog source, or <code>null</code> if no source provides it
+    */
+   public CatalogEntry getCodeTemplate() {
+      return DesignPatternPool.getCodeTemplate(fModelID);
    }
 
    public DesignPatternModel getDesignPatternModel() {
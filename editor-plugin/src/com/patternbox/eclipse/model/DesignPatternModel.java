@@ -31,22 +31,42 @@ import java.util.*;
 
 import org.xml.sax.*;
 
+import com.patternbox.commons.xml.EInvalidXmlDocument;
+import com.patternbox.commons.xml.XmlDocValidator;
 import com.patternbox.commons.xml.XmlWriter;
 import com.patternbox.commons.model.*;
 
 /**
- * Implementation of a design pattern model. *  * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ * Implementation of a design pattern model.
+ * 
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
  */
 
 public class DesignPatternModel implements ITreeModel {
 
+   // ------------------------------------------------------------------------- Field Definitons
+
+   private final String fModelID;
+   private final String fPatternName;
+   private final String fComment;
+   private final String fTopCategorie;
+   private final String fSubCategorie;
+   private final String fAuthor;
+
    /**
-    * 
-    * @uml.property name="manifestXmlHandler"
-    * @uml.associationEnd multiplicity="(0 1)"
+    * Role properties in manifest order
     */
-   // ------------------------------------------------------------------------- Field Definitons
-   private final ManifestXmlHandler fManifestXmlHandler = new ManifestXmlHandler();
+   private final RolePropertiesContainer[] fRoleProperties;
+
+   /**
+    * Role properties keyed by role name, in manifest order
+    */
+   private final Map<String, RolePropertiesContainer> fRoleIndex;
+
+   /**
+    * Unmodifiable view of all role names in manifest order
+    */
+   private final Set<String> fRoleNames;
 
    /**
     * 
@@ -57,32 +77,136 @@ public class DesignPatternModel implements ITreeModel {
 
    // ------------------------------------------------------------------------- Constructors
 
-	/**
-	 * Constructor
+   /**
+    * Constructor
+    * @param modelID Model identifier
+    * @param patternName Name of the design pattern
+    * @param comment Normalized model comment
+    * @param topCategorie Top categorie, can be <code>null</code>
+    * @param subCategorie Sub categorie, can be <code>null</code>
+    * @param author Formatted author tag
+    * @param roleProperties Role properties in manifest order
+    */
+   /* package */ DesignPatternModel(String modelID, String patternName, String comment,
+         String topCategorie, String subCategorie, String author,
+         RolePropertiesContainer[] roleProperties) {
+
+      fModelID = intern(modelID);
+      fPatternName = patternName;
+      fComment = comment;
+      fTopCategorie = intern(topCategorie);
+      fSubCategorie = intern(subCategorie);
+      fAuthor = author;
+      fRoleProperties = roleProperties;
+
+      final Map<String, RolePropertiesContainer> roleIndex =
+         new LinkedHashMap<String, RolePropertiesContainer>(roleProperties.length * 2);
+      for (int i = 0; i < roleProperties.length; i++) {
+         // the first definition of a role name wins, like the former linear search
+         if (!roleIndex.containsKey(roleProperties[i].getName())) {
+            roleIndex.put(roleProperties[i].getName(), roleProperties[i]);
+         }  // if
+      }  // for
+      fRoleIndex = roleIndex;
+      fRoleNames = Collections.unmodifiableSet(roleIndex.keySet());
+   }
+
+   /**
+    * Loads a design pattern model. The manifest file is validated and parsed in
+    * one pass.
     * @param manifestFile Manifest file of a design pattern
-	 */
-	public DesignPatternModel(File manifestFile) {
+    * @return Design pattern model
+    * @throws EInvalidXmlDocument Manifest file is invalid
+    * @throws IOException Manifest file can't be read
+    * @throws SAXException Manifest file can't be parsed
+    */
+   public static DesignPatternModel load(File manifestFile)
+      throws EInvalidXmlDocument, IOException, SAXException {
 
-		try {
- 			// parse manifest file
-         fManifestXmlHandler.parseManifestFile(manifestFile);
+      final ManifestXmlHandler handler = new ManifestXmlHandler();
+      XmlDocValidator.getInstance().parse(manifestFile, handler);
+      return handler.createModel();
+   }
 
-		} catch (SAXException e) {
-			e.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+   /**
+    * Loads a design pattern model from a manifest of any catalog source.
+    * @param manifestEntry Manifest of a design pattern
+    * @return Design pattern model
+    * @throws EInvalidXmlDocument Manifest is invalid
+    * @throws IOException Manifest can't be read
+    * @throws SAXException Manifest can't be parsed
+    * @see #load(File)
+    */
+   public static DesignPatternModel load(CatalogEntry manifestEntry)
+      throws EInvalidXmlDocument, IOException, SAXException {
 
-	}
+      final ManifestXmlHandler handler = new ManifestXmlHandler();
+      XmlDocValidator.getInstance().parse(manifestEntry.openStream(), manifestEntry.getSystemId(),
+         manifestEntry.getLocation(), handler);
+      return handler.createModel();
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   private static String intern(String value) {
+      return (value != null) ? value.intern() : null;
+   }
+
+   // ------------------------------------------------------------------------- Package Methods
 
    /**
-    * Constructor
-    * @param patternNode Tree node of a design pattern used in the design pattern wizard
-    * @see com.patternbox.eclipse.wizard.NewDesignPatternWizard
+    * Writes the model in a compact binary form.
+    * @param out Output stream of the catalog snapshot
+    * @see CatalogSnapshot
     */
-   public DesignPatternModel(PatternNode patternNode) {
-      // extract manifest file and call constructor
-      this(patternNode.getManifestFile());
+   /* package */ void writeTo(DataOutputStream out) throws IOException {
+
+      CatalogSnapshot.writeString(out, fModelID);
+      CatalogSnapshot.writeString(out, fPatternName);
+      CatalogSnapshot.writeString(out, fComment);
+      CatalogSnapshot.writeString(out, fTopCategorie);
+      CatalogSnapshot.writeString(out, fSubCategorie);
+      CatalogSnapshot.writeString(out, fAuthor);
+
+      out.writeInt(fRoleProperties.length);
+      for (int i = 0; i < fRoleProperties.length; i++) {
+         CatalogSnapshot.writeString(out, fRoleProperties[i].getName());
+         out.writeInt(fRoleProperties[i].getMinOccurence());
+         out.writeInt(fRoleProperties[i].getMaxOccurence());
+         CatalogSnapshot.writeStrings(out, fRoleProperties[i].getDependence());
+         CatalogSnapshot.writeStrings(out,
+               fRoleProperties[i].getCommentItemList().toArray(new String[0]));
+      }  // for
+
+   }
+
+   /**
+    * Restores a model written by {@link #writeTo(DataOutputStream)}.
+    * @param in Input stream of the catalog snapshot
+    * @return Design pattern model
+    * @see CatalogSnapshot
+    */
+   /* package */ static DesignPatternModel readFrom(DataInputStream in) throws IOException {
+
+      final String modelID = CatalogSnapshot.readString(in);
+      final String patternName = CatalogSnapshot.readString(in);
+      final String comment = CatalogSnapshot.readString(in);
+      final String topCategorie = CatalogSnapshot.readString(in);
+      final String subCategorie = CatalogSnapshot.readString(in);
+      final String author = CatalogSnapshot.readString(in);
+
+      final RolePropertiesContainer[] roleProperties = new RolePropertiesContainer[Math.max(0, CatalogSnapshot.readLength(in))];
+      for (int i = 0; i < roleProperties.length; i++) {
+         final String name = CatalogSnapshot.readString(in);
+         final int min = in.readInt();
+         final int max = in.readInt();
+         final String[] dependence = CatalogSnapshot.readStrings(in);
+         roleProperties[i] = new RolePropertiesContainer(name, min, max, dependence,
+               CatalogSnapshot.readStrings(in));
+      }  // for
+
+      return new DesignPatternModel(modelID, patternName, comment, topCategorie, subCategorie,
+            author, roleProperties);
    }
 
    // ------------------------------------------------------------------------- Public Methods
@@ -100,15 +224,11 @@ public class DesignPatternModel implements ITreeModel {
       atts.put(PatternXmlHandler.ATTR_ID, getModelID());
       xml.openElement(PatternXmlHandler.ELEM_PATTERN, atts, null);
 
-      RolePropertiesContainer props;
-      Iterator<RolePropertiesContainer> it = fManifestXmlHandler.getRolePropertiesList().iterator();
-
-      while (it.hasNext()) {
-         props = it.next();
+      for (int i = 0; i < fRoleProperties.length; i++) {
          atts.clear();
-         atts.put(PatternXmlHandler.ATTR_NAME, props.getName());
+         atts.put(PatternXmlHandler.ATTR_NAME, fRoleProperties[i].getName());
          xml.addEmptyElement(PatternXmlHandler.ELEM_ROLE, atts);
-      }  // while
+      }  // for
 
       xml.closeElement();
 
@@ -127,7 +247,14 @@ public class DesignPatternModel implements ITreeModel {
     * @return String model identifier
     */
    public String getModelID() {
-      return fManifestXmlHandler.getModelID();
+      return fModelID;
+   }
+
+   /**
+    * @return Name of the design pattern
+    */
+   public String getPatternName() {
+      return fPatternName;
    }
 
    /**
@@ -135,19 +262,33 @@ public class DesignPatternModel implements ITreeModel {
     * @return Model comment
     */
    public String getComment() {
-      return fManifestXmlHandler.getComment();
+      return fComment;
+   }
+
+   /**
+    * @return Top categorie or <code>null</code>
+    */
+   public String getTopCategorie() {
+      return fTopCategorie;
+   }
+
+   /**
+    * @return Sub categorie or <code>null</code>
+    */
+   public String getSubCategorie() {
+      return fSubCategorie;
    }
 
    public RolePropertiesContainer getRoleProperties(String roleName) {
-      return fManifestXmlHandler.getRoleProperties(roleName);
+      return fRoleIndex.get(roleName);
    }
 
    public String getAuthor() {
-      return fManifestXmlHandler.getAuthor();
+      return fAuthor;
    }
    
    public Set<String> getRoles() {
-      return fManifestXmlHandler.getRoles();
+      return fRoleNames;
    }
 
 }
@@ -27,16 +27,34 @@ SUCH DAMAGE.
 package com.patternbox.eclipse.model;
 
 import java.io.File;
-import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
 import com.patternbox.commons.model.DocumentNode;
 import com.patternbox.commons.xml.EInvalidXmlDocument;
-import com.patternbox.commons.xml.XmlDocValidator;
 import com.patternbox.eclipse.editor.DesignPatternPlugin;
 
 /**
- * Pool of all available design pattern models *  * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ * Pool of all available design pattern models *  * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
  */
 
 public class DesignPatternPool {
@@ -49,21 +67,274 @@ public class DesignPatternPool {
    // ------------------------------------------------------------------------- Field Definitions
    private static final CategorieNode sRootNode = new CategorieNode(null, "rootNode"); //$NON-NLS-1$
 
-   private static final HashMap<String, PatternNode> sPatternNodeMap = new HashMap<String, PatternNode>();
-   private static final HashMap<PatternNode, DesignPatternModel> sDesignPatternMap = new HashMap<PatternNode, DesignPatternModel>();
+   private static final ConcurrentMap<String, PatternNode> sPatternNodeMap = new ConcurrentHashMap<String, PatternNode>();
+   private static final List<ICatalogChangeListener> sListeners = new CopyOnWriteArrayList<ICatalogChangeListener>();
 
    /**
-    * 
-    * @uml.property name="manifestXmlHandler"
-    * @uml.associationEnd multiplicity="(0 1)"
+    * Models loaded directly by identifier while the catalog is still loading, keyed
+    * by manifest location. The catalog scan takes them over instead of parsing again.
+    */
+   private static final ConcurrentHashMap<String, Future<DesignPatternModel>> sDirectModels = new ConcurrentHashMap<String, Future<DesignPatternModel>>();
+
+   /** The catalog scan has taken over the directly loaded models */
+   private static volatile boolean sScanFinished;
+
+   /**
+    * Manifests hidden by a manifest with the same model identifier from a source with
+    * higher priority, keyed by model identifier. Guarded by the class lock.
+    */
+   private static final Map<String, List<CatalogEntry>> sShadowed = new HashMap<String, List<CatalogEntry>>();
+
+   /** Replaced on each initialization, see {@link #reset()} */
+   private static volatile CountDownLatch sCatalogLoaded = new CountDownLatch(1);
+
+   /** Guarded by the class lock */
+   private static boolean sInitialized;
+
+   /** Maximum time in seconds to wait for the catalog */
+   private static final long CATALOG_TIMEOUT = 30;
+
+   /** A caller gave up waiting for the catalog and got an empty one */
+   private static volatile boolean sCatalogMissed;
+
+   /**
+    * Orders catalog sources by descending priority, the sort is stable
     */
-   private static final ManifestXmlHandler sManifestXmlHandler = new ManifestXmlHandler();
+   private static final Comparator<ICatalogSource> PRIORITY_ORDER = new Comparator<ICatalogSource>() {
+      public int compare(ICatalogSource source1, ICatalogSource source2) {
+         // priorities aren't range checked, a difference might overflow
+         final int priority1 = source1.getPriority();
+         final int priority2 = source2.getPriority();
+         return (priority1 > priority2) ? -1 : (priority1 < priority2) ? 1 : 0;
+      }
+   };
+
+   private static final Comparator<CatalogEntry> NAME_ORDER = new Comparator<CatalogEntry>() {
+      public int compare(CatalogEntry entry1, CatalogEntry entry2) {
+         return entry1.getName().compareTo(entry2.getName());
+      }
+   };
+
+   private static volatile CatalogSnapshot sSnapshot = CatalogSnapshot.load(null);
+   private static volatile ICatalogSource[] sSources = new ICatalogSource[0];
+   private static volatile CatalogStatistics sStatistics = new CatalogStatistics();
+
+   // ------------------------------------------------------------------------- Inner Classes
+
+   /**
+    * Validates and parses a single manifest and builds its design pattern model.
+    * Each task uses its own handler, so tasks can be executed concurrently. Models of
+    * unchanged manifests are taken from the catalog snapshot.
+    */
+   private static class ManifestLoader implements Callable<DesignPatternModel> {
+
+      private final CatalogEntry fManifestEntry;
+      private final CatalogSnapshot fSnapshot;
+      private final CatalogStatistics fStatistics;
+
+      public ManifestLoader(CatalogEntry manifestEntry, CatalogSnapshot snapshot, CatalogStatistics statistics) {
+         fManifestEntry = manifestEntry;
+         fSnapshot = snapshot;
+         fStatistics = statistics;
+      }
+
+      /**
+       * Takes the model over from a direct load during the catalog scan, reloads must
+       * call {@link #load()}.
+       * @return Design pattern model or <code>null</code>, if the manifest is invalid
+       * @see java.util.concurrent.Callable#call()
+       */
+      public DesignPatternModel call() throws Exception {
+         // the model may have been requested before the catalog scan reached it
+         final Future<DesignPatternModel> direct = sDirectModels.get(fManifestEntry.getLocation());
+         return (direct != null) ? waitForModel(direct) : load();
+      }
+
+      /**
+       * @return Design pattern model or <code>null</code>, if the manifest is invalid
+       */
+      public DesignPatternModel load() throws Exception {
+
+         // reuse the snapshot entry if the manifest is unchanged
+         long start = System.nanoTime();
+         DesignPatternModel cached = fSnapshot.lookup(fManifestEntry);
+         long hash = 0;
+         if (cached == null) {
+            // size or time stamp differ, the content may still be the same
+            hash = CatalogSnapshot.computeHash(fManifestEntry.openStream());
+            cached = fSnapshot.lookup(fManifestEntry, hash);
+            if (cached != null) fSnapshot.update(fManifestEntry, hash, cached);
+         }  // if
+         fStatistics.addHashTime(System.nanoTime() - start);
+         if (cached != null) {
+            fStatistics.snapshotHit();
+            return cached;
+         }  // if
+
+         // validate and parse manifest in one pass
+         final DesignPatternModel model;
+         start = System.nanoTime();
+         try {
+            model = DesignPatternModel.load(fManifestEntry);
+         } catch (EInvalidXmlDocument e) {
+            fStatistics.fileParsed(fManifestEntry, System.nanoTime() - start, false);
+            DesignPatternPlugin.logException(e);
+            return null;
+         }  // try - catch
+         fStatistics.fileParsed(fManifestEntry, System.nanoTime() - start, true);
+         // remember parse result for the next startup
+         fSnapshot.update(fManifestEntry, hash, model);
+
+         return model;
+      }
+
+   }
+
+   /**
+    * Lists the manifests of a single catalog source, sorted by name.
+    */
+   private static class SourceLister implements Callable<CatalogEntry[]> {
+
+      private final ICatalogSource fSource;
+
+      public SourceLister(ICatalogSource source) {
+         fSource = source;
+      }
 
+      /**
+       * @see java.util.concurrent.Callable#call()
+       */
+      public CatalogEntry[] call() {
+         final CatalogEntry[] result = fSource.getManifests();
+         // the listing order is platform dependent
+         Arrays.sort(result, NAME_ORDER);
+         return result;
+      }
+
+   }
 
    // ------------------------------------------------------------------------- Constructors
 
    // ------------------------------------------------------------------------- Private Methods
 
+   /**
+    * Waits until the catalog scan has finished. The wait is bounded and can be
+    * interrupted, so the UI thread may call it. Listeners are notified, when a catalog
+    * given up on is completed later.
+    * @return <code>true</code>, if the catalog scan has finished
+    */
+   private static boolean waitForCatalog() {
+
+      try {
+         if (sCatalogLoaded.await(CATALOG_TIMEOUT, TimeUnit.SECONDS)) return true;
+         DesignPatternPlugin.logWarning("Design pattern catalog not loaded within " //$NON-NLS-1$
+            + CATALOG_TIMEOUT + " seconds"); //$NON-NLS-1$
+      } catch (InterruptedException e) {
+         // restore interrupt state, the caller gets an empty catalog
+         Thread.currentThread().interrupt();
+      }  // try - catch
+      sCatalogMissed = true;
+      return false;
+   }
+
+   /**
+    * @return Root of the categorie tree, an empty root if the catalog isn't loaded
+    */
+   private static CategorieNode getLoadedRoot() {
+      // the tree must not be handed out while the scan is still building it
+      return waitForCatalog() ? sRootNode : new CategorieNode(null, "rootNode"); //$NON-NLS-1$
+   }
+
+   /**
+    * Drops the catalog of an earlier initialization, callers wait for the new one.
+    * Readers of the old categorie tree aren't protected, a second initialization is
+    * meant for tests and benchmarks.
+    */
+   private static void reset() {
+
+      sCatalogLoaded = new CountDownLatch(1);
+      sScanFinished = false;
+      sCatalogMissed = false;
+      sDirectModels.clear();
+      sShadowed.clear();
+      sPatternNodeMap.clear();
+
+      final DocumentNode[] children = sRootNode.getChildren();
+      for (int i = 0; i < children.length; i++) {
+         if (children[i] instanceof CategorieNode) {
+            ((CategorieNode) children[i]).dispose();
+         } else {
+            children[i].setParent(null);
+         }  // if - else
+      }  // for
+   }
+
+   /**
+    * Waits for a model loading task.
+    * @param modelTask Task loading a design pattern model
+    * @return Design pattern model or <code>null</code>, if it can't be loaded
+    */
+   private static DesignPatternModel waitForModel(Future<DesignPatternModel> modelTask) {
+
+      boolean interrupted = false;
+
+      try {
+         while (true) {
+            try {
+               return modelTask.get();
+            } catch (InterruptedException e) {
+               // the model is needed anyway, restore interrupt state afterwards
+               interrupted = true;
+            } catch (ExecutionException e) {
+               DesignPatternPlugin.logException(e.getCause());
+               return null;
+            }  // try - catch
+         }  // while
+      } finally {
+         if (interrupted) Thread.currentThread().interrupt();
+      }  // try - finally
+   }
+
+   /**
+    * Loads a single design pattern model while the catalog is still loading. Manifests
+    * are named after the model identifier, so only the manifest of the source with
+    * the highest priority providing it must be read.
+    * @param modelID Model identifier
+    * @return Design pattern model or <code>null</code>, if there is no matching manifest
+    */
+   private static DesignPatternModel loadDirect(String modelID) {
+
+      final ICatalogSource[] sources = sSources;
+
+      for (int i = 0; i < sources.length; i++) {
+         final CatalogEntry manifestEntry = sources[i].getManifest(modelID);
+         if (manifestEntry == null) continue;
+
+         Future<DesignPatternModel> result = sDirectModels.get(manifestEntry.getLocation());
+         if (result == null) {
+            final FutureTask<DesignPatternModel> task = new FutureTask<DesignPatternModel>(
+               new Callable<DesignPatternModel>() {
+                  public DesignPatternModel call() throws Exception {
+                     return new ManifestLoader(manifestEntry, sSnapshot, sStatistics).load();
+                  }
+               });
+            // concurrent requests for the same model share one task
+            result = sDirectModels.putIfAbsent(manifestEntry.getLocation(), task);
+            if (result == null) {
+               result = task;
+               // the scan has finished meanwhile, the task must not outlive it
+               if (sScanFinished) sDirectModels.remove(manifestEntry.getLocation(), task);
+               task.run();
+            }  // if
+         }  // if
+
+         final DesignPatternModel model = waitForModel(result);
+         if (model != null && modelID.equals(model.getModelID())) return model;
+      }  // for
+
+      return null;
+   }
+
    private static CategorieNode findCategorie(String topCatName, String subCatName) {
 
       if (topCatName == null) return sRootNode;
@@ -87,15 +358,16 @@ public class DesignPatternPool {
    }
 
    /**
-    * Creates a new design pattern node after manifest file parsing.
-    * @param manifestFile Assoziates manifest file
+    * Creates a new design pattern node after manifest parsing.
+    * @param manifestEntry Assoziated manifest
+    * @param model Design pattern model built from the manifest
     */
-   private static void createPatternNode(File manifestFile) {
+   private static void createPatternNode(CatalogEntry manifestEntry, DesignPatternModel model) {
 
-      PatternNode node = new PatternNode(manifestFile, sManifestXmlHandler);
+      PatternNode node = new PatternNode(manifestEntry, model);
       // get categorie names
-      final String topCat = sManifestXmlHandler.getTopCategorie();
-      final String subCat = sManifestXmlHandler.getSubCategorie();
+      final String topCat = model.getTopCategorie();
+      final String subCat = model.getSubCategorie();
       // create a categorie node based on the categorie names
       CategorieNode catNode = findCategorie(topCat, subCat);
 
@@ -103,7 +375,345 @@ public class DesignPatternPool {
       node.setParent(catNode);
 
       // store design pattern node for access via model identifier
-      sPatternNodeMap.put(sManifestXmlHandler.getModelID(), node);
+      sPatternNodeMap.put(model.getModelID(), node);
+
+   }
+
+   /**
+    * Returns the rank of the source of a manifest, lower ranks win on conflicts.
+    */
+   private static int getRank(CatalogEntry manifestEntry) {
+      final List<ICatalogSource> sources = Arrays.asList(sSources);
+      final int rank = sources.indexOf(manifestEntry.getSource());
+      return (rank < 0) ? sources.size() : rank;
+   }
+
+   /**
+    * Compares two manifests with the same model identifier by the rank of their
+    * sources and their names.
+    * @return Negative value, if the first manifest wins
+    */
+   private static int compareRank(CatalogEntry entry1, CatalogEntry entry2) {
+      final int result = getRank(entry1) - getRank(entry2);
+      return (result != 0) ? result : entry1.getLocation().compareTo(entry2.getLocation());
+   }
+
+   private static void addShadowed(String modelID, CatalogEntry manifestEntry, CatalogEntry winner) {
+
+      List<CatalogEntry> entries = sShadowed.get(modelID);
+      if (entries == null) {
+         entries = new ArrayList<CatalogEntry>();
+         sShadowed.put(modelID, entries);
+      }  // if
+      if (!entries.contains(manifestEntry)) entries.add(manifestEntry);
+
+      DesignPatternPlugin.logWarning("Design pattern '" + modelID + "' of " + manifestEntry //$NON-NLS-1$ //$NON-NLS-2$
+            + " is shadowed by " + winner); //$NON-NLS-1$
+   }
+
+   /**
+    * Merges a design pattern into the categorie tree. If another manifest provides the
+    * same model identifier, the one from the source with the higher priority wins
+    * and the other one is kept as shadowed manifest.
+    * @param manifestEntry Manifest of the design pattern
+    * @param model Design pattern model built from the manifest
+    * @return <code>true</code>, if the design pattern has been added to the tree
+    */
+   private static boolean mergePatternNode(CatalogEntry manifestEntry, DesignPatternModel model) {
+
+      final String modelID = model.getModelID();
+      final PatternNode existing = sPatternNodeMap.get(modelID);
+
+      if (existing != null && !existing.getManifestEntry().equals(manifestEntry)) {
+         if (compareRank(existing.getManifestEntry(), manifestEntry) < 0) {
+            addShadowed(modelID, manifestEntry, existing.getManifestEntry());
+            return false;
+         }  // if
+         removePatternNode(existing);
+         addShadowed(modelID, existing.getManifestEntry(), manifestEntry);
+      }  // if
+
+      createPatternNode(manifestEntry, model);
+      return true;
+   }
+
+   /**
+    * Forgets a manifest, which has been removed or must be merged again.
+    * @param manifestEntry Manifest
+    * @param modelIDs Receives the identifiers of affected design patterns
+    */
+   private static void removeManifest(CatalogEntry manifestEntry, Set<String> modelIDs) {
+
+      final PatternNode oldNode = findPatternNode(manifestEntry);
+      if (oldNode != null) {
+         modelIDs.add(oldNode.getModelID());
+         removePatternNode(oldNode);
+      }  // if
+
+      for (Iterator<List<CatalogEntry>> it = sShadowed.values().iterator(); it.hasNext();) {
+         final List<CatalogEntry> entries = it.next();
+         entries.remove(manifestEntry);
+         if (entries.isEmpty()) it.remove();
+      }  // for
+   }
+
+   /**
+    * Promotes the best shadowed manifest of a design pattern, whose winning manifest
+    * has been removed.
+    * @param modelID Model identifier
+    */
+   private static void promoteShadowed(String modelID) {
+
+      final List<CatalogEntry> entries = sShadowed.remove(modelID);
+      if (entries == null) return;
+
+      Collections.sort(entries, new Comparator<CatalogEntry>() {
+         public int compare(CatalogEntry entry1, CatalogEntry entry2) {
+            return compareRank(entry1, entry2);
+         }
+      });
+
+      DesignPatternModel model;
+
+      for (CatalogEntry manifestEntry : entries) {
+         try {
+            model = new ManifestLoader(manifestEntry, sSnapshot, new CatalogStatistics()).load();
+         } catch (Exception e) {
+            DesignPatternPlugin.logException(e);
+            continue;
+         }  // try - catch
+         if (model != null) mergePatternNode(manifestEntry, model);
+      }  // for
+   }
+
+   /**
+    * Removes a design pattern node from the categorie tree. Categories left empty
+    * are removed as well.
+    * @param node Design pattern node
+    */
+   private static void removePatternNode(PatternNode node) {
+
+      DocumentNode parent = node.getParent();
+      node.setParent(null);
+      sPatternNodeMap.remove(node.getModelID(), node);
+
+      while (parent instanceof CategorieNode && parent != sRootNode && !parent.hasChildren()) {
+         final DocumentNode next = parent.getParent();
+         ((CategorieNode) parent).dispose();
+         parent = next;
+      }  // while
+
+   }
+
+   /**
+    * @param manifestEntry Manifest
+    * @return Design pattern node created from the given manifest or <code>null</code>
+    */
+   private static PatternNode findPatternNode(CatalogEntry manifestEntry) {
+      for (PatternNode node : sPatternNodeMap.values()) {
+         if (node.getManifestEntry().equals(manifestEntry)) return node;
+      }  // for
+      return null;
+   }
+
+   /**
+    * Merges a design pattern node and records the time spent on tree building.
+    */
+   private static void mergePatternNode(CatalogEntry manifestEntry, DesignPatternModel model,
+         CatalogStatistics statistics) {
+      final long start = System.nanoTime();
+      mergePatternNode(manifestEntry, model);
+      statistics.addPhaseTime(CatalogStatistics.PHASE_TREE, System.nanoTime() - start);
+   }
+
+   /**
+    * Records the time of a finished scan phase.
+    * @return Start time of the next phase
+    */
+   private static long addPhaseTime(CatalogStatistics statistics, int phase, long phaseStart) {
+      final long now = System.nanoTime();
+      statistics.addPhaseTime(phase, now - phaseStart);
+      return now;
+   }
+
+   /**
+    * Counts all categories below the given node.
+    */
+   private static int countCategories(DocumentNode node) {
+      int result = 0;
+      final DocumentNode[] children = node.getChildren();
+      for (int i = 0; i < children.length; i++) {
+         if (children[i] instanceof CategorieNode) {
+            result += 1 + countCategories(children[i]);
+         }  // if
+      }  // for
+      return result;
+   }
+
+   /**
+    * @return Copy of the given sources, sorted by descending priority
+    */
+   private static ICatalogSource[] sortSources(ICatalogSource[] sources) {
+      final ICatalogSource[] result = sources.clone();
+      Arrays.sort(result, PRIORITY_ORDER);
+      return result;
+   }
+
+   /**
+    * Lists the manifests of all sources. The result is ordered by source priority
+    * and manifest name, which is the order manifests are merged in.
+    * @param sources Catalog sources sorted by priority
+    * @param executor Thread pool to list the sources concurrently or <code>null</code>
+    * @return Manifests of all sources
+    */
+   private static CatalogEntry[] listManifests(ICatalogSource[] sources, ExecutorService executor)
+         throws InterruptedException {
+
+      final List<CatalogEntry> result = new ArrayList<CatalogEntry>();
+      final List<Future<CatalogEntry[]>> listings = new ArrayList<Future<CatalogEntry[]>>(sources.length);
+
+      for (int i = 0; i < sources.length; i++) {
+         final SourceLister lister = new SourceLister(sources[i]);
+         if (executor != null) {
+            listings.add(executor.submit(lister));
+         } else {
+            result.addAll(Arrays.asList(lister.call()));
+         }  // if - else
+      }  // for
+
+      for (int i = 0; i < listings.size(); i++) {
+         try {
+            result.addAll(Arrays.asList(listings.get(i).get()));
+         } catch (ExecutionException e) {
+            // a broken source must not hide the others
+            DesignPatternPlugin.logException(e.getCause());
+         }  // try - catch
+      }  // for
+
+      return result.toArray(new CatalogEntry[result.size()]);
+   }
+
+   /**
+    * Loads all manifests one after another within the calling thread.
+    * @param manifestEntries Manifests in merge order
+    * @param snapshot Catalog snapshot
+    * @param statistics Statistics of the current scan
+    */
+   private static void loadSequential(CatalogEntry[] manifestEntries, CatalogSnapshot snapshot,
+         CatalogStatistics statistics) {
+
+      DesignPatternModel model;
+
+      // for each design pattern manifest create a pattern node
+      for (int i = 0; i < manifestEntries.length; i++) {
+         try {
+            model = new ManifestLoader(manifestEntries[i], snapshot, statistics).call();
+         } catch (Exception e) {
+            DesignPatternPlugin.logException(e);
+            continue;
+         }  // try - catch
+         // create design pattern node from manifest
+         if (model != null) mergePatternNode(manifestEntries[i], model, statistics);
+      } // for
+
+   }
+
+   /**
+    * Validates and parses all manifests on a thread pool. The results are merged 
+    * into the categorie tree by the calling thread in the order of the given 
+    * manifests, so the resulting tree does not depend on thread scheduling.
+    * @param manifestEntries Manifests in merge order
+    * @param snapshot Catalog snapshot
+    * @param statistics Statistics of the current scan
+    * @param executor Thread pool
+    */
+   private static void loadConcurrent(CatalogEntry[] manifestEntries, CatalogSnapshot snapshot,
+         CatalogStatistics statistics, ExecutorService executor) throws InterruptedException {
+
+      final List<Future<DesignPatternModel>> results = new ArrayList<Future<DesignPatternModel>>(manifestEntries.length);
+
+      // submit one loader task per manifest
+      for (int i = 0; i < manifestEntries.length; i++) {
+         results.add(executor.submit(new ManifestLoader(manifestEntries[i], snapshot, statistics)));
+      }  // for
+
+      // merge results in manifest order
+      DesignPatternModel model;
+      for (int i = 0; i < manifestEntries.length; i++) {
+         try {
+            model = results.get(i).get();
+         } catch (ExecutionException e) {
+            DesignPatternPlugin.logException(e.getCause());
+            continue;
+         }  // try - catch
+         // create design pattern node from manifest
+         if (model != null) mergePatternNode(manifestEntries[i], model, statistics);
+      }  // for
+
+   }
+
+   // ------------------------------------------------------------------------- Package Methods
+
+   /**
+    * Re-indexes changed manifests. Only the given manifests are parsed again, the
+    * pattern nodes of all other manifests stay untouched. A manifest which can't be
+    * loaded keeps its previous pattern node until it is valid again. If the winning
+    * manifest of a design pattern disappears, the best shadowed one takes its place.
+    * Registered listeners are notified afterwards.
+    * @param changedEntries Added or modified manifests
+    * @param removedEntries Deleted manifests
+    * @see CatalogWatcher
+    */
+   /* package */ static synchronized void updateManifests(CatalogEntry[] changedEntries,
+         CatalogEntry[] removedEntries) {
+
+      final Set<String> modelIDs = new TreeSet<String>();
+
+      for (int i = 0; i < removedEntries.length; i++) {
+         removeManifest(removedEntries[i], modelIDs);
+         sSnapshot.remove(removedEntries[i]);
+      }  // for
+
+      DesignPatternModel model;
+
+      for (int i = 0; i < changedEntries.length; i++) {
+         try {
+            model = new ManifestLoader(changedEntries[i], sSnapshot, new CatalogStatistics()).load();
+         } catch (Exception e) {
+            DesignPatternPlugin.logException(e);
+            model = null;
+         }  // try - catch
+         // keep the previous version of a manifest saved half-edited
+         if (model == null) continue;
+         // replace the node of the previous manifest version
+         removeManifest(changedEntries[i], modelIDs);
+         modelIDs.add(model.getModelID());
+         mergePatternNode(changedEntries[i], model);
+      }  // for
+
+      for (String modelID : modelIDs) {
+         if (!sPatternNodeMap.containsKey(modelID)) promoteShadowed(modelID);
+      }  // for
+
+      sSnapshot.save();
+      fireCatalogChanged(modelIDs.toArray(new String[modelIDs.size()]));
+   }
+
+   /**
+    * Notifies all registered listeners about a catalog change.
+    * @param modelIDs Identifiers of the affected design patterns
+    */
+   /* package */ static void fireCatalogChanged(String[] modelIDs) {
+
+      if (modelIDs.length == 0) return;
+
+      for (ICatalogChangeListener listener : sListeners) {
+         try {
+            listener.catalogChanged(modelIDs);
+         } catch (RuntimeException e) {
+            DesignPatternPlugin.logException(e);
+         }  // try - catch
+      }  // for
 
    }
 
@@ -115,61 +725,170 @@ public class DesignPatternPool {
     * @return Name of the design pattern
     */
    protected static String getDesignPatternName(String modelID) {
-      PatternNode patternNode = sPatternNodeMap.get(modelID);
-      return patternNode != null ? patternNode.toString() : null;
+      DesignPatternModel model = getDesignPatternModel(modelID);
+      return model != null ? model.getPatternName() : null;
    }
 
    // ------------------------------------------------------------------------- Public Methods
 
    /**
-    * Initialize design pattern pool
+    * Initialize design pattern pool. Manifests are loaded concurrently.
     * @param installPath Plugin base path
     */
-	public static void initialize(String installPath) {
+   public static void initialize(String installPath) {
+      initialize(installPath, null, true);
+   }
 
-		String pathSuffix = "pattern.mf/"; //$NON-NLS-1$
+   /**
+    * Initialize design pattern pool from the catalog of the plugin only.
+    * @param installPath Plugin base path
+    * @param snapshotFile Location of the catalog snapshot, can be <code>null</code>
+    * @param concurrent Validate and parse manifests on a thread pool
+    */
+   public static void initialize(String installPath, File snapshotFile, boolean concurrent) {
+      initialize(new ICatalogSource[] {new DirectoryCatalogSource(new File(installPath),
+         ICatalogSource.BUILTIN_SOURCE, 0)}, snapshotFile, concurrent);
+   }
 
-		File manifestPath = new File(installPath + pathSuffix);
+   /**
+    * Initialize design pattern pool. The manifests of all sources are merged into one
+    * categorie tree. On conflicting model identifiers the manifest of the source with
+    * the highest priority wins, on equal priority the source listed first. Calling it
+    * again replaces the whole catalog.
+    * @param sources Catalog sources
+    * @param snapshotFile Location of the catalog snapshot, can be <code>null</code>
+    * @param concurrent List sources and validate and parse manifests on a thread pool
+    * @see CatalogSnapshot
+    */
+   public static synchronized void initialize(ICatalogSource[] sources, File snapshotFile,
+         boolean concurrent) {
+
+      // a second call must not merge all manifests into the existing tree again
+      if (sInitialized) reset();
+      sInitialized = true;
+
+      final CatalogStatistics statistics = new CatalogStatistics();
+      final long startTime = System.nanoTime();
+      long phaseStart = startTime;
+
+      final ICatalogSource[] sortedSources = sortSources(sources);
+      sSources = sortedSources;
+      sStatistics = statistics;
+
+      final ExecutorService executor = concurrent ? Executors.newFixedThreadPool(
+         Math.max(1, Runtime.getRuntime().availableProcessors())) : null;
+
+      try {
+         // get all defined design pattern manifests
+         final CatalogEntry[] manifestEntries = listManifests(sortedSources,
+            sortedSources.length > 1 ? executor : null);
+         statistics.setManifestCount(manifestEntries.length);
+         phaseStart = addPhaseTime(statistics, CatalogStatistics.PHASE_LISTING, phaseStart);
+
+         // only changed manifests must be parsed again
+         final CatalogSnapshot snapshot = CatalogSnapshot.load(snapshotFile);
+         sSnapshot = snapshot;
+         phaseStart = addPhaseTime(statistics, CatalogStatistics.PHASE_SNAPSHOT_LOAD, phaseStart);
+
+         if (executor != null && manifestEntries.length > 1) {
+            loadConcurrent(manifestEntries, snapshot, statistics, executor);
+         } else {
+            loadSequential(manifestEntries, snapshot, statistics);
+         }  // if - else
+         // tree building is interleaved with loading and recorded separately
+         final long loadEnd = System.nanoTime();
+         statistics.addPhaseTime(CatalogStatistics.PHASE_LOADING,
+            loadEnd - phaseStart - statistics.getPhaseTime(CatalogStatistics.PHASE_TREE));
+         phaseStart = loadEnd;
+
+         // drop removed manifests and persist changes
+         snapshot.retain(manifestEntries);
+         snapshot.save();
+         addPhaseTime(statistics, CatalogStatistics.PHASE_SNAPSHOT_SAVE, phaseStart);
+
+      } catch (InterruptedException e) {
+         // restore interrupt state, the catalog stays incomplete
+         Thread.currentThread().interrupt();
+         DesignPatternPlugin.logException(e);
+      } catch (Exception e) {
+         DesignPatternPlugin.logException(e);
+      } finally {
+         if (executor != null) executor.shutdownNow();
+      }  // try - catch - finally
+
+      statistics.setCatalogCounts(sPatternNodeMap.size(), countCategories(sRootNode));
+      statistics.setTotalTime(System.nanoTime() - startTime);
+      if (DesignPatternPlugin.isTracing(DesignPatternPlugin.TRACE_CATALOG)) {
+         DesignPatternPlugin.trace(statistics.toString());
+      }  // if
 
-		if (manifestPath != null && manifestPath.isDirectory()) {
+      // directly loaded models are part of the catalog now
+      sScanFinished = true;
+      sDirectModels.clear();
+      sCatalogLoaded.countDown();
 
-         try {
-				// get all defined design pattern manifests
-				File[] manifestFiles = manifestPath.listFiles(new FilenameFilter() {
+      if (sCatalogMissed) {
+         // callers which gave up waiting show the complete catalog now
+         final Set<String> modelIDs = sPatternNodeMap.keySet();
+         fireCatalogChanged(modelIDs.toArray(new String[modelIDs.size()]));
+      }  // if
+   }
 
-					public boolean accept(File dir, String name) {
-						return name.endsWith(".xml");
-					}
+   /**
+    * Releases all callers waiting for the catalog, if the catalog scan didn't run or
+    * failed before it finished. The catalog stays empty then. Called when the startup
+    * job is done, whether it ran or was canceled before.
+    */
+   public static void releaseCatalog() {
+
+      if (sCatalogLoaded.getCount() == 0) return;
 
-				});
+      DesignPatternPlugin.logErrorMessage("Design pattern catalog couldn't be loaded"); //$NON-NLS-1$
+      sCatalogLoaded.countDown();
+   }
 
-				//synchronized (sManifestXmlHandler) {
+   /**
+    * @return All catalog sources, sorted by descending priority
+    */
+   public static ICatalogSource[] getCatalogSources() {
+      return sSources.clone();
+   }
 
-					// for each design pattern manifest create a pattern node
-					for (int i = 0; i < manifestFiles.length; i++) {
+   /**
+    * Returns the code template of a design pattern. The source of its manifest is
+    * asked first, then all other sources in order of their priority.
+    * @param modelID Model identifier
+    * @return Code template or <code>null</code>, if no source provides it
+    */
+   public static CatalogEntry getCodeTemplate(String modelID) {
 
-                  // validate code template before applying
-                  try {
-							XmlDocValidator.getInstance().validate(manifestFiles[i]);
-						} catch (EInvalidXmlDocument e) {
-                     DesignPatternPlugin.logException(e);
-                     continue;
-						}
+      final PatternNode patternNode = sPatternNodeMap.get(modelID);
+      final ICatalogSource manifestSource = (patternNode != null)
+            ? patternNode.getManifestEntry().getSource() : null;
 
-						// parse manifest file
-						sManifestXmlHandler.parseManifestFile(manifestFiles[i]);
-						// create design pattern node from manifest
-						createPatternNode(manifestFiles[i]);
-					} // for
+      CatalogEntry result = (manifestSource != null) ? manifestSource.getCodeTemplate(modelID) : null;
+      if (result != null) return result;
 
-				//} // synchronized
+      // the sources are known once the catalog load has started
+      if (sSources.length == 0) waitForCatalog();
 
-         } catch (Exception e) {
-            DesignPatternPlugin.logException(e);
-			}  // try - catch
+      final ICatalogSource[] sources = sSources;
+      for (int i = 0; i < sources.length; i++) {
+         if (sources[i] == manifestSource) continue;
+         result = sources[i].getCodeTemplate(modelID);
+         if (result != null) return result;
+      }  // for
 
-		} // if
+      return null;
+   }
 
+   /**
+    * Statistics of the last catalog scan, e.g. to track startup time against
+    * catalog growth.
+    * @return Catalog statistics
+    */
+   public static CatalogStatistics getStatistics() {
+      return sStatistics;
    }
 
    /**
@@ -177,26 +896,58 @@ public class DesignPatternPool {
     * @uml.property name="rootNode"
     */
    public static DocumentNode getRootNode() {
-      return sRootNode;
+      return getLoadedRoot();
    }
 
+   /**
+    * Returns the design pattern model with the given identifier. While the catalog
+    * is still loading, only the manifest of this model is read instead of waiting
+    * for the whole catalog.
+    * @param modelID Model identifier
+    * @return Design pattern model or <code>null</code>, if the model is unknown
+    */
    public static DesignPatternModel getDesignPatternModel(String modelID) {
+
+      // check the latch first, the catalog may be completed right after the lookup
+      final boolean loaded = sCatalogLoaded.getCount() == 0;
+
       PatternNode patternNode = sPatternNodeMap.get(modelID);
+      if (patternNode != null) return getDesignPatternModel(patternNode);
+
+      if (loaded) return null;
+
+      final DesignPatternModel model = loadDirect(modelID);
+      if (model != null) return model;
+
+      // the manifest isn't named after its model identifier
+      if (!waitForCatalog()) return null;
+      patternNode = sPatternNodeMap.get(modelID);
       return patternNode != null ? getDesignPatternModel(patternNode) : null;
    }
 
+   /**
+    * Returns the design pattern model of the given node. Models are built during
+    * the catalog scan, so this is a plain lookup without any I/O.
+    * @param patternNode Tree node of a design pattern
+    * @return Design pattern model
+    */
    public static DesignPatternModel getDesignPatternModel(PatternNode patternNode) {
+      return patternNode.getDesignPatternModel();
+   }
 
-      // look up for the requested design pattern model
-      DesignPatternModel result = sDesignPatternMap.get(patternNode);
-      // check model availability
-      if (result == null) {
-         // create new design pattern model and store them into the map
-         result = new DesignPatternModel(patternNode);
-         sDesignPatternMap.put(patternNode, result);
-      }  // if
+   /**
+    * Registers a listener for catalog changes, e.g. caused by edited manifests.
+    * @param listener Catalog change listener
+    */
+   public static void addCatalogChangeListener(ICatalogChangeListener listener) {
+      sListeners.add(listener);
+   }
 
-      return result;
+   /**
+    * @param listener Catalog change listener to remove
+    */
+   public static void removeCatalogChangeListener(ICatalogChangeListener listener) {
+      sListeners.remove(listener);
    }
 
    /**
@@ -206,7 +957,7 @@ public class DesignPatternPool {
     * @see DesignPatternPool#initialize(String)
     */
    public static CategorieNode getRegisteredPattern() {
-      return sRootNode;
+      return getLoadedRoot();
    }
 
 }
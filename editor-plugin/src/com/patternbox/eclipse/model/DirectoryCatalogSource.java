@@ -0,0 +1,186 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.model;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.patternbox.commons.xml.XmlDocValidator;
+
+/**
+ * Catalog source reading manifests and code templates from the <code>pattern.mf</code>
+ * and <code>template.java</code> folders of a directory, e.g. the plugin installation.
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public class DirectoryCatalogSource implements ICatalogSource {
+
+   // ------------------------------------------------------------------------- Field Definitions
+
+   private static final String XML_EXTENSION = ".xml"; //$NON-NLS-1$
+
+   private static final FilenameFilter XML_FILTER = new FilenameFilter() {
+      public boolean accept(File dir, String name) {
+         return name.endsWith(XML_EXTENSION);
+      }
+   };
+
+   private final File fManifestDir;
+   private final File fTemplateDir;
+   private final String fName;
+   private final int fPriority;
+
+   // ------------------------------------------------------------------------- Inner Classes
+
+   /**
+    * Catalog entry backed by a plain file
+    */
+   public static class FileEntry extends CatalogEntry {
+
+      private final File fFile;
+      private final String fLocation;
+
+      public FileEntry(ICatalogSource source, File file) {
+         super(source, file.getName());
+         fFile = file;
+         fLocation = file.getAbsolutePath();
+      }
+
+      /**
+       * @return File of this entry
+       */
+      public File getFile() {
+         return fFile;
+      }
+
+      public String getLocation() {
+         return fLocation;
+      }
+
+      public String getSystemId() {
+         return XmlDocValidator.getSystemURI(fFile);
+      }
+
+      public long getSize() {
+         return fFile.length();
+      }
+
+      public long getLastModified() {
+         return fFile.lastModified();
+      }
+
+      public InputStream openStream() throws IOException {
+         return new FileInputStream(fFile);
+      }
+   }
+
+   // ------------------------------------------------------------------------- Constructors
+
+   /**
+    * Constructor
+    * @param baseDir Directory containing the <code>pattern.mf</code> and 
+    *   <code>template.java</code> folders
+    * @param name Name of the source
+    * @param priority Priority on conflicting model identifiers
+    */
+   public DirectoryCatalogSource(File baseDir, String name, int priority) {
+      fManifestDir = new File(baseDir, MANIFEST_DIR);
+      fTemplateDir = new File(baseDir, TEMPLATE_DIR);
+      fName = name;
+      fPriority = priority;
+   }
+
+   // ------------------------------------------------------------------------- Private Methods
+
+   private CatalogEntry[] list(File directory) {
+
+      final File[] files = directory.listFiles(XML_FILTER);
+      if (files == null) return new CatalogEntry[0];
+
+      final CatalogEntry[] result = new CatalogEntry[files.length];
+      for (int i = 0; i < files.length; i++) {
+         result[i] = new FileEntry(this, files[i]);
+      }  // for
+      return result;
+   }
+
+   private CatalogEntry get(File directory, String modelID) {
+      final File file = new File(directory, modelID + XML_EXTENSION);
+      return file.isFile() ? new FileEntry(this, file) : null;
+   }
+
+   // ------------------------------------------------------------------------- Public Methods
+
+   /**
+    * @return Manifest folder of this source
+    */
+   public File getManifestDir() {
+      return fManifestDir;
+   }
+
+   /**
+    * @return Code template folder of this source
+    */
+   public File getTemplateDir() {
+      return fTemplateDir;
+   }
+
+   public String getName() {
+      return fName;
+   }
+
+   public int getPriority() {
+      return fPriority;
+   }
+
+   public CatalogEntry[] getManifests() {
+      return list(fManifestDir);
+   }
+
+   public CatalogEntry getManifest(String modelID) {
+      return get(fManifestDir, modelID);
+   }
+
+   public CatalogEntry[] getCodeTemplates() {
+      return list(fTemplateDir);
+   }
+
+   public CatalogEntry getCodeTemplate(String modelID) {
+      return get(fTemplateDir, modelID);
+   }
+
+   /**
+    * @see java.lang.Object#toString()
+    */
+   public String toString() {
+      return fName;
+   }
+
+}
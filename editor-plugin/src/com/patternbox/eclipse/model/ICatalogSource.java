@@ -0,0 +1,91 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+******************************************************************************/
+
+package com.patternbox.eclipse.model;
+
+/**
+ * Source of design pattern manifests and code templates. Besides the catalog shipped
+ * with this plug-in, further sources can be contributed by the <code>catalogSources</code>
+ * extension point. The manifests of all sources are merged into one catalog, if
+ * several sources provide the same design pattern the source with the highest
+ * priority wins.
+ *
+ * @see DesignPatternPool#initialize(ICatalogSource[], java.io.File, boolean)
+ *
+ * @author Dirk Ehms, <a href="http://www.patternbox.com">www.patternbox.com</a>
+ */
+public interface ICatalogSource {
+
+   /**
+    * Name of the manifest folder within a catalog source
+    */
+   public static final String MANIFEST_DIR = "pattern.mf/"; //$NON-NLS-1$
+
+   /**
+    * Name of the code template folder within a catalog source
+    */
+   public static final String TEMPLATE_DIR = "template.java/"; //$NON-NLS-1$
+
+   /**
+    * Name of the catalog shipped with this plug-in
+    */
+   public static final String BUILTIN_SOURCE = "built-in"; //$NON-NLS-1$
+
+   /**
+    * @return Name of the source, used in log messages
+    */
+   public String getName();
+
+   /**
+    * @return Priority of the source, higher values win on conflicting model identifiers
+    */
+   public int getPriority();
+
+   /**
+    * Lists all manifests of this source. This method is called from background threads.
+    * @return Manifest entries, never <code>null</code>
+    */
+   public CatalogEntry[] getManifests();
+
+   /**
+    * @param modelID Design pattern identifier
+    * @return Manifest entry or <code>null</code>, if the source doesn't provide it
+    */
+   public CatalogEntry getManifest(String modelID);
+
+   /**
+    * Lists all code templates of this source.
+    * @return Code template entries, never <code>null</code>
+    */
+   public CatalogEntry[] getCodeTemplates();
+
+   /**
+    * @param modelID Design pattern identifier
+    * @return Code template entry or <code>null</code>, if the source doesn't provide it
+    */
+   public CatalogEntry getCodeTemplate(String modelID);
+
+}
@@ -30,8 +30,6 @@ import java.io.*;
 import java.text.MessageFormat;
 import java.util.*;
 
-import javax.xml.parsers.*;
-
 import org.xml.sax.*;
 import org.xml.sax.helpers.DefaultHandler;
 
@@ -65,18 +63,15 @@ public class ManifestXmlHandler extends DefaultHandler {
    //private static final String AUTHOR_FORMAT = "@author <a href=\"mailto:{0}\">{1}</a>";
    private static final String AUTHOR_FORMAT = "@author {0}, <a href=\"http://{1}\">{1}</a>";
 
-   private static SAXParser sXmlParser = null;
-
    private final StringBuffer fElementValue = new StringBuffer();
-   private final LinkedList<RolePropertiesContainer> fRoleList = new LinkedList<RolePropertiesContainer>();
-   private final HashMap<String, RolePropertiesContainer> fRoleMap = new HashMap<String, RolePropertiesContainer>();
+   private final List<RolePropertiesContainer> fRoleList = new ArrayList<RolePropertiesContainer>();
 
-   /**
-    * 
-    * @uml.property name="activeRoleProperties"
-    * @uml.associationEnd multiplicity="(0 1)"
-    */
-   private RolePropertiesContainer fActiveRoleProperties;
+   // properties of the active role, collected until the role element is closed
+   private final List<String> fActiveCommentItems = new ArrayList<String>();
+   private String fActiveRoleName;
+   private int fActiveMin;
+   private int fActiveMax;
+   private String[] fActiveDependence;
 
    private boolean fInComment;
    //private boolean fInListItem;
@@ -89,18 +84,6 @@ public class ManifestXmlHandler extends DefaultHandler {
    private String fAuthorName;
    private String fAuthorWebsite;
 
-   // ------------------------------------------------------------------------- Constructors
-
-   static {
-      SAXParserFactory factory = SAXParserFactory.newInstance();
-      try {
-         sXmlParser = factory.newSAXParser();
-      } catch (Exception e) {
-         // SAX parser can't be used
-         sXmlParser = null;
-      }
-   }
-
    //------------------------------------------------------------------------- Private Methods
 
    /**
@@ -125,14 +108,17 @@ public class ManifestXmlHandler extends DefaultHandler {
 
    }
 
-   //------------------------------------------------------------------------- Protected Methods
-
-   protected LinkedList<RolePropertiesContainer> getRolePropertiesList() {
-      return fRoleList;
-   }
+   //------------------------------------------------------------------------- Package Methods
 
-   protected RolePropertiesContainer getRoleProperties(String roleName) {
-      return fRoleMap.get(roleName);
+   /**
+    * Creates an immutable design pattern model of the parsed manifest. The handler
+    * can be discarded afterwards.
+    * @return Design pattern model
+    */
+   /* package */ DesignPatternModel createModel() {
+      return new DesignPatternModel(fModelID, fPatternName, fComment, fTopCategorie,
+            fSubCategorie, getAuthor(),
+            fRoleList.toArray(new RolePropertiesContainer[fRoleList.size()]));
    }
 
    // ------------------------------------------------------------------------- XML Parser Handler Methods
@@ -143,8 +129,9 @@ public class ManifestXmlHandler extends DefaultHandler {
    public void startDocument() throws SAXException {
       // remove old participants
       fRoleList.clear();
+      fActiveCommentItems.clear();
       // reset all instance fields
-      fActiveRoleProperties = null;
+      fActiveRoleName = null;
       fInComment = false;
       //fInListItem = false;
       fNestingLevel = -1;
@@ -187,24 +174,21 @@ public class ManifestXmlHandler extends DefaultHandler {
 
       } else if (qName.equals(ELEM_ROLE) && fNestingLevel == 1) {
 
-         // create new role properties container
-         fActiveRoleProperties = new RolePropertiesContainer();
          // read element attributes
          final int min = SaxAttributeReader.getInt(atts, ATTR_MIN, 1, false);
          final String sMax = SaxAttributeReader.getString(atts, ATTR_MAX, "n", false);
          // convert string as integer
          final int max = (sMax.equals("n")) ? Integer.MAX_VALUE : Integer.parseInt(sMax);
-         // set role properties
-         fActiveRoleProperties.setName(SaxAttributeReader.getString(atts, ATTR_NAME, null, true));
-         fActiveRoleProperties.setMinOccurence(min);
-         fActiveRoleProperties.setMaxOccurence(max);
-         // store property container
-         fRoleList.add(fActiveRoleProperties);
-         fRoleMap.put(fActiveRoleProperties.getName(), fActiveRoleProperties);
+         // collect role properties
+         fActiveRoleName = SaxAttributeReader.getString(atts, ATTR_NAME, null, true);
+         fActiveMin = min;
+         fActiveMax = max;
+         fActiveDependence = null;
+         fActiveCommentItems.clear();
 
       } else if (qName.equals(ELEM_DEPENDENCE) && fNestingLevel == 2) {
 
-         fActiveRoleProperties.setDependence(
+         fActiveDependence = RolePropertiesContainer.parseDependence(
             SaxAttributeReader.getString(atts, ATTR_ROLES, "", false));
 
       }  // if - else
@@ -223,11 +207,13 @@ public class ManifestXmlHandler extends DefaultHandler {
 
       } else if (qName.equals(ELEM_LISTITEM)) {
 
-         fActiveRoleProperties.addCommentItem(fElementValue.toString());
+         fActiveCommentItems.add(fElementValue.toString());
 
       } else if (qName.equals(ELEM_ROLE) && fNestingLevel == 1) {
-         
-         // not handled
+
+         // store immutable property container
+         fRoleList.add(new RolePropertiesContainer(fActiveRoleName, fActiveMin, fActiveMax,
+            fActiveDependence, fActiveCommentItems.toArray(new String[fActiveCommentItems.size()])));
 
       }  // if - else
 
@@ -249,26 +235,26 @@ public class ManifestXmlHandler extends DefaultHandler {
 
 	public void parseManifestFile(File manifestFile) throws IOException, SAXException {
 
-		// declare variables
-		FileInputStream inStream;
+		// open manifest file as input stream
+		final FileInputStream inStream = new FileInputStream(manifestFile);
 
-		// create new XML reader for parsing the manifest file
-		XMLReader reader = sXmlParser.getXMLReader();
+		// reuse the XML reader of the current thread for parsing the manifest file
+		final XMLReader reader = XmlParserService.getInstance().getReader();
 		// set manifest handler as content and error handler
 		reader.setContentHandler(this);
 		reader.setErrorHandler(this);
 
-		// open manifest file as input stream
-		inStream = new FileInputStream(manifestFile);
-
       InputSource inpSrc = new InputSource(inStream);
       inpSrc.setSystemId(XmlDocValidator.getSystemURI(manifestFile));
 
-		// parse manifest file
-		reader.parse(inpSrc);
-
-      // close input stream
-      inStream.close();
+      try {
+         // parse manifest file
+         reader.parse(inpSrc);
+      } finally {
+         XmlParserService.getInstance().release(reader);
+         // close input stream
+         inStream.close();
+      }  // try - finally
 	}
 
    /**
@@ -316,9 +302,5 @@ public class ManifestXmlHandler extends DefaultHandler {
    public String getAuthor() {
       return MessageFormat.format(AUTHOR_FORMAT, new Object[] {fAuthorName, fAuthorWebsite});
   }
-   
-   public Set<String> getRoles() {
-      return fRoleMap.keySet();
-   }
 
 }
@@ -26,8 +26,6 @@ SUCH DAMAGE.
 
 package com.patternbox.eclipse.model;
 
-import java.io.File;
-
 import com.patternbox.commons.model.DocumentNode;
 
 /**
@@ -39,37 +37,37 @@ public class PatternNode extends DocumentNode {
 
    // ------------------------------------------------------------------------- Field Definitions
 
-   private final File fManifestFile;
-   private final String fModelID;
-   private final String fPatternName;
+   private final CatalogEntry fManifestEntry;
+   private final DesignPatternModel fModel;
 
    // ------------------------------------------------------------------------- Constructors
 
 	/**
 	 * Default constructor
-	 * @param manifestFile Manifest file with design pattern definitions
+	 * @param manifestEntry Manifest with design pattern definitions
+	 * @param model Design pattern model built from the manifest
 	 */
-   public PatternNode(File manifestFile, ManifestXmlHandler manifestHandler) {
+   public PatternNode(CatalogEntry manifestEntry, DesignPatternModel model) {
 
 		// we will set the parent node of this instance later
 		super(null);
-      // assign manifest file
-      fManifestFile = manifestFile;
-      // assign pattern properties
-      fModelID = manifestHandler.getModelID();
-      fPatternName = manifestHandler.getPatternName();
+      // assign manifest entry
+      fManifestEntry = manifestEntry;
+      // assign pattern model
+      fModel = model;
 	}
 
    // ------------------------------------------------------------------------- Public Methods
 
    /**
-    * Design pattern manifest file access.
-    * @return Returns the manifest file of the assoziated design pattern
+    * Design pattern manifest access.
+    * @return Returns the manifest of the assoziated design pattern, it may be
+    *   located in any catalog source
     * 
-    * @uml.property name="manifestFile"
+    * @uml.property name="manifestEntry"
     */
-   public File getManifestFile() {
-      return fManifestFile;
+   public CatalogEntry getManifestEntry() {
+      return fManifestEntry;
    }
 
 
@@ -77,7 +75,7 @@ public class PatternNode extends DocumentNode {
     * @see java.lang.Object#toString()
     */
    public String toString() {
-      return fPatternName;
+      return fModel.getPatternName();
    }
 
    /**
@@ -86,7 +84,14 @@ public class PatternNode extends DocumentNode {
     * @uml.property name="modelID"
     */
    public String getModelID() {
-      return fModelID;
+      return fModel.getModelID();
+   }
+
+   /**
+    * @return Design pattern model of this node
+    */
+   public DesignPatternModel getDesignPatternModel() {
+      return fModel;
    }
 
 }
@@ -28,12 +28,11 @@ package com.patternbox.eclipse.model;
 
 import java.io.*;
 
-import javax.xml.parsers.*;
-
 import org.xml.sax.*;
 import org.xml.sax.helpers.DefaultHandler;
 
 import com.patternbox.commons.xml.SaxAttributeReader;
+import com.patternbox.commons.xml.XmlParserService;
 import com.patternbox.commons.model.DocumentNode;
 
 /**
@@ -54,8 +53,6 @@ public class PatternXmlHandler extends DefaultHandler {
    public static final String ATTR_PROJECT = "project";
    public static final String ATTR_PACKAGE = "package";
 
-   private static SAXParser sXmlParser = null;
-
    /**
     * 
     * @uml.property name="patternModel"
@@ -82,18 +79,6 @@ public class PatternXmlHandler extends DefaultHandler {
    private String fDefaultProject;
    private String fModelID;
 
-   // ------------------------------------------------------------------------- Constructors
-
-   static {
-      SAXParserFactory factory = SAXParserFactory.newInstance();
-      try {
-         sXmlParser = factory.newSAXParser();
-      } catch (Exception e) {
-         // SAX parser can't be used
-         sXmlParser = null;
-      }
-   }
-
    // ------------------------------------------------------------------------- XML Parser Handler Methods
 
    /**
@@ -170,14 +155,18 @@ public class PatternXmlHandler extends DefaultHandler {
       fDefaultProject = defaultProject;
       fRootNode = new DocumentNode(null);
 
-		// create new XML reader for parsing the manifest file
-		XMLReader reader = sXmlParser.getXMLReader();
-		// set manifest handler as content and error handler
+		// reuse the XML reader of the current thread for parsing the pattern stream
+		XMLReader reader = XmlParserService.getInstance().getReader();
+		// set pattern handler as content and error handler
 		reader.setContentHandler(this);
 		reader.setErrorHandler(this);
 
-		// parse manifest file
-		reader.parse(new InputSource(patternStream));
+		try {
+			// parse pattern stream
+			reader.parse(new InputSource(patternStream));
+		} finally {
+			XmlParserService.getInstance().release(reader);
+		}  // try - finally
 
       return fRootNode;
 	}
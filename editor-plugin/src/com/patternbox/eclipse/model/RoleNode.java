@@ -28,6 +28,7 @@ package com.patternbox.eclipse.model;
 
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 //import org.eclipse.pde.internal.core.plugin.DocumentNode;
 
@@ -41,9 +42,12 @@ public class RoleNode extends DocumentNode {
 
    // ------------------------------------------------------------------------- Field Defintions
 
-   private static final MessageFormat sStrFormatter = new MessageFormat("{0} [{1}..{2}]");
+   private static final String STR_FORMAT = "{0} [{1}..{2}]";
 
-   private final Set<RoleNode> fReplace = new HashSet<RoleNode>();
+   /**
+    * Role nodes for automatic replacement, concurrently filled by member generations
+    */
+   private final Set<RoleNode> fReplace = Collections.newSetFromMap(new ConcurrentHashMap<RoleNode, Boolean>());
    private final String fFormatedString;
 
    /**
@@ -84,7 +88,8 @@ public class RoleNode extends DocumentNode {
       final Object[] params = new Object[] {props.getName(),
          new Integer(props.getMinOccurence()), translated};
 
-      fFormatedString = sStrFormatter.format(params);
+      // message formats aren't thread-safe, role nodes are created by concurrent parses
+      fFormatedString = MessageFormat.format(STR_FORMAT, params);
 	}
 
    // ------------------------------------------------------------------------- Protected Methods
@@ -29,7 +29,7 @@ package com.patternbox.eclipse.model;
 import java.util.*;
 
 /**
- * This class is a container for all properties of a design pattern role.
+ * This class is an immutable container for all properties of a design pattern role.
  *
  * @see com.patternbox.eclipse.model.ManifestXmlHandler
  *
@@ -37,46 +37,78 @@ import java.util.*;
  */
 public class RolePropertiesContainer {
 
-   private final List<String> fCommentItemList = new LinkedList<String>();
-   private String fName;
-   private int fMinOccurence = -1;
-   private int fMaxOccurence = -1;
-   private String[] fDependenceList = null;
+   private static final String[] NO_ROLES = new String[0];
+
+   private final String fName;
+   private final int fMinOccurence;
+   private final int fMaxOccurence;
+   private final String[] fDependenceList;
+   private final List<String> fCommentItemList;
 
    /**
-    * @return Returns name of the role
-    * 
-    * @uml.property name="name"
+    * Constructor. Role names are interned, because they are shared by manifests,
+    * dependence lists and design pattern instances.
+    * @param name Name of the role
+    * @param min Minimum occurence
+    * @param max Maximum occurence, <code>Integer.MAX_VALUE</code> if unbounded
+    * @param dependence Names of the roles this role depends on, can be <code>null</code>
+    * @param commentItems Comment items, can be <code>null</code>
     */
-   public String getName() {
-      return fName;
+   public RolePropertiesContainer(String name, int min, int max, String[] dependence,
+         String[] commentItems) {
+
+      fName = name.intern();
+      fMinOccurence = min;
+      fMaxOccurence = max;
+
+      if (dependence != null) {
+         for (int i = 0; i < dependence.length; i++) {
+            dependence[i] = dependence[i].intern();
+         }  // for
+      }  // if
+      fDependenceList = dependence;
+
+      fCommentItemList = (commentItems != null && commentItems.length > 0)
+         ? Collections.unmodifiableList(Arrays.asList(commentItems))
+         : Collections.<String>emptyList();
    }
 
    /**
-    * @param name Name of the role
-    * 
-    * @uml.property name="name"
+    * Splits an enumeration of role names.
+    * @param roleNameList Enumeration of role names
+    * @return Array of role names
     */
-   public void setName(String name) {
-      fName = name;
+   public static String[] parseDependence(String roleNameList) {
+
+      StringTokenizer tokenizer = new StringTokenizer(roleNameList, ", ");
+
+      if (!tokenizer.hasMoreTokens()) return NO_ROLES;
+
+      final String[] result = new String[tokenizer.countTokens()];
+
+      for (int i=0; i<result.length; i++) {
+         result[i] = tokenizer.nextToken();
+      }  // for
+
+      return result;
    }
 
    /**
-    * @return
+    * @return Returns name of the role
     * 
-    * @uml.property name="minOccurence"
+    * @uml.property name="name"
     */
-   public int getMinOccurence() {
-      return fMinOccurence;
+   public String getName() {
+      return fName;
    }
 
    /**
-    * @param min
+    * @return
     * 
     * @uml.property name="minOccurence"
     */
-   public void setMinOccurence(int min) {
-      fMinOccurence = min;
+   public int getMinOccurence() {
+      return fMinOccurence;
    }
 
    /**
@@ -89,48 +121,15 @@ public class RolePropertiesContainer {
    }
 
    /**
-    * @param max
-    * 
-    * @uml.property name="maxOccurence"
-    */
-   public void setMaxOccurence(int max) {
-      fMaxOccurence = max;
-   }
-
-
-   /**
-    * @return Array of role names
+    * @return Copy of the array of role names, <code>null</code> if the role has no dependence
     */
    public String[] getDependence() {
-      return fDependenceList;
-   }
-
-   /**
-    * @param roleNameList Enumeration of role names
-    */
-   public void setDependence(String roleNameList) {
-
-      StringTokenizer tokenizer = new StringTokenizer(roleNameList, ", ");
-
-      fDependenceList = new String[tokenizer.countTokens()];
-
-      for (int i=0; i<fDependenceList.length; i++) {
-         fDependenceList[i] = tokenizer.nextToken();
-      }  // for
-
-   }
-
-   /**
-    * Adds a new comment item. Comments are organized as list items!
-    * @param listItem New comment item to add.
-    */
-   public void addCommentItem(String listItem) {
-      fCommentItemList.add(listItem);
+      return (fDependenceList == null) ? null : fDependenceList.clone();
    }
 
    /**
     * Returns a list with a collected comment items.
-    * @return Comment item list.
+    * @return Unmodifiable comment item list.
     * 
     * @uml.property name="commentItemList"
     */
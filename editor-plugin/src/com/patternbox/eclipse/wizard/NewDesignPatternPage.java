@@ -35,6 +35,7 @@ import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.LabelProvider;
 import org.eclipse.jface.wizard.WizardPage;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.BusyIndicator;
 import org.eclipse.swt.events.ModifyEvent;
 import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.events.SelectionAdapter;
@@ -51,6 +52,7 @@ import org.eclipse.ui.dialogs.ContainerSelectionDialog;
 
 import com.patternbox.eclipse.editor.DesignPatternPlugin;
 import com.patternbox.eclipse.model.DesignPatternPool;
+import com.patternbox.eclipse.model.ICatalogChangeListener;
 import com.patternbox.eclipse.model.PatternNode;
 
 /**
@@ -91,6 +93,22 @@ public class NewDesignPatternPage extends WizardPage {
 
 	private boolean fFileNameChanged;
 
+	private final ICatalogChangeListener fCatalogListener = new ICatalogChangeListener() {
+
+		@Override
+		public void catalogChanged(String[] modelIDs) {
+			if (fPatternTree == null || fPatternTree.isDisposed())
+				return;
+			fPatternTree.getDisplay().asyncExec(new Runnable() {
+
+				@Override
+				public void run() {
+					refreshPatternTree();
+				}
+			});
+		}
+	};
+
 	// ------------------------------------------------------------------------- Constructors
 	/**
 	 * Constructor for NewDesignPatternPage.
@@ -124,11 +142,57 @@ public class NewDesignPatternPage extends WizardPage {
 				containerText.setText(container.getFullPath().toString());
 			} // if
 		} // if
-		LabelProvider labelProv = DesignPatternPlugin.getDefault().getImageProvider();
-		new TreeModelWrapper(DesignPatternPool.getRootNode(), fPatternTree, labelProv);
+		final LabelProvider labelProv = DesignPatternPlugin.getDefault().getImageProvider();
+		// the catalog may still be loading in the background
+		BusyIndicator.showWhile(fPatternTree.getDisplay(), new Runnable() {
+
+			@Override
+			public void run() {
+				new TreeModelWrapper(DesignPatternPool.getRootNode(), fPatternTree, labelProv);
+			}
+		});
 		fFileNameChanged = false;
 	}
 
+	/**
+	 * Rebuilds the design pattern tree after a catalog change and keeps the current selection, if
+	 * the selected design pattern still exists. The page isn't validated, so changes of unrelated
+	 * patterns never show errors on a page the user hasn't touched.
+	 */
+	private void refreshPatternTree() {
+		if (fPatternTree.isDisposed())
+			return;
+		final PatternNode selected = getSelectedPatternNode();
+		fPatternTree.setRedraw(false);
+		try {
+			fPatternTree.removeAll();
+			LabelProvider labelProv = DesignPatternPlugin.getDefault().getImageProvider();
+			new TreeModelWrapper(DesignPatternPool.getRootNode(), fPatternTree, labelProv);
+			if (selected != null) {
+				selectPatternNode(fPatternTree.getItems(), selected.getModelID());
+			}
+		} finally {
+			fPatternTree.setRedraw(true);
+		}
+		// keep the status, but the page can't be finished without its selected pattern
+		if (selected != null && getSelectedPatternNode() == null) {
+			setPageComplete(false);
+		}
+	}
+
+	private boolean selectPatternNode(TreeItem[] items, String modelID) {
+		for (int i = 0; i < items.length; i++) {
+			if (items[i].getData() instanceof PatternNode
+					&& ((PatternNode) items[i].getData()).getModelID().equals(modelID)) {
+				fPatternTree.setSelection(items[i]);
+				return true;
+			}
+			if (selectPatternNode(items[i].getItems(), modelID))
+				return true;
+		}
+		return false;
+	}
+
 	/**
 	 * Uses the standard container selection dialog to choose the new value for the container field.
 	 */
@@ -253,6 +317,16 @@ public class NewDesignPatternPage extends WizardPage {
 		initialize();
 		// dialogChanged();
 		setControl(container);
+		DesignPatternPool.addCatalogChangeListener(fCatalogListener);
+	}
+
+	/**
+	 * @see org.eclipse.jface.dialogs.DialogPage#dispose()
+	 */
+	@Override
+	public void dispose() {
+		DesignPatternPool.removeCatalogChangeListener(fCatalogListener);
+		super.dispose();
 	}
 
 	public String getContainerName() {
@@ -38,8 +38,8 @@ import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
 
-import com.patternbox.eclipse.codegen.CodeTemplateXmlHandler;
 import com.patternbox.eclipse.codegen.MemberCodeGenerator;
+import com.patternbox.eclipse.codegen.RoleMemberFactory;
 import com.patternbox.eclipse.editor.DesignPatternPlugin;
 import com.patternbox.eclipse.model.DesignPatternInstance;
 import com.patternbox.eclipse.model.RoleNode;
@@ -56,7 +56,8 @@ public class RoleMemberPage extends NewTypeWizardPage {
 
 	private static final String WIZARD_DESC = "NewMemberWiz.desc";
 
-	private static final CodeTemplateXmlHandler sCodeTemplateXmlHandler = new CodeTemplateXmlHandler();
+	// stateless, shared by all wizard pages
+	private static final RoleMemberFactory sRoleMemberFactory = new RoleMemberFactory();
 
 	private final static String PAGE_NAME = "NewClassWizardPage"; //$NON-NLS-1$
 
@@ -179,7 +180,7 @@ public class RoleMemberPage extends NewTypeWizardPage {
 	public void createType(DesignPatternInstance model, RoleNode roleNode, IProgressMonitor monitor)
 			throws CoreException {
 		// super.createType(monitor);
-		fCodeGenerator = sCodeTemplateXmlHandler.createRoleMember(model, roleNode, monitor,
+		fCodeGenerator = sRoleMemberFactory.createRoleMember(model, roleNode, monitor,
 				getTypeName(), getPackageFragmentRoot(), getPackageFragment());
 	}
 
@@ -0,0 +1,62 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+package com.patternbox.eclipse.codegen;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * @author <a href='http://www.patternbox.com'>D. Ehms, Patternbox</a>
+ */
+public class CommentRendererTest {
+
+	private static final String EOL = MemberCodeGenerator.EOL;
+
+	@Test
+	public void testSplitLines() {
+		assertEquals(0, CommentRenderer.splitLines(null).length);
+		assertEquals(0, CommentRenderer.splitLines("\n  \n\t\n").length);
+		// blank lines are kept between text lines, empty ones are dropped
+		assertArrayEquals(new String[] {"first", "", "second"},
+			CommentRenderer.splitLines("\n   first  \n\n  \r\n second\n  \n"));
+		assertArrayEquals(new String[] {"single"}, CommentRenderer.splitLines("single"));
+	}
+
+	@Test
+	public void testFieldComment() {
+		assertEquals("", CommentRenderer.renderFieldComment(null));
+		assertEquals("", CommentRenderer.renderFieldComment(""));
+		assertEquals("/** Observer list */" + EOL,
+			CommentRenderer.renderFieldComment("\n  Observer list\n"));
+	}
+
+	@Test
+	public void testMethodComment() {
+		assertEquals("", CommentRenderer.renderMethodComment(null));
+		assertEquals("/** " + EOL + " * Attaches an observer." + EOL + " * Not thread safe." + EOL + " */" + EOL,
+			CommentRenderer.renderMethodComment("\n  Attaches an observer.\n  Not thread safe.\n"));
+	}
+}
@@ -0,0 +1,71 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+package com.patternbox.eclipse.codegen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+/**
+ * @author <a href='http://www.patternbox.com'>D. Ehms, Patternbox</a>
+ */
+public class ImportsManagerTest {
+
+	@Test
+	public void testSimpleNames() {
+		final ImportsManager imports = new ImportsManager("com.example.observer");
+
+		assertEquals("List", imports.addImport("java.util.List"));
+		assertEquals("String", imports.addImport("java.lang.String"));
+		assertEquals("Subject", imports.addImport("com.example.observer.Subject"));
+		assertEquals("double", imports.addImport("double"));
+		assertEquals("String[]", imports.addImport("java.lang.String[]"));
+		assertEquals("List[][]", imports.addImport("java.util.List[][]"));
+
+		// java.lang and same package types don't need an import
+		assertEquals(new HashSet<String>(Arrays.asList("java.util.List")), imports.getImports());
+	}
+
+	@Test
+	public void testConflicts() {
+		final ImportsManager imports = new ImportsManager("com.example.iterator");
+		imports.reserve("com.example.iterator.Iterator");
+
+		assertEquals("java.util.Iterator", imports.addImport("java.util.Iterator"));
+		assertEquals("List", imports.addImport("java.util.List"));
+		assertEquals("java.awt.List", imports.addImport("java.awt.List"));
+		assertEquals("java.awt.List[]", imports.addImport("java.awt.List[]"));
+		// an imported type hides the type of java.lang
+		assertEquals("String", imports.addImport("com.example.text.String"));
+		assertEquals("java.lang.String", imports.addImport("java.lang.String"));
+
+		assertEquals(new HashSet<String>(Arrays.asList("java.util.List", "com.example.text.String")),
+			imports.getImports());
+		assertTrue(imports.reserve("java.util.List"));
+	}
+}
@@ -0,0 +1,77 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+package com.patternbox.eclipse.codegen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author <a href='http://www.patternbox.com'>D. Ehms, Patternbox</a>
+ */
+public class PlaceholderScannerTest {
+
+	private static final String TYPE = "Object " + CodeReplacer.REPLACE_START + " $Observer$ "
+		+ CodeReplacer.REPLACE_END;
+
+	private static final String VALUE = "null" + CodeReplacer.REPLACE_START + " new $Subject$() "
+		+ CodeReplacer.REPLACE_END;
+
+	@Test
+	public void testReplacements() {
+		final String source = "class A {\n\tprivate " + TYPE + " fObserver = " + VALUE + ";\n}";
+		final PlaceholderScanner scanner = new PlaceholderScanner(source);
+
+		assertTrue(scanner.next());
+		assertEquals(source.indexOf("Object"), scanner.getOffset());
+		assertEquals(TYPE.length(), scanner.getLength());
+		assertEquals("$Observer$", scanner.getPlaceholder());
+
+		assertTrue(scanner.next());
+		assertEquals(source.indexOf("null"), scanner.getOffset());
+		assertEquals(VALUE.length(), scanner.getLength());
+		assertEquals("new $Subject$()", scanner.getPlaceholder());
+
+		assertFalse(scanner.next());
+	}
+
+	@Test
+	public void testBoundaries() {
+		// the previous word ends at line starts and parentheses
+		PlaceholderScanner scanner = new PlaceholderScanner("update(\n" + VALUE + ")");
+		assertTrue(scanner.next());
+		assertEquals(8, scanner.getOffset());
+		// adjacent replacements don't overlap
+		scanner = new PlaceholderScanner(TYPE + VALUE);
+		assertTrue(scanner.next());
+		assertEquals(0, scanner.getOffset());
+		assertTrue(scanner.next());
+		assertEquals(TYPE.length(), scanner.getOffset());
+		assertEquals(VALUE.length(), scanner.getLength());
+		// unterminated markers are ignored
+		assertFalse(new PlaceholderScanner("Object " + CodeReplacer.REPLACE_START + " $A$").next());
+	}
+}
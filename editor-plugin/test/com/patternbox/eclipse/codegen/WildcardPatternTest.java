@@ -0,0 +1,77 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+package com.patternbox.eclipse.codegen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author <a href='http://www.patternbox.com'>D. Ehms, Patternbox</a>
+ */
+public class WildcardPatternTest {
+
+	@Test
+	public void testLiteral() {
+		assertSame(WildcardPattern.EMPTY, WildcardPattern.compile(null));
+		assertSame(WildcardPattern.EMPTY, WildcardPattern.compile(""));
+		final WildcardPattern pattern = WildcardPattern.compile("return fState;");
+		assertFalse(pattern.hasRoleReferences());
+		assertEquals(1, pattern.size());
+		assertEquals("return fState;", pattern.getSegment(0));
+	}
+
+	@Test
+	public void testRoleReferences() {
+		final WildcardPattern pattern = WildcardPattern.compile("f$Subject$.attach(new $Observer$());");
+		assertTrue(pattern.hasRoleReferences());
+		assertEquals(5, pattern.size());
+		assertEquals("f", pattern.getSegment(0));
+		assertFalse(pattern.isRoleReference(0));
+		assertEquals("Subject", pattern.getSegment(1));
+		assertTrue(pattern.isRoleReference(1));
+		assertEquals(".attach(new ", pattern.getSegment(2));
+		assertEquals("Observer", pattern.getSegment(3));
+		assertTrue(pattern.isRoleReference(3));
+		assertEquals("());", pattern.getSegment(4));
+	}
+
+	@Test
+	public void testDelimiters() {
+		// adjacent delimiters are dropped like by the former StringTokenizer
+		WildcardPattern pattern = WildcardPattern.compile("a$$b");
+		assertFalse(pattern.hasRoleReferences());
+		assertEquals(1, pattern.size());
+		assertEquals("ab", pattern.getSegment(0));
+		// an unterminated wildcard still references a role
+		pattern = WildcardPattern.compile("new $Product");
+		assertEquals(2, pattern.size());
+		assertEquals("Product", pattern.getSegment(1));
+		assertTrue(pattern.isRoleReference(1));
+	}
+}
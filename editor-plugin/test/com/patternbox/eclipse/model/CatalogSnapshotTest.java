@@ -0,0 +1,126 @@
+/**************************** Copyright notice ********************************
+
+Copyright (C) 2003-2012 by Dirk Ehms, http://www.patternbox.com. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+THIS SOFTWARE IS PROVIDED BY THE AUTHOR AND CONTRIBUTORS ``AS IS'' AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+SUCH DAMAGE.
+
+ ******************************************************************************/
+package com.patternbox.eclipse.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+
+import org.junit.Test;
+
+/**
+ * @author <a href='http://www.patternbox.com'>D. Ehms, Patternbox</a>
+ */
+public class CatalogSnapshotTest {
+
+	private static final File sManifestFile = new File("pattern.mf/observer.xml");
+
+	private static final CatalogEntry sManifestEntry = new DirectoryCatalogSource.FileEntry(null, sManifestFile);
+
+	@Test
+	public void testSnapshotRoundTrip() throws Exception {
+		final File snapshotFile = File.createTempFile("catalog", ".snapshot");
+		snapshotFile.deleteOnExit();
+		final DesignPatternModel model = DesignPatternModel.load(sManifestEntry);
+		final long hash = CatalogSnapshot.computeHash(sManifestFile);
+		// write snapshot
+		CatalogSnapshot snapshot = CatalogSnapshot.load(snapshotFile);
+		assertNull(snapshot.lookup(sManifestEntry, hash));
+		snapshot.update(sManifestEntry, hash, model);
+		snapshot.save();
+		// read snapshot again
+		snapshot = CatalogSnapshot.load(snapshotFile);
+		final DesignPatternModel restored = snapshot.lookup(sManifestEntry, hash);
+		assertNotNull(restored);
+		// an unchanged time stamp doesn't require the content hash
+		assertNotNull(snapshot.lookup(sManifestEntry));
+		assertEquals(model.getModelID(), restored.getModelID());
+		assertEquals(model.getPatternName(), restored.getPatternName());
+		assertEquals(model.getComment(), restored.getComment());
+		assertEquals(model.getAuthor(), restored.getAuthor());
+		assertEquals(model.getRoles(), restored.getRoles());
+		assertEquals(model.getRoleProperties("ConcreteObserver").getCommentItemList(), restored
+				.getRoleProperties("ConcreteObserver").getCommentItemList());
+		// a changed content hash invalidates the entry
+		assertNull(snapshot.lookup(sManifestEntry, hash + 1));
+	}
+
+	@Test
+	public void testCorruptSnapshot() throws Exception {
+		final File snapshotFile = File.createTempFile("catalog", ".snapshot");
+		snapshotFile.deleteOnExit();
+		final DesignPatternModel model = DesignPatternModel.load(sManifestEntry);
+		final long hash = CatalogSnapshot.computeHash(sManifestFile);
+		CatalogSnapshot snapshot = CatalogSnapshot.load(snapshotFile);
+		snapshot.update(sManifestEntry, hash, model);
+		snapshot.save();
+		// keep the header, but corrupt the length of the first model identifier
+		final DataInputStream in = new DataInputStream(new FileInputStream(snapshotFile));
+		final int magic = in.readInt();
+		final int version = in.readInt();
+		in.close();
+		final DataOutputStream out = new DataOutputStream(new FileOutputStream(snapshotFile));
+		out.writeInt(magic);
+		out.writeInt(version);
+		out.writeInt(1);
+		out.writeUTF(sManifestEntry.getLocation());
+		out.writeLong(0);
+		out.writeLong(0);
+		out.writeLong(hash);
+		out.writeInt(-7);
+		out.close();
+		// a corrupt snapshot is empty, but can be used and saved again
+		snapshot = CatalogSnapshot.load(snapshotFile);
+		assertNull(snapshot.lookup(sManifestEntry, hash));
+		snapshot.update(sManifestEntry, hash, model);
+		snapshot.save();
+		assertNotNull(CatalogSnapshot.load(snapshotFile).lookup(sManifestEntry, hash));
+	}
+
+	@Test
+	public void testLongStrings() throws Exception {
+		final StringBuffer comment = new StringBuffer();
+		while (comment.length() < 70000) {
+			comment.append("Comment \u00e4\u20ac ");
+		}
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		CatalogSnapshot.writeString(out, comment.toString());
+		CatalogSnapshot.writeString(out, null);
+		out.close();
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(comment.toString(), CatalogSnapshot.readString(in));
+		assertNull(CatalogSnapshot.readString(in));
+	}
+}